@@ -0,0 +1,33 @@
+-- PawHaven one-open-application migration
+-- A user may hold only one open (PENDING or UNDER_REVIEW) application per pet. active_flag is a generated
+-- column that is 1 while an application is open and NULL once it is decided, and a unique key over
+-- (user_id, pet_id, active_flag) enforces the rule on every insert and status change.
+--
+-- spring.jpa.hibernate.ddl-auto=update adds the column and key on startup, but the key cannot be created while
+-- duplicates exist, so run the cleanup below first. Run the whole script by hand when schema updates are
+-- disabled, e.g. spring.jpa.hibernate.ddl-auto=validate or none.
+
+USE pawhaven;
+
+-- Keep the earliest open application of each user for each pet and close the later duplicates
+UPDATE adoption_applications a
+JOIN (
+    SELECT user_id, pet_id, MIN(a_id) AS keep_id
+    FROM adoption_applications
+    WHERE status IN ('PENDING', 'UNDER_REVIEW')
+    GROUP BY user_id, pet_id
+    HAVING COUNT(*) > 1
+) d ON d.user_id = a.user_id AND d.pet_id = a.pet_id
+SET a.status = 'REJECTED',
+    a.admin_notes = 'Closed automatically: duplicate of an earlier open application',
+    a.reviewed_date = CURRENT_TIMESTAMP,
+    a.reviewer_id = NULL,
+    a.claimed_at = NULL,
+    a.lease_expires_at = NULL,
+    a.version = a.version + 1
+WHERE a.status IN ('PENDING', 'UNDER_REVIEW') AND a.a_id <> d.keep_id;
+
+ALTER TABLE adoption_applications
+    ADD COLUMN active_flag TINYINT
+        GENERATED ALWAYS AS (CASE WHEN status IN ('PENDING', 'UNDER_REVIEW') THEN 1 END) VIRTUAL,
+    ADD UNIQUE KEY uk_adoption_applications_active (user_id, pet_id, active_flag);
@@ -6,10 +6,19 @@ CREATE DATABASE IF NOT EXISTS pawhaven;
 USE pawhaven;
 
 -- Drop tables if they exist (in reverse order due to foreign keys)
+DROP TABLE IF EXISTS pet_demand;
+DROP TABLE IF EXISTS idempotency_keys;
+DROP TABLE IF EXISTS payment_daily_totals;
+DROP TABLE IF EXISTS payment_webhook_events;
+DROP TABLE IF EXISTS payments_seq;
+DROP TABLE IF EXISTS notifications_seq;
+DROP TABLE IF EXISTS adoption_applications_seq;
+DROP TABLE IF EXISTS pets_seq;
 DROP TABLE IF EXISTS babysitting;
 DROP TABLE IF EXISTS payments;
 DROP TABLE IF EXISTS reports;
 DROP TABLE IF EXISTS accessories;
+DROP TABLE IF EXISTS notifications_archive;
 DROP TABLE IF EXISTS notifications;
 DROP TABLE IF EXISTS feedbacks;
 DROP TABLE IF EXISTS adoption_applications;
@@ -73,13 +82,16 @@ CREATE TABLE pets (
     available BOOLEAN NOT NULL DEFAULT TRUE,
     adoption_fee DOUBLE,
     shelter_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (shelter_id) REFERENCES shelters(s_id) ON DELETE SET NULL,
     INDEX idx_species (species),
     INDEX idx_breed (breed),
     INDEX idx_available (available),
-    INDEX idx_shelter (shelter_id)
+    INDEX idx_shelter (shelter_id),
+    INDEX idx_pets_created_at_id (created_at, p_id),
+    INDEX idx_pets_available_created_at_id (available, created_at, p_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- 4. Adoption Applications Table
@@ -95,12 +107,22 @@ CREATE TABLE adoption_applications (
     admin_notes TEXT,
     submission_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     reviewed_date TIMESTAMP NULL,
+    reviewer_id BIGINT NULL,
+    claimed_at TIMESTAMP NULL,
+    lease_expires_at TIMESTAMP NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    -- 1 while the application is open, NULL once decided; NULLs never collide, so the unique key below allows
+    -- any number of closed applications but only one open one per user and pet
+    active_flag TINYINT GENERATED ALWAYS AS (CASE WHEN status IN ('PENDING', 'UNDER_REVIEW') THEN 1 END) VIRTUAL,
     FOREIGN KEY (user_id) REFERENCES users(u_id) ON DELETE CASCADE,
     FOREIGN KEY (pet_id) REFERENCES pets(p_id) ON DELETE CASCADE,
+    UNIQUE KEY uk_adoption_applications_active (user_id, pet_id, active_flag),
     INDEX idx_user (user_id),
     INDEX idx_pet (pet_id),
     INDEX idx_status (status),
-    INDEX idx_submission_date (submission_date)
+    INDEX idx_submission_date (submission_date),
+    INDEX idx_adoption_applications_status_lease (status, lease_expires_at),
+    INDEX idx_adoption_applications_pet_status (pet_id, status)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- 5. Feedbacks Table
@@ -129,7 +151,22 @@ CREATE TABLE notifications (
     INDEX idx_user (user_id),
     INDEX idx_type (type),
     INDEX idx_is_read (is_read),
-    INDEX idx_date (date)
+    INDEX idx_date (date),
+    INDEX idx_notifications_read_date (is_read, date),
+    INDEX idx_notifications_user_date (user_id, date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 6a. Notifications Archive Table (read notifications moved out by the retention job, original ids kept)
+CREATE TABLE notifications_archive (
+    n_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    message TEXT NOT NULL,
+    date TIMESTAMP NOT NULL,
+    is_read BOOLEAN DEFAULT TRUE,
+    archived_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(u_id) ON DELETE CASCADE,
+    INDEX idx_notifications_archive_user_date (user_id, date)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- 7. Accessories Table
@@ -143,6 +180,7 @@ CREATE TABLE accessories (
     image VARCHAR(500),
     brand VARCHAR(100),
     is_active BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_name (name),
@@ -181,6 +219,7 @@ CREATE TABLE payments (
     payment_method VARCHAR(50),
     currency VARCHAR(10) DEFAULT 'USD',
     notes TEXT,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (user_id) REFERENCES users(u_id) ON DELETE CASCADE,
     INDEX idx_user (user_id),
     INDEX idx_tran_id (tran_id),
@@ -188,6 +227,49 @@ CREATE TABLE payments (
     INDEX idx_date (date)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
+-- 9a. Idempotency Keys Table (stored responses for requests sent with an Idempotency-Key header)
+CREATE TABLE idempotency_keys (
+    idem_key VARCHAR(200) PRIMARY KEY,
+    request_hash CHAR(64) NOT NULL,
+    claim_token CHAR(36) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_status INT,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    INDEX idx_idempotency_keys_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 9b. Payment Webhook Events Table (gateway events already applied, so redeliveries are ignored)
+CREATE TABLE payment_webhook_events (
+    event_id VARCHAR(100) PRIMARY KEY,
+    tran_id VARCHAR(100) NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    received_at TIMESTAMP NOT NULL,
+    INDEX idx_payment_webhook_events_tran_id (tran_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 9c. Payment Daily Totals Table (running aggregates per day/status/purpose/currency, kept by PaymentService)
+CREATE TABLE payment_daily_totals (
+    bucket_date DATE NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    purpose VARCHAR(100) NOT NULL,
+    currency VARCHAR(10) NOT NULL,
+    shard INT NOT NULL,
+    payment_count BIGINT NOT NULL,
+    total_amount DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY (bucket_date, status, purpose, currency, shard)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- 9d. Pet Demand Table (decayed view/application scores as of scored_at, flushed by PetDemandTracker)
+CREATE TABLE pet_demand (
+    pet_id BIGINT PRIMARY KEY,
+    view_score DOUBLE NOT NULL,
+    application_score DOUBLE NOT NULL,
+    scored_at DATETIME(6) NOT NULL,
+    INDEX idx_pet_demand_scored_at (scored_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- 10. Babysitting Table
 CREATE TABLE babysitting (
     b_id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -233,6 +315,17 @@ INSERT INTO accessories (name, type, price, quantity, description, brand) VALUES
 ('Cat Scratching Post', 'Toy', 29.99, 50, 'Durable scratching post for cats', 'FelineFun'),
 ('Pet Carrier', 'Accessory', 39.99, 30, 'Comfortable travel carrier', 'PetGo');
 
+-- Id generator tables for the pooled-lo ids on high-volume tables (one row each: the next id block)
+CREATE TABLE pets_seq (next_val BIGINT) ENGINE=InnoDB;
+CREATE TABLE adoption_applications_seq (next_val BIGINT) ENGINE=InnoDB;
+CREATE TABLE notifications_seq (next_val BIGINT) ENGINE=InnoDB;
+CREATE TABLE payments_seq (next_val BIGINT) ENGINE=InnoDB;
+
+INSERT INTO pets_seq SELECT COALESCE(MAX(p_id), 0) + 1 FROM pets;
+INSERT INTO adoption_applications_seq SELECT COALESCE(MAX(a_id), 0) + 1 FROM adoption_applications;
+INSERT INTO notifications_seq SELECT COALESCE(MAX(n_id), 0) + 1 FROM notifications;
+INSERT INTO payments_seq SELECT COALESCE(MAX(pay_id), 0) + 1 FROM payments;
+
 COMMIT;
 
 -- End of script
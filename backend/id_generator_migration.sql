@@ -0,0 +1,27 @@
+-- PawHaven id generator migration
+-- Pets, adoption applications, notifications and payments now take their ids from pooled-lo generators
+-- (allocation size 50) instead of AUTO_INCREMENT, so Hibernate can batch their inserts. MySQL has no
+-- sequences, so each generator is a one-row table holding the start of the next id block.
+--
+-- The application creates and aligns these tables on startup (IdGeneratorAligner). Run this script by hand
+-- only when schema updates are disabled, e.g. spring.jpa.hibernate.ddl-auto=validate or none.
+-- Existing ids are kept; each generator simply starts after the current maximum.
+
+USE pawhaven;
+
+CREATE TABLE IF NOT EXISTS pets_seq (next_val BIGINT) ENGINE=InnoDB;
+CREATE TABLE IF NOT EXISTS adoption_applications_seq (next_val BIGINT) ENGINE=InnoDB;
+CREATE TABLE IF NOT EXISTS notifications_seq (next_val BIGINT) ENGINE=InnoDB;
+CREATE TABLE IF NOT EXISTS payments_seq (next_val BIGINT) ENGINE=InnoDB;
+
+DELETE FROM pets_seq;
+DELETE FROM adoption_applications_seq;
+DELETE FROM notifications_seq;
+DELETE FROM payments_seq;
+
+INSERT INTO pets_seq SELECT COALESCE(MAX(p_id), 0) + 1 FROM pets;
+INSERT INTO adoption_applications_seq SELECT COALESCE(MAX(a_id), 0) + 1 FROM adoption_applications;
+INSERT INTO notifications_seq SELECT COALESCE(MAX(n_id), 0) + 1 FROM notifications;
+INSERT INTO payments_seq SELECT COALESCE(MAX(pay_id), 0) + 1 FROM payments;
+
+COMMIT;
@@ -0,0 +1,14 @@
+-- PawHaven optimistic locking migration
+-- Pets, adoption applications, accessories and payments carry a version column that Hibernate checks and
+-- bumps on every update. The API returns it as the ETag and accepts it back in If-Match.
+--
+-- spring.jpa.hibernate.ddl-auto=update adds these columns on startup. Run this script by hand only when
+-- schema updates are disabled, e.g. spring.jpa.hibernate.ddl-auto=validate or none.
+-- Existing rows start at version 0.
+
+USE pawhaven;
+
+ALTER TABLE pets ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE adoption_applications ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE accessories ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE payments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,72 @@
+package com.pawhaven.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Moves every pooled id generator past the highest id already stored in its table, so rows created while the
+// table still used AUTO_INCREMENT can never collide with generated ids. Runs once at startup, before the web
+// server accepts requests; it only ever moves a generator forward.
+@Component
+public class IdGeneratorAligner {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorAligner.class);
+
+    // Value column Hibernate uses when emulating a sequence with a table
+    private static final String TABLE_VALUE_COLUMN = "next_val";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignAll() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.getGenerator() instanceof SequenceStyleGenerator generator
+                    && persister instanceof AbstractEntityPersister entityPersister) {
+                align(dialect, generator.getDatabaseStructure(),
+                        entityPersister.getTableName(), entityPersister.getIdentifierColumnNames()[0]);
+            }
+        });
+    }
+
+    private void align(Dialect dialect, DatabaseStructure structure, String table, String idColumn) {
+        String generatorName = structure.getPhysicalName().render();
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + idColumn + ") FROM " + table, Long.class);
+        long required = (maxId == null ? 0 : maxId) + 1;
+
+        if (structure.isPhysicalSequence()) {
+            Long next = jdbcTemplate.queryForObject(
+                    dialect.getSequenceSupport().getSequenceNextValString(generatorName), Long.class);
+            if (next != null && next < required) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + generatorName + " RESTART WITH " + required);
+                log.info("Restarted sequence {} at {} to clear existing ids in {}", generatorName, required, table);
+            }
+            return;
+        }
+
+        int moved = jdbcTemplate.update("UPDATE " + generatorName + " SET " + TABLE_VALUE_COLUMN + " = ? WHERE "
+                + TABLE_VALUE_COLUMN + " < ?", required, required);
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + generatorName, Integer.class);
+        if (rows == null || rows == 0) {
+            jdbcTemplate.update("INSERT INTO " + generatorName + " (" + TABLE_VALUE_COLUMN + ") VALUES (?)", required);
+            moved = 1;
+        }
+        if (moved > 0) {
+            log.info("Moved id generator {} to {} to clear existing ids in {}", generatorName, required, table);
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.pawhaven.backend.controller;
 
+import com.pawhaven.backend.dto.CheckoutRequest;
+import com.pawhaven.backend.dto.CheckoutResponse;
+import com.pawhaven.backend.exception.InsufficientStockException;
+import com.pawhaven.backend.exception.ResourceNotFoundException;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.Accessory;
 import com.pawhaven.backend.service.AccessoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -47,7 +55,7 @@ public class AccessoryController {
     @GetMapping("/{id}")
     public ResponseEntity<Accessory> getAccessoryById(@PathVariable Long id) {
         return accessoryService.getAccessoryById(id)
-                .map(ResponseEntity::ok)
+                .map(accessory -> VersionTags.ok(accessory, accessory.getVersion()))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -92,10 +100,17 @@ public class AccessoryController {
     
     // Update accessory
     @PutMapping("/{id}")
-    public ResponseEntity<Accessory> updateAccessory(@PathVariable Long id, @RequestBody Accessory accessory) {
+    public ResponseEntity<?> updateAccessory(@PathVariable Long id, @RequestBody Accessory accessory,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Accessory updatedAccessory = accessoryService.updateAccessory(id, accessory);
-            return ResponseEntity.ok(updatedAccessory);
+            Accessory updatedAccessory = accessoryService.updateAccessory(id, accessory, VersionTags.expectedVersion(ifMatch));
+            return VersionTags.ok(updatedAccessory, updatedAccessory.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return currentVersionConflict(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -103,16 +118,29 @@ public class AccessoryController {
     
     // Update stock quantity
     @PutMapping("/{id}/stock")
-    public ResponseEntity<Accessory> updateStockQuantity(@PathVariable Long id, @RequestBody Map<String, Integer> stock) {
+    public ResponseEntity<?> updateStockQuantity(@PathVariable Long id, @RequestBody Map<String, Integer> stock,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
             Integer quantity = stock.get("quantity");
-            Accessory accessory = accessoryService.updateStockQuantity(id, quantity);
-            return ResponseEntity.ok(accessory);
+            Accessory accessory = accessoryService.updateStockQuantity(id, quantity, VersionTags.expectedVersion(ifMatch));
+            return VersionTags.ok(accessory, accessory.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return currentVersionConflict(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    // 409 for an update that lost a race at commit, carrying the version that won
+    private ResponseEntity<Map<String, Object>> currentVersionConflict(Long id) {
+        return VersionTags.conflict("Accessory", id,
+                accessoryService.getAccessoryById(id).map(Accessory::getVersion).orElse(null));
+    }
+    
     // Decrease stock
     @PutMapping("/{id}/stock/decrease")
     public ResponseEntity<Accessory> decreaseStock(@PathVariable Long id, @RequestBody Map<String, Integer> stock) {
@@ -125,6 +153,29 @@ public class AccessoryController {
         }
     }
     
+    // Check out a whole cart: take stock for every item and create the payment in one transaction
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@RequestBody CheckoutRequest request) {
+        try {
+            CheckoutResponse response = accessoryService.checkout(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", e.getMessage(),
+                    "accessoryId", e.getAccessoryId(),
+                    "requested", e.getRequested(),
+                    "available", e.getAvailable()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (PessimisticLockingFailureException e) {
+            // Lock wait timeout or deadlock with another cart; nothing was taken, so the client can retry
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "error", "Checkout conflicted with another purchase, try again"));
+        }
+    }
+    
     // Increase stock
     @PutMapping("/{id}/stock/increase")
     public ResponseEntity<Accessory> increaseStock(@PathVariable Long id, @RequestBody Map<String, Integer> stock) {
@@ -0,0 +1,28 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.service.AdminSummaryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "http://localhost:5173")
+public class AdminController {
+
+    @Autowired
+    private AdminSummaryService adminSummaryService;
+
+    // Get every dashboard count and total in one response, cached for a few seconds
+    @GetMapping("/summary")
+    public ResponseEntity<?> getSummary() {
+        try {
+            return ResponseEntity.ok(adminSummaryService.getSummary());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
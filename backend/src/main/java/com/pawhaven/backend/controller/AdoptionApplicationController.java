@@ -1,17 +1,26 @@
 package com.pawhaven.backend.controller;
 
+import com.pawhaven.backend.dto.AdoptionApplicationSummary;
+import com.pawhaven.backend.dto.ReviewQueueStats;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.AdoptionApplication;
 import com.pawhaven.backend.model.ApplicationStatus;
 import com.pawhaven.backend.service.AdoptionApplicationService;
+import com.pawhaven.backend.service.AdoptionReviewQueueService;
 import com.pawhaven.backend.service.PetService;
 import com.pawhaven.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/adoption-applications")
@@ -27,6 +36,9 @@ public class AdoptionApplicationController {
     @Autowired
     private PetService petService;
     
+    @Autowired
+    private AdoptionReviewQueueService reviewQueueService;
+    
     // Get all applications
     @GetMapping
     public ResponseEntity<List<AdoptionApplication>> getAllApplications() {
@@ -39,11 +51,32 @@ public class AdoptionApplicationController {
         return ResponseEntity.ok(adoptionApplicationService.getRecentApplications());
     }
     
+    // Summary views: only the columns the list screens need
+    @GetMapping("/summary")
+    public ResponseEntity<List<AdoptionApplicationSummary>> getAllApplicationSummaries() {
+        return ResponseEntity.ok(adoptionApplicationService.getAllApplicationSummaries());
+    }
+    
+    @GetMapping("/summary/status/{status}")
+    public ResponseEntity<List<AdoptionApplicationSummary>> getApplicationSummariesByStatus(@PathVariable ApplicationStatus status) {
+        return ResponseEntity.ok(adoptionApplicationService.getApplicationSummariesByStatus(status));
+    }
+    
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<List<AdoptionApplicationSummary>> getApplicationSummariesByUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(adoptionApplicationService.getApplicationSummariesByUser(userId));
+    }
+    
+    @GetMapping("/pet/{petId}/summary")
+    public ResponseEntity<List<AdoptionApplicationSummary>> getApplicationSummariesByPet(@PathVariable Long petId) {
+        return ResponseEntity.ok(adoptionApplicationService.getApplicationSummariesByPet(petId));
+    }
+    
     // Get application by ID
     @GetMapping("/{id}")
     public ResponseEntity<AdoptionApplication> getApplicationById(@PathVariable Long id) {
         return adoptionApplicationService.getApplicationById(id)
-                .map(ResponseEntity::ok)
+                .map(application -> VersionTags.ok(application, application.getVersion()))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -94,6 +127,73 @@ public class AdoptionApplicationController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Claim the next applications to review; they stay UNDER_REVIEW for this reviewer until decided, released or
+    // the lease runs out
+    @PostMapping("/review-queue/claim")
+    public ResponseEntity<?> claimForReview(@RequestParam Long reviewerId, @RequestParam(defaultValue = "5") int count) {
+        try {
+            return ResponseEntity.ok(reviewQueueService.claim(reviewerId, count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Applications a reviewer currently holds
+    @GetMapping("/review-queue/reviewer/{reviewerId}")
+    public ResponseEntity<List<AdoptionApplication>> getReviewClaims(@PathVariable Long reviewerId) {
+        return ResponseEntity.ok(reviewQueueService.getClaims(reviewerId));
+    }
+    
+    // Queue depth, applications in review and the longest wait
+    @GetMapping("/review-queue/stats")
+    public ResponseEntity<ReviewQueueStats> getReviewQueueStats() {
+        return ResponseEntity.ok(reviewQueueService.getStats());
+    }
+    
+    // Extend the reviewer's lease on a claimed application
+    @PutMapping("/review-queue/{id}/renew")
+    public ResponseEntity<?> renewReviewLease(@PathVariable Long id, @RequestParam Long reviewerId) {
+        return reviewQueueAction(id, () -> reviewQueueService.renew(id, reviewerId));
+    }
+    
+    // Give a claimed application back to the queue undecided
+    @PutMapping("/review-queue/{id}/release")
+    public ResponseEntity<?> releaseReviewClaim(@PathVariable Long id, @RequestParam Long reviewerId) {
+        return reviewQueueAction(id, () -> reviewQueueService.release(id, reviewerId));
+    }
+    
+    // Approve or reject a claimed application; honours If-Match like the status endpoint
+    @PutMapping("/review-queue/{id}/decision")
+    public ResponseEntity<?> decideReview(
+            @PathVariable Long id,
+            @RequestParam Long reviewerId,
+            @RequestBody Map<String, String> decision,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (decision.get("status") == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "status is required"));
+        }
+        return reviewQueueAction(id, () -> reviewQueueService.decide(id, reviewerId,
+                ApplicationStatus.valueOf(decision.get("status")), decision.get("adminNotes"),
+                VersionTags.expectedVersion(ifMatch)));
+    }
+    
+    private ResponseEntity<?> reviewQueueAction(Long id, Supplier<AdoptionApplication> action) {
+        try {
+            AdoptionApplication application = action.get();
+            return VersionTags.ok(application, application.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return currentVersionConflict(id);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     // Create application
     @PostMapping
     public ResponseEntity<?> createApplication(@RequestBody Map<String, Object> applicationData) {
@@ -136,18 +236,8 @@ public class AdoptionApplicationController {
                 return ResponseEntity.badRequest().body(Map.of("error", "User ID or Pet ID is missing"));
             }
             
-            // Fetch full User and Pet objects
-            var user = userService.getUserById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-            var pet = petService.getPetById(petId)
-                    .orElseThrow(() -> new RuntimeException("Pet not found with ID: " + petId));
-            
-            System.out.println("Found user: " + user.getName() + ", pet: " + pet.getName());
-            
-            // Create new application
+            // Create new application; user and pet are bound by id, so this is one INSERT
             AdoptionApplication application = new AdoptionApplication();
-            application.setUser(user);
-            application.setPet(pet);
             application.setApplicationReason((String) applicationData.get("applicationReason"));
             application.setLivingSituation((String) applicationData.get("livingSituation"));
             application.setHasOtherPets((Boolean) applicationData.get("hasOtherPets"));
@@ -159,10 +249,25 @@ public class AdoptionApplicationController {
             application.setStatus(status);
             
             System.out.println("Saving application...");
-            AdoptionApplication savedApplication = adoptionApplicationService.saveApplication(application);
+            AdoptionApplication savedApplication = adoptionApplicationService.submitApplication(userId, petId, application);
             System.out.println("Application saved successfully with ID: " + savedApplication.getId());
             
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedApplication);
+            // The new row's own columns only: user and pet are unloaded references, and serializing them would
+            // bring back the reads this endpoint no longer makes
+            return ResponseEntity.created(URI.create("/api/adoption-applications/" + savedApplication.getId()))
+                    .eTag(String.valueOf(savedApplication.getVersion()))
+                    .body(Map.of(
+                            "id", savedApplication.getId(),
+                            "userId", userId,
+                            "petId", petId,
+                            "status", savedApplication.getStatus(),
+                            "submissionDate", savedApplication.getSubmissionDate(),
+                            "version", savedApplication.getVersion()));
+        } catch (IllegalStateException e) {
+            // One open application per user and pet, enforced by a unique key
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "User or pet does not exist"));
         } catch (Exception e) {
             System.err.println("Error creating application: " + e.getMessage());
             e.printStackTrace();
@@ -173,12 +278,20 @@ public class AdoptionApplicationController {
     
     // Update application
     @PutMapping("/{id}")
-    public ResponseEntity<AdoptionApplication> updateApplication(
+    public ResponseEntity<?> updateApplication(
             @PathVariable Long id,
-            @RequestBody AdoptionApplication application) {
+            @RequestBody AdoptionApplication application,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            AdoptionApplication updatedApplication = adoptionApplicationService.updateApplication(id, application);
-            return ResponseEntity.ok(updatedApplication);
+            AdoptionApplication updatedApplication = adoptionApplicationService.updateApplication(id, application,
+                    VersionTags.expectedVersion(ifMatch));
+            return VersionTags.ok(updatedApplication, updatedApplication.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return currentVersionConflict(id);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -186,19 +299,41 @@ public class AdoptionApplicationController {
     
     // Update application status
     @PutMapping("/{id}/status")
-    public ResponseEntity<AdoptionApplication> updateApplicationStatus(
+    public ResponseEntity<?> updateApplicationStatus(
             @PathVariable Long id,
-            @RequestBody Map<String, String> statusUpdate) {
+            @RequestBody Map<String, String> statusUpdate,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
+            Long expectedVersion = VersionTags.expectedVersion(ifMatch);
             ApplicationStatus status = ApplicationStatus.valueOf(statusUpdate.get("status"));
             String adminNotes = statusUpdate.get("adminNotes");
-            AdoptionApplication updatedApplication = adoptionApplicationService.updateApplicationStatus(id, status, adminNotes);
-            return ResponseEntity.ok(updatedApplication);
+            AdoptionApplication updatedApplication = adoptionApplicationService.updateApplicationStatus(id, status, adminNotes,
+                    expectedVersion);
+            return VersionTags.ok(updatedApplication, updatedApplication.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return currentVersionConflict(id);
+        } catch (IllegalStateException e) {
+            // Approving a pet that another approval has already taken
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (DataIntegrityViolationException e) {
+            // Reopening an application while the same user has another one open for the pet
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "The applicant already has an open application for this pet"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
+    // 409 for an update that lost a race at commit, carrying the version that won
+    private ResponseEntity<Map<String, Object>> currentVersionConflict(Long id) {
+        return VersionTags.conflict("AdoptionApplication", id, adoptionApplicationService.getApplicationById(id)
+                .map(AdoptionApplication::getVersion).orElse(null));
+    }
+    
     // Delete application
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteApplication(@PathVariable Long id) {
@@ -0,0 +1,36 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.dto.CacheStats;
+import com.pawhaven.backend.service.CacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "http://localhost:5173")
+public class CacheController {
+
+    @Autowired
+    private CacheService cacheService;
+
+    // Get second-level and query cache statistics
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStats> getStatistics() {
+        return ResponseEntity.ok(cacheService.getStatistics());
+    }
+
+    // Reset cache statistics counters
+    @DeleteMapping("/stats")
+    public ResponseEntity<Void> resetStatistics() {
+        cacheService.resetStatistics();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Evict all cached entities and query results
+    @DeleteMapping
+    public ResponseEntity<Void> evictAll() {
+        cacheService.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,14 +1,24 @@
 package com.pawhaven.backend.controller;
 
+import com.pawhaven.backend.dto.BroadcastJobStatus;
+import com.pawhaven.backend.dto.NotificationBroadcastRequest;
+import com.pawhaven.backend.dto.NotificationSummary;
 import com.pawhaven.backend.model.Notification;
+import com.pawhaven.backend.service.NotificationBroadcastService;
+import com.pawhaven.backend.service.NotificationRetentionService;
 import com.pawhaven.backend.service.NotificationService;
 import com.pawhaven.backend.service.UserService;
+import com.pawhaven.backend.stream.NotificationStreamRegistry;
+import com.pawhaven.backend.stream.StreamCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -21,6 +31,15 @@ public class NotificationController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+    
+    @Autowired
+    private NotificationBroadcastService broadcastService;
+    
+    @Autowired
+    private NotificationRetentionService retentionService;
+    
     // Get all notifications
     @GetMapping
     public ResponseEntity<List<Notification>> getAllNotifications() {
@@ -43,6 +62,39 @@ public class NotificationController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Summary views for notification lists
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<List<NotificationSummary>> getNotificationSummariesByUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(notificationService.getNotificationSummariesByUser(userId));
+    }
+    
+    @GetMapping("/user/{userId}/unread/summary")
+    public ResponseEntity<List<NotificationSummary>> getUnreadNotificationSummariesByUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(notificationService.getUnreadNotificationSummariesByUser(userId));
+    }
+    
+    // Server-sent event stream of new notifications for a user; reconnecting clients resume from Last-Event-ID
+    @GetMapping(path = "/user/{userId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(
+            @PathVariable Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String position = lastEventIdHeader != null && !lastEventIdHeader.isBlank() ? lastEventIdHeader : lastEventIdParam;
+        StreamCursor lastEventId = null;
+        if (position != null && !position.isBlank()) {
+            try {
+                lastEventId = StreamCursor.parse(position);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        try {
+            return ResponseEntity.ok(streamRegistry.subscribe(userId, lastEventId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
     // Get unread notifications by user
     @GetMapping("/user/{userId}/unread")
     public ResponseEntity<List<Notification>> getUnreadNotificationsByUser(@PathVariable Long userId) {
@@ -83,12 +135,10 @@ public class NotificationController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
-    // Count unread notifications by user
+    // Count unread notifications by user (answered from memory; unknown users count as 0)
     @GetMapping("/user/{userId}/unread/count")
     public ResponseEntity<Long> countUnreadNotificationsByUser(@PathVariable Long userId) {
-        return userService.getUserById(userId)
-                .map(user -> ResponseEntity.ok(notificationService.countUnreadNotificationsByUser(user)))
-                .orElse(ResponseEntity.notFound().build());
+        return ResponseEntity.ok(notificationService.countUnreadNotificationsByUserId(userId));
     }
     
     // Create notification
@@ -98,6 +148,35 @@ public class NotificationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedNotification);
     }
     
+    // Queue a broadcast to every user matching the target; returns 202 with the job id immediately
+    @PostMapping("/broadcast")
+    public ResponseEntity<?> broadcast(@RequestBody NotificationBroadcastRequest request) {
+        try {
+            String jobId = broadcastService.submit(request);
+            return ResponseEntity.accepted()
+                    .header("Location", "/api/notifications/broadcast/" + jobId)
+                    .body(Map.of("jobId", jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Get broadcast jobs, most recent first
+    @GetMapping("/broadcast")
+    public ResponseEntity<List<BroadcastJobStatus>> getBroadcastJobs() {
+        return ResponseEntity.ok(broadcastService.getJobs());
+    }
+    
+    // Get progress of a broadcast job
+    @GetMapping("/broadcast/{jobId}")
+    public ResponseEntity<BroadcastJobStatus> getBroadcastJob(@PathVariable String jobId) {
+        return broadcastService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     // Mark notification as read
     @PutMapping("/{id}/read")
     public ResponseEntity<Notification> markAsRead(@PathVariable Long id) {
@@ -131,6 +210,27 @@ public class NotificationController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Mark a list of notifications as read in one call
+    @PutMapping("/read")
+    public ResponseEntity<Map<String, Integer>> markAsRead(@RequestBody Map<String, List<Long>> request) {
+        List<Long> ids = request.get("ids");
+        if (ids == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(Map.of("updated", notificationService.markAsRead(ids)));
+    }
+    
+    // Mark a list of a user's notifications as read in one call
+    @PutMapping("/user/{userId}/read")
+    public ResponseEntity<Map<String, Integer>> markAsReadForUser(@PathVariable Long userId,
+                                                                  @RequestBody Map<String, List<Long>> request) {
+        List<Long> ids = request.get("ids");
+        if (ids == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(Map.of("updated", notificationService.markAsReadForUser(userId, ids)));
+    }
+    
     // Delete notification
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteNotification(@PathVariable Long id) {
@@ -148,4 +248,25 @@ public class NotificationController {
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+    
+    // Get archived notifications for user, newest first
+    @GetMapping("/archive/user/{userId}")
+    public ResponseEntity<Map<String, Object>> getArchivedByUser(@PathVariable Long userId,
+                                                                 @RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "20") int size) {
+        List<NotificationSummary> items = retentionService.getArchivedSummariesByUser(userId, page, size);
+        return ResponseEntity.ok(Map.of(
+                "items", items,
+                "page", Math.max(page, 0),
+                "total", retentionService.countArchivedByUser(userId)));
+    }
+    
+    // Run the retention job now instead of waiting for its schedule
+    @PostMapping("/archive/run")
+    public ResponseEntity<?> runRetention() {
+        return retentionService.runOnce()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "Notification retention is already running")));
+    }
 }
@@ -1,14 +1,43 @@
 package com.pawhaven.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.dto.PaymentSummary;
+import com.pawhaven.backend.dto.PaymentWebhookRequest;
+import com.pawhaven.backend.dto.ReconciliationJobStatus;
+import com.pawhaven.backend.dto.RevenueBucket;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.Payment;
 import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.service.IdempotencyService;
+import com.pawhaven.backend.service.PaymentExportService;
+import com.pawhaven.backend.service.PaymentReconciliationService;
 import com.pawhaven.backend.service.PaymentService;
+import com.pawhaven.backend.service.PaymentTotalsService;
+import com.pawhaven.backend.service.PaymentWebhookService;
 import com.pawhaven.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +52,32 @@ public class PaymentController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private PaymentWebhookService webhookService;
+    
+    @Autowired
+    private PaymentTotalsService totalsService;
+    
+    @Autowired
+    private PaymentExportService exportService;
+    
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Shared secret the gateway sends in X-Webhook-Secret; blank disables the check (local development)
+    @Value("${pawhaven.payments.webhook.secret:}")
+    private String webhookSecret;
+    
+    // Largest settlement file accepted as a streamed request body
+    @Value("${pawhaven.payments.reconciliation.max-upload-bytes:2147483648}")
+    private long maxSettlementBytes;
+    
     // Get all payments
     @GetMapping
     public ResponseEntity<List<Payment>> getAllPayments() {
@@ -35,11 +90,27 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getRecentPayments());
     }
     
+    // Summary views for payment lists
+    @GetMapping("/summary")
+    public ResponseEntity<List<PaymentSummary>> getAllPaymentSummaries() {
+        return ResponseEntity.ok(paymentService.getAllPaymentSummaries());
+    }
+    
+    @GetMapping("/summary/status/{status}")
+    public ResponseEntity<List<PaymentSummary>> getPaymentSummariesByStatus(@PathVariable PaymentStatus status) {
+        return ResponseEntity.ok(paymentService.getPaymentSummariesByStatus(status));
+    }
+    
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<List<PaymentSummary>> getPaymentSummariesByUser(@PathVariable Long userId) {
+        return ResponseEntity.ok(paymentService.getPaymentSummariesByUser(userId));
+    }
+    
     // Get payment by ID
     @GetMapping("/{id}")
     public ResponseEntity<Payment> getPaymentById(@PathVariable Long id) {
         return paymentService.getPaymentById(id)
-                .map(ResponseEntity::ok)
+                .map(payment -> VersionTags.ok(payment, payment.getVersion()))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -95,9 +166,198 @@ public class PaymentController {
         return ResponseEntity.ok(paymentService.getTotalAmountByStatus(status));
     }
     
-    // Create payment
+    // Stream payments as CSV or NDJSON for accounting; memory use does not grow with the number of rows
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) PaymentStatus status) {
+        PaymentExportService.Format exportFormat;
+        MediaType contentType;
+        if ("csv".equalsIgnoreCase(format)) {
+            exportFormat = PaymentExportService.Format.CSV;
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            exportFormat = PaymentExportService.Format.NDJSON;
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else {
+            return streamedError(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return streamedError(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        
+        StreamingResponseBody body;
+        try {
+            body = exportService.stream(exportFormat, from, to, status);
+        } catch (IllegalStateException e) {
+            return streamedError(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+        String filename = "payments" + (from != null ? "-from-" + from : "") + (to != null ? "-to-" + to : "")
+                + (status != null ? "-" + status.name().toLowerCase() : "") + "." + format.toLowerCase();
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+    
+    // Error body for endpoints whose declared response type is a stream
+    private ResponseEntity<StreamingResponseBody> streamedError(HttpStatus status, String message) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, Map.of("error", message)));
+    }
+    
+    // Revenue time series from the maintained daily aggregates; granularity is day, week or month
+    @GetMapping("/revenue")
+    public ResponseEntity<?> getRevenueSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "COMPLETED") PaymentStatus status,
+            @RequestParam(required = false) String purpose,
+            @RequestParam(required = false) String currency) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        try {
+            List<RevenueBucket> series = totalsService.series(status, start, end, granularity, purpose, currency);
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Revenue between two dates broken down by purpose, currency or status
+    @GetMapping("/revenue/breakdown")
+    public ResponseEntity<?> getRevenueBreakdown(
+            @RequestParam(defaultValue = "purpose") String by,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "COMPLETED") PaymentStatus status) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        try {
+            return ResponseEntity.ok(totalsService.breakdown(by, status, start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    // Recompute the revenue aggregates from the payments table
+    @PostMapping("/totals/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildTotals() {
+        return ResponseEntity.ok(Map.of("buckets", totalsService.rebuild()));
+    }
+    
+    // Reconcile payments against a gateway settlement CSV; a dry run unless applyFixes is set. Multipart uploads
+    // are held to the global upload limit; larger files are sent as a text/csv body instead
+    @PostMapping(path = "/reconciliation", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startReconciliation(@RequestParam("file") MultipartFile file,
+                                                 @RequestParam(defaultValue = "false") boolean applyFixes) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Settlement file is empty"));
+        }
+        Path settlementFile = null;
+        try {
+            settlementFile = Files.createTempFile("settlement-", ".csv");
+            file.transferTo(settlementFile);
+            String jobId = reconciliationService.submit(settlementFile, file.getOriginalFilename(), applyFixes);
+            return ResponseEntity.accepted().body(Map.of("jobId", jobId));
+        } catch (IOException e) {
+            if (settlementFile != null) {
+                settlementFile.toFile().delete();
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not store settlement file: " + e.getMessage()));
+        }
+    }
+    
+    // Same as above with the CSV as the raw request body, copied straight to a temp file without being buffered
+    @PostMapping(path = "/reconciliation", consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> startReconciliationFromBody(InputStream body,
+                                                         @RequestParam(required = false) String filename,
+                                                         @RequestParam(defaultValue = "false") boolean applyFixes) {
+        Path settlementFile = null;
+        boolean submitted = false;
+        try {
+            settlementFile = Files.createTempFile("settlement-", ".csv");
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(settlementFile)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSettlementBytes) {
+                        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                                .body(Map.of("error", "Settlement file is larger than " + maxSettlementBytes + " bytes"));
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (size == 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Settlement file is empty"));
+            }
+            String jobId = reconciliationService.submit(settlementFile, filename, applyFixes);
+            submitted = true;
+            return ResponseEntity.accepted().body(Map.of("jobId", jobId));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Could not store settlement file: " + e.getMessage()));
+        } finally {
+            if (!submitted && settlementFile != null) {
+                settlementFile.toFile().delete();
+            }
+        }
+    }
+    
+    // Recent reconciliation jobs, newest first
+    @GetMapping("/reconciliation")
+    public ResponseEntity<List<ReconciliationJobStatus>> getReconciliationJobs() {
+        return ResponseEntity.ok(reconciliationService.getJobs());
+    }
+    
+    // Progress and discrepancy counts of one reconciliation job
+    @GetMapping("/reconciliation/{jobId}")
+    public ResponseEntity<ReconciliationJobStatus> getReconciliationJob(@PathVariable String jobId) {
+        return reconciliationService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Download the discrepancy report of a finished reconciliation job
+    @GetMapping("/reconciliation/{jobId}/report")
+    public ResponseEntity<Resource> getReconciliationReport(@PathVariable String jobId) {
+        return reconciliationService.getReport(jobId)
+                .<ResponseEntity<Resource>>map(report -> ResponseEntity.ok()
+                        .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                        .header(HttpHeaders.CONTENT_DISPOSITION,
+                                "attachment; filename=\"reconciliation-" + jobId + ".csv\"")
+                        .body(new FileSystemResource(report)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // Payments still PENDING after the given number of minutes, oldest first; page with afterId
+    @GetMapping("/stuck")
+    public ResponseEntity<List<PaymentSummary>> getStuckPayments(
+            @RequestParam(defaultValue = "60") long olderThanMinutes,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(olderThanMinutes);
+        return ResponseEntity.ok(paymentService.getStuckPendingPayments(cutoff, afterId, Math.min(Math.max(limit, 1), 1000)));
+    }
+    
+    // Create payment; with an Idempotency-Key header, retries replay the first response instead of creating a duplicate
     @PostMapping
-    public ResponseEntity<?> createPayment(@RequestBody Map<String, Object> paymentData) {
+    public ResponseEntity<?> createPayment(@RequestBody Map<String, Object> paymentData,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doCreatePayment(paymentData);
+        }
+        return idempotencyService.execute("payments:create", idempotencyKey, paymentData,
+                () -> doCreatePayment(paymentData));
+    }
+    
+    private ResponseEntity<?> doCreatePayment(Map<String, Object> paymentData) {
         try {
             System.out.println("Received payment data: " + paymentData);
 
@@ -148,6 +408,9 @@ public class PaymentController {
             System.out.println("Payment saved successfully with ID: " + savedPayment.getId());
 
             return ResponseEntity.status(HttpStatus.CREATED).body(savedPayment);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "A payment with this transaction ID already exists"));
         } catch (Exception e) {
             System.err.println("Error creating payment: " + e.getMessage());
             e.printStackTrace();
@@ -156,19 +419,46 @@ public class PaymentController {
         }
     }
     
-    // Process payment
+    // Process payment; honours an Idempotency-Key header the same way as create
     @PostMapping("/process")
-    public ResponseEntity<Payment> processPayment(@RequestBody Payment payment) {
-        Payment processedPayment = paymentService.processPayment(payment);
-        return ResponseEntity.status(HttpStatus.CREATED).body(processedPayment);
+    public ResponseEntity<?> processPayment(@RequestBody Payment payment,
+                                            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(paymentService.processPayment(payment));
+        }
+        return idempotencyService.execute("payments:process", idempotencyKey, payment,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body(paymentService.processPayment(payment)));
+    }
+    
+    // Gateway webhook; safe to receive the same event more than once
+    @PostMapping("/webhook")
+    public ResponseEntity<?> receiveWebhook(@RequestBody PaymentWebhookRequest webhook,
+                                            @RequestHeader(value = "X-Webhook-Secret", required = false) String secret) {
+        if (!webhookSecret.isEmpty() && (secret == null || !MessageDigest.isEqual(
+                webhookSecret.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8)))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid webhook secret"));
+        }
+        try {
+            PaymentWebhookService.Result result = webhookService.handle(webhook);
+            return ResponseEntity.ok(Map.of("eventId", webhook.eventId(), "result", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
     }
     
     // Update payment
     @PutMapping("/{id}")
-    public ResponseEntity<Payment> updatePayment(@PathVariable Long id, @RequestBody Payment payment) {
+    public ResponseEntity<?> updatePayment(@PathVariable Long id, @RequestBody Payment payment,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Payment updatedPayment = paymentService.updatePayment(id, payment);
-            return ResponseEntity.ok(updatedPayment);
+            Payment updatedPayment = paymentService.updatePayment(id, payment, VersionTags.expectedVersion(ifMatch));
+            return VersionTags.ok(updatedPayment, updatedPayment.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -176,11 +466,17 @@ public class PaymentController {
     
     // Update payment status
     @PutMapping("/{id}/status")
-    public ResponseEntity<Payment> updatePaymentStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate) {
+    public ResponseEntity<?> updatePaymentStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
+            Long expectedVersion = VersionTags.expectedVersion(ifMatch);
             PaymentStatus status = PaymentStatus.valueOf(statusUpdate.get("status"));
-            Payment updatedPayment = paymentService.updatePaymentStatus(id, status);
-            return ResponseEntity.ok(updatedPayment);
+            Payment updatedPayment = paymentService.updatePaymentStatus(id, status, expectedVersion);
+            return VersionTags.ok(updatedPayment, updatedPayment.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -1,15 +1,26 @@
 package com.pawhaven.backend.controller;
 
+import com.pawhaven.backend.dto.CursorPage;
+import com.pawhaven.backend.dto.PetQueryCriteria;
+import com.pawhaven.backend.dto.PetQueryResult;
+import com.pawhaven.backend.dto.PetSummary;
+import com.pawhaven.backend.dto.TrendingPet;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.Pet;
 import com.pawhaven.backend.model.Shelter;
+import com.pawhaven.backend.service.PetDemandTracker;
+import com.pawhaven.backend.service.PetQueryService;
 import com.pawhaven.backend.service.PetService;
 import com.pawhaven.backend.service.ShelterService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/pets")
@@ -22,6 +33,12 @@ public class PetController {
     @Autowired
     private ShelterService shelterService;
     
+    @Autowired
+    private PetQueryService petQueryService;
+    
+    @Autowired
+    private PetDemandTracker petDemandTracker;
+    
     // Get all pets
     @GetMapping
     public ResponseEntity<List<Pet>> getAllPets() {
@@ -40,11 +57,31 @@ public class PetController {
         return ResponseEntity.ok(petService.getRecentAvailablePets());
     }
     
+    // Pets with the most recent detail views and applications, highest demand first
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingPet>> getTrendingPets(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(petDemandTracker.getTrending(limit));
+    }
+    
+    // Summary views for catalog cards
+    @GetMapping("/summary")
+    public ResponseEntity<List<PetSummary>> getAllPetSummaries() {
+        return ResponseEntity.ok(petService.getAllPetSummaries());
+    }
+    
+    @GetMapping("/available/summary")
+    public ResponseEntity<List<PetSummary>> getAvailablePetSummaries() {
+        return ResponseEntity.ok(petService.getAvailablePetSummaries());
+    }
+    
     // Get pet by ID
     @GetMapping("/{id}")
     public ResponseEntity<Pet> getPetById(@PathVariable Long id) {
         return petService.getPetById(id)
-                .map(ResponseEntity::ok)
+                .map(pet -> {
+                    petDemandTracker.recordView(id);
+                    return VersionTags.ok(pet, pet.getVersion());
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -72,6 +109,23 @@ public class PetController {
         return ResponseEntity.ok(petService.searchPetsByBreed(breed));
     }
     
+    // Ranked full-text search over name, breed, color, description and shelter city
+    @GetMapping("/search")
+    public ResponseEntity<List<Pet>> searchPets(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean availableOnly) {
+        return ResponseEntity.ok(petService.searchPets(q, limit, availableOnly));
+    }
+    
+    // Autocomplete search terms by prefix
+    @GetMapping("/search/suggest")
+    public ResponseEntity<List<String>> suggestSearchTerms(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(petService.suggestSearchTerms(prefix, limit));
+    }
+    
     // Get pets by shelter
     @GetMapping("/shelter/{shelterId}")
     public ResponseEntity<List<Pet>> getPetsByShelter(@PathVariable Long shelterId) {
@@ -100,6 +154,149 @@ public class PetController {
         return ResponseEntity.ok(petService.countAvailablePetsBySpecies(species));
     }
     
+    // Combined filter, sort and paging with species/size/gender facet counts
+    @GetMapping("/query")
+    public ResponseEntity<PetQueryResult> queryPets(
+            @ModelAttribute PetQueryCriteria criteria,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "desc") String direction) {
+        try {
+            return ResponseEntity.ok(petQueryService.query(criteria, page, size, sort, direction));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Keyset-paginated pet listings: pass the returned nextCursor as ?cursor= to fetch the next page
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Pet>> getAllPetsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.getAllPetsPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through available pets
+    @GetMapping("/available/page")
+    public ResponseEntity<CursorPage<Pet>> getAvailablePetsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.getAvailablePetsPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through recent available pets (same newest-first order as /available/page)
+    @GetMapping("/recent/page")
+    public ResponseEntity<CursorPage<Pet>> getRecentAvailablePetsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return getAvailablePetsPage(cursor, size);
+    }
+    
+    // Page through pets by species
+    @GetMapping("/species/{species}/page")
+    public ResponseEntity<CursorPage<Pet>> getPetsBySpeciesPage(
+            @PathVariable String species,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.getPetsBySpeciesPage(species, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through available pets by species
+    @GetMapping("/species/{species}/available/page")
+    public ResponseEntity<CursorPage<Pet>> getAvailablePetsBySpeciesPage(
+            @PathVariable String species,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.getAvailablePetsBySpeciesPage(species, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through name search results
+    @GetMapping("/search/name/page")
+    public ResponseEntity<CursorPage<Pet>> searchPetsByNamePage(
+            @RequestParam String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.searchPetsByNamePage(name, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through breed search results
+    @GetMapping("/search/breed/page")
+    public ResponseEntity<CursorPage<Pet>> searchPetsByBreedPage(
+            @RequestParam String breed,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.searchPetsByBreedPage(breed, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through pets by shelter
+    @GetMapping("/shelter/{shelterId}/page")
+    public ResponseEntity<CursorPage<Pet>> getPetsByShelterPage(
+            @PathVariable Long shelterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return shelterService.getShelterById(shelterId)
+                    .map(shelter -> ResponseEntity.ok(petService.getPetsByShelterPage(shelter, cursor, size)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through available pets by shelter
+    @GetMapping("/shelter/{shelterId}/available/page")
+    public ResponseEntity<CursorPage<Pet>> getAvailablePetsByShelterPage(
+            @PathVariable Long shelterId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return shelterService.getShelterById(shelterId)
+                    .map(shelter -> ResponseEntity.ok(petService.getAvailablePetsByShelterPage(shelter, cursor, size)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    // Page through available pets in an age range
+    @GetMapping("/age/page")
+    public ResponseEntity<CursorPage<Pet>> getPetsByAgeRangePage(
+            @RequestParam Integer minAge,
+            @RequestParam Integer maxAge,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(petService.getPetsByAgeRangePage(minAge, maxAge, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     // Create pet
     @PostMapping
     public ResponseEntity<Pet> createPet(@RequestBody Pet pet) {
@@ -109,10 +306,17 @@ public class PetController {
     
     // Update pet
     @PutMapping("/{id}")
-    public ResponseEntity<Pet> updatePet(@PathVariable Long id, @RequestBody Pet pet) {
+    public ResponseEntity<?> updatePet(@PathVariable Long id, @RequestBody Pet pet,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Pet updatedPet = petService.updatePet(id, pet);
-            return ResponseEntity.ok(updatedPet);
+            Pet updatedPet = petService.updatePet(id, pet, VersionTags.expectedVersion(ifMatch));
+            return VersionTags.ok(updatedPet, updatedPet.getVersion());
+        } catch (VersionConflictException e) {
+            return VersionTags.conflict(e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return VersionTags.conflict("Pet", id, petService.getPetById(id).map(Pet::getVersion).orElse(null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -0,0 +1,55 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.exception.VersionConflictException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+// ETags for optimistically locked entities: the tag is the entity version, sent back in If-Match to make an
+// update conditional. A stale tag gets 409 with the current version so the client can refetch and retry.
+final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    // Version named by an If-Match header; null when there is no precondition ("*" or no header)
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must be an ETag previously returned for this resource");
+        }
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Long version) {
+        return ResponseEntity.ok().eTag(String.valueOf(version)).body(body);
+    }
+
+    static ResponseEntity<Map<String, Object>> conflict(VersionConflictException e) {
+        return conflict(e.getEntity(), e.getEntityId(), e.getCurrentVersion());
+    }
+
+    // Lost a concurrent update (detected at commit); currentVersion is null when the row is gone meanwhile
+    static ResponseEntity<Map<String, Object>> conflict(String entity, Long id, Long currentVersion) {
+        if (currentVersion == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", entity + " not found with id: " + id));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .eTag(String.valueOf(currentVersion))
+                .body(Map.of(
+                        "error", entity + " " + id + " was modified by someone else; reload it and retry",
+                        "currentVersion", currentVersion));
+    }
+}
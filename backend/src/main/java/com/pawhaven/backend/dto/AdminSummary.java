@@ -0,0 +1,24 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.BabysittingStatus;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.ReportStatus;
+import com.pawhaven.backend.model.UserRole;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Admin dashboard figures as of generatedAt; every status and role is present, with zero when nothing matches
+public record AdminSummary(
+        Map<ApplicationStatus, Long> applicationsByStatus,
+        Map<ReportStatus, Long> reportsByStatus,
+        Map<BabysittingStatus, Long> babysittingByStatus,
+        Map<UserRole, Long> usersByRole,
+        Map<PaymentStatus, BigDecimal> paymentTotalsByStatus,
+        long totalShelterCapacity,
+        double averageRating,
+        LocalDateTime generatedAt
+) {
+}
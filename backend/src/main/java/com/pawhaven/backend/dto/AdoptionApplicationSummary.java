@@ -0,0 +1,22 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.ApplicationStatus;
+
+import java.time.LocalDateTime;
+
+// List view of an adoption application: the columns the review screens show, without full user and pet rows
+public record AdoptionApplicationSummary(
+        Long id,
+        ApplicationStatus status,
+        LocalDateTime submissionDate,
+        LocalDateTime reviewedDate,
+        Long userId,
+        String userName,
+        String userEmail,
+        Long petId,
+        String petName,
+        String petSpecies,
+        String petBreed,
+        String petImage
+) {
+}
@@ -0,0 +1,18 @@
+package com.pawhaven.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Progress of one notification broadcast job
+public record BroadcastJobStatus(
+        String jobId,
+        String state,
+        String type,
+        String target,
+        long delivered,
+        LocalDateTime submittedAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        double notificationsPerSecond,
+        String error
+) {
+}
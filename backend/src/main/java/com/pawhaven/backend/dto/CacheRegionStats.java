@@ -0,0 +1,11 @@
+package com.pawhaven.backend.dto;
+
+// Hit/miss counters for one second-level cache region
+public record CacheRegionStats(
+        String region,
+        long hitCount,
+        long missCount,
+        long putCount,
+        double hitRatio
+) {
+}
@@ -0,0 +1,15 @@
+package com.pawhaven.backend.dto;
+
+import java.util.List;
+
+// Second-level and query cache counters since startup or the last reset
+public record CacheStats(
+        long secondLevelHitCount,
+        long secondLevelMissCount,
+        long secondLevelPutCount,
+        long queryHitCount,
+        long queryMissCount,
+        long queryPutCount,
+        List<CacheRegionStats> regions
+) {
+}
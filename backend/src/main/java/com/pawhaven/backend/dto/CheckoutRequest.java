@@ -0,0 +1,15 @@
+package com.pawhaven.backend.dto;
+
+import java.util.List;
+
+// Accessory cart submitted for checkout in one call
+public record CheckoutRequest(
+        Long userId,
+        List<Item> items,
+        String paymentMethod,
+        String currency
+) {
+
+    public record Item(Long accessoryId, Integer quantity) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.PaymentStatus;
+
+import java.util.List;
+
+// Outcome of a cart checkout: the payment that was created and what each line took from stock
+public record CheckoutResponse(
+        Long paymentId,
+        String tranId,
+        PaymentStatus status,
+        Double amount,
+        String currency,
+        List<Line> lines
+) {
+
+    public record Line(Long accessoryId, String name, Integer quantity, Double unitPrice, Double lineTotal,
+                       Integer remainingStock) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.pawhaven.backend.dto;
+
+import java.util.List;
+
+// One slice of a keyset-paginated listing; pass nextCursor back to fetch the following slice
+public record CursorPage<T>(
+        List<T> items,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {
+}
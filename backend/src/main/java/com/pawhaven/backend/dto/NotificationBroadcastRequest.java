@@ -0,0 +1,29 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.UserRole;
+
+import java.util.List;
+
+// A notification to send to every user matched by the target selector
+public record NotificationBroadcastRequest(
+        String type,
+        String message,
+        Target target
+) {
+
+    public enum TargetKind {
+        ACTIVE_USERS,
+        ROLE,
+        PET_APPLICANTS,
+        USERS
+    }
+
+    // Who receives the broadcast: all active users, active users with a role, everyone who applied for a pet, or an
+    // explicit list of (active) user ids
+    public record Target(TargetKind kind, UserRole role, Long petId, List<Long> userIds) {
+
+        public static Target users(List<Long> userIds) {
+            return new Target(TargetKind.USERS, null, null, userIds);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.pawhaven.backend.dto;
+
+import java.time.LocalDateTime;
+
+// List view of a notification, without the owning user
+public record NotificationSummary(
+        Long id,
+        String type,
+        String message,
+        LocalDateTime date,
+        Boolean isRead
+) {
+}
@@ -0,0 +1,13 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.PaymentStatus;
+
+// The fields of a payment that a settlement line is checked against
+public record PaymentSettlementView(
+        Long id,
+        String tranId,
+        PaymentStatus status,
+        Double amount,
+        String currency
+) {
+}
@@ -0,0 +1,20 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.PaymentStatus;
+
+import java.time.LocalDateTime;
+
+// List view of a payment, with the payer's id and name instead of the full user row
+public record PaymentSummary(
+        Long id,
+        Double amount,
+        String purpose,
+        LocalDateTime date,
+        String tranId,
+        PaymentStatus status,
+        String paymentMethod,
+        String currency,
+        Long userId,
+        String userName
+) {
+}
@@ -0,0 +1,13 @@
+package com.pawhaven.backend.dto;
+
+// Gateway callback: eventId is unique per delivery attempt group, so redelivered events carry the same id
+public record PaymentWebhookRequest(
+        String eventId,
+        String tranId,
+        String type,
+        String reason
+) {
+
+    public static final String SUCCEEDED = "payment.succeeded";
+    public static final String FAILED = "payment.failed";
+}
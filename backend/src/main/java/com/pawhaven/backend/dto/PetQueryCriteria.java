@@ -0,0 +1,20 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.Gender;
+
+import java.util.List;
+
+// Combined filters for the /api/pets/query endpoint; every field is optional
+public record PetQueryCriteria(
+        List<String> species,
+        String breed,
+        List<Gender> gender,
+        List<String> petSize,
+        Integer minAge,
+        Integer maxAge,
+        Double minFee,
+        Double maxFee,
+        Long shelterId,
+        Boolean available
+) {
+}
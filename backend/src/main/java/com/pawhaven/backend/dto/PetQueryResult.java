@@ -0,0 +1,17 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.Pet;
+
+import java.util.List;
+import java.util.Map;
+
+// One page of filtered pets plus facet counts (species, size, gender) over the whole filtered set
+public record PetQueryResult(
+        List<Pet> content,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages,
+        Map<String, Map<String, Long>> facets
+) {
+}
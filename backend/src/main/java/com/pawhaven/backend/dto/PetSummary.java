@@ -0,0 +1,21 @@
+package com.pawhaven.backend.dto;
+
+import com.pawhaven.backend.model.Gender;
+
+import java.time.LocalDateTime;
+
+// Catalog card view of a pet, leaving out the description and health text columns
+public record PetSummary(
+        Long id,
+        String name,
+        String species,
+        String breed,
+        Gender gender,
+        Integer age,
+        String size,
+        String image,
+        Boolean available,
+        Double adoptionFee,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,24 @@
+package com.pawhaven.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Progress and outcome of one settlement reconciliation run; discrepancies are counted per type
+public record ReconciliationJobStatus(
+        String jobId,
+        String state,
+        String fileName,
+        boolean applyFixes,
+        long fileBytes,
+        long bytesProcessed,
+        long linesRead,
+        long matched,
+        long fixed,
+        Map<String, Long> discrepancies,
+        LocalDateTime submittedAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        double linesPerSecond,
+        String error
+) {
+}
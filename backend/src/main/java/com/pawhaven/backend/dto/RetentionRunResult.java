@@ -0,0 +1,13 @@
+package com.pawhaven.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Outcome of one notification retention pass; complete is false when the pass stopped on its time budget
+public record RetentionRunResult(
+        LocalDateTime cutoff,
+        long archived,
+        int chunks,
+        long durationMs,
+        boolean complete
+) {
+}
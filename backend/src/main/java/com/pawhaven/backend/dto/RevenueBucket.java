@@ -0,0 +1,11 @@
+package com.pawhaven.backend.dto;
+
+import java.math.BigDecimal;
+
+// One point of a revenue report: a period (e.g. 2025-03-14, 2025-W11, 2025-03) or a breakdown value
+public record RevenueBucket(
+        String key,
+        long count,
+        BigDecimal amount
+) {
+}
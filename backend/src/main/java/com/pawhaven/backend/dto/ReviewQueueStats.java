@@ -0,0 +1,13 @@
+package com.pawhaven.backend.dto;
+
+import java.time.LocalDateTime;
+
+// Adoption review queue snapshot; depth counts PENDING applications plus claims whose lease has lapsed
+public record ReviewQueueStats(
+        long depth,
+        long inReview,
+        long expiredLeases,
+        LocalDateTime oldestPendingSubmittedAt,
+        long oldestPendingWaitSeconds
+) {
+}
@@ -0,0 +1,10 @@
+package com.pawhaven.backend.dto;
+
+// One entry of the trending pets ranking; views and applications are time-decayed counts
+public record TrendingPet(
+        Long petId,
+        double score,
+        double recentViews,
+        double recentApplications
+) {
+}
@@ -0,0 +1,28 @@
+package com.pawhaven.backend.exception;
+
+// Thrown when a purchase asks for more units of an accessory than are left
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long accessoryId;
+    private final int requested;
+    private final int available;
+
+    public InsufficientStockException(Long accessoryId, String name, int requested, int available) {
+        super("Insufficient stock for accessory: " + name);
+        this.accessoryId = accessoryId;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public Long getAccessoryId() {
+        return accessoryId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,9 @@
+package com.pawhaven.backend.exception;
+
+// Thrown when a request names an entity that does not exist
+public class ResourceNotFoundException extends RuntimeException {
+
+    public ResourceNotFoundException(String entity, Long id) {
+        super(entity + " not found with id: " + id);
+    }
+}
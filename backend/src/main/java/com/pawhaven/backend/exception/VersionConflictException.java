@@ -0,0 +1,37 @@
+package com.pawhaven.backend.exception;
+
+import java.util.Objects;
+
+// Thrown when an update names a version (If-Match) that is no longer the current one
+public class VersionConflictException extends RuntimeException {
+
+    private final String entity;
+    private final Long entityId;
+    private final Long currentVersion;
+
+    public VersionConflictException(String entity, Long entityId, Long currentVersion) {
+        super(entity + " " + entityId + " was modified by someone else; current version is " + currentVersion);
+        this.entity = entity;
+        this.entityId = entityId;
+        this.currentVersion = currentVersion;
+    }
+
+    // No-op when no version was expected
+    public static void check(String entity, Long entityId, Long expectedVersion, Long currentVersion) {
+        if (expectedVersion != null && !Objects.equals(expectedVersion, currentVersion)) {
+            throw new VersionConflictException(entity, entityId, currentVersion);
+        }
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getCurrentVersion() {
+        return currentVersion;
+    }
+}
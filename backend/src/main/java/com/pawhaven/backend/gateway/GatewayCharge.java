@@ -0,0 +1,10 @@
+package com.pawhaven.backend.gateway;
+
+// What a gateway needs to charge one payment; tranId is the merchant reference echoed back in webhooks
+public record GatewayCharge(
+        String tranId,
+        Double amount,
+        String currency,
+        String paymentMethod
+) {
+}
@@ -0,0 +1,17 @@
+package com.pawhaven.backend.gateway;
+
+// A gateway's decision on one charge
+public record GatewayResponse(
+        boolean approved,
+        String reference,
+        String reason
+) {
+
+    public static GatewayResponse approved(String reference) {
+        return new GatewayResponse(true, reference, null);
+    }
+
+    public static GatewayResponse declined(String reference, String reason) {
+        return new GatewayResponse(false, reference, reason);
+    }
+}
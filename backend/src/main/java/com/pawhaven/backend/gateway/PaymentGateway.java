@@ -0,0 +1,12 @@
+package com.pawhaven.backend.gateway;
+
+// A payment provider. Implementations may block; PaymentGatewayDispatcher calls them from virtual threads and
+// applies its own timeout, so they should not retry internally.
+public interface PaymentGateway {
+
+    // Short name used in logs and metric tags
+    String name();
+
+    // Charge the payment and report the provider's decision
+    GatewayResponse charge(GatewayCharge charge);
+}
@@ -0,0 +1,6 @@
+package com.pawhaven.backend.gateway;
+
+// Published when a payment is created for processing; handed to the gateway only after the transaction commits,
+// so the gateway can never report on a payment row that was rolled back
+public record PaymentSubmittedEvent(GatewayCharge charge) {
+}
@@ -0,0 +1,91 @@
+package com.pawhaven.backend.gateway;
+
+import com.pawhaven.backend.dto.PaymentWebhookRequest;
+import com.pawhaven.backend.service.PaymentWebhookService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// In-process stand-in for a real provider, for local development and load tests. Each charge sleeps for a
+// configurable latency and is declined at a configurable rate; it then sends the matching webhook (sometimes
+// twice) through the same path a real provider's callback would take.
+@Component
+@ConditionalOnProperty(name = "pawhaven.payments.gateway.type", havingValue = "simulated", matchIfMissing = true)
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(SimulatedPaymentGateway.class);
+
+    @Autowired
+    private PaymentWebhookService webhookService;
+
+    @Value("${pawhaven.payments.gateway.simulated.latency-ms:150}")
+    private long latencyMs;
+
+    @Value("${pawhaven.payments.gateway.simulated.latency-jitter-ms:100}")
+    private long latencyJitterMs;
+
+    @Value("${pawhaven.payments.gateway.simulated.failure-rate:0.05}")
+    private double failureRate;
+
+    @Value("${pawhaven.payments.gateway.simulated.webhooks-enabled:true}")
+    private boolean webhooksEnabled;
+
+    @Value("${pawhaven.payments.gateway.simulated.webhook-delay-ms:50}")
+    private long webhookDelayMs;
+
+    @Value("${pawhaven.payments.gateway.simulated.duplicate-webhook-rate:0.05}")
+    private double duplicateWebhookRate;
+
+    @Override
+    public String name() {
+        return "simulated";
+    }
+
+    @Override
+    public GatewayResponse charge(GatewayCharge charge) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sleep(latencyMs + (latencyJitterMs > 0 ? random.nextLong(latencyJitterMs + 1) : 0));
+
+        String reference = "SIM-" + UUID.randomUUID();
+        GatewayResponse response = random.nextDouble() < failureRate
+                ? GatewayResponse.declined(reference, "Card declined (simulated)")
+                : GatewayResponse.approved(reference);
+
+        if (webhooksEnabled) {
+            int deliveries = random.nextDouble() < duplicateWebhookRate ? 2 : 1;
+            PaymentWebhookRequest webhook = new PaymentWebhookRequest("evt-" + reference, charge.tranId(),
+                    response.approved() ? PaymentWebhookRequest.SUCCEEDED : PaymentWebhookRequest.FAILED,
+                    response.reason());
+            Thread.ofVirtual().name("simulated-webhook").start(() -> deliver(webhook, deliveries));
+        }
+        return response;
+    }
+
+    private void deliver(PaymentWebhookRequest webhook, int deliveries) {
+        for (int i = 0; i < deliveries; i++) {
+            sleep(webhookDelayMs);
+            try {
+                webhookService.handle(webhook);
+            } catch (RuntimeException e) {
+                log.warn("Simulated webhook {} for payment {} failed", webhook.eventId(), webhook.tranId(), e);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
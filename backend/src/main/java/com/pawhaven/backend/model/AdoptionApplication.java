@@ -3,27 +3,37 @@ package com.pawhaven.backend.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "adoption_applications")
+@Table(name = "adoption_applications", indexes = {
+        @Index(name = "idx_adoption_applications_status_lease", columnList = "status, lease_expires_at"),
+        @Index(name = "idx_adoption_applications_pet_status", columnList = "pet_id, status")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = AdoptionApplication.ACTIVE_KEY, columnNames = {"user_id", "pet_id", "active_flag"})
+})
 public class AdoptionApplication {
 
+    // Unique key allowing one open application per user and pet
+    public static final String ACTIVE_KEY = "uk_adoption_applications_active";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "adoption_application_id")
+    @SequenceGenerator(name = "adoption_application_id", sequenceName = "adoption_applications_seq", allocationSize = 50)
     @Column(name = "a_id")
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "u_id", nullable = false)
-    @JsonIgnoreProperties({"password", "adoptionApplications", "payments", "feedbacks", "notifications", "reports", "babysittings"})
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "password", "adoptionApplications", "payments", "feedbacks", "notifications", "reports", "babysittings"})
     private User user;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pet_id", referencedColumnName = "p_id", nullable = false)
-    @JsonIgnoreProperties({"adoptionApplications", "babysittings", "shelter"})
+    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "adoptionApplications", "babysittings", "shelter"})
     private Pet pet;
 
     @NotNull(message = "Status is required")
@@ -53,6 +63,27 @@ public class AdoptionApplication {
     @Column(name = "reviewed_date")
     private LocalDateTime reviewedDate;
 
+    // Review queue lease: set while a reviewer holds the application UNDER_REVIEW, cleared on decision or release
+    @Column(name = "reviewer_id")
+    private Long reviewerId;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Computed by the database: 1 while PENDING or UNDER_REVIEW, NULL once decided, so ACTIVE_KEY ignores closed
+    // applications. Never written by Hibernate.
+    @Column(name = "active_flag", insertable = false, updatable = false,
+            columnDefinition = "TINYINT GENERATED ALWAYS AS (CASE WHEN status IN ('PENDING', 'UNDER_REVIEW') THEN 1 END)")
+    private Integer activeFlag;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Constructors
     public AdoptionApplication() {
     }
@@ -152,6 +183,38 @@ public class AdoptionApplication {
         this.reviewedDate = reviewedDate;
     }
 
+    public Long getReviewerId() {
+        return reviewerId;
+    }
+
+    public void setReviewerId(Long reviewerId) {
+        this.reviewerId = reviewerId;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "AdoptionApplication{" +
@@ -0,0 +1,6 @@
+package com.pawhaven.backend.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,38 @@
+package com.pawhaven.backend.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+// Running count and sum of payments per (day, status, purpose, currency), kept in step with the payments table
+// by PaymentTotalsService so revenue reports never scan payments
+@Entity
+@Table(name = "payment_daily_totals")
+public class PaymentDailyTotal {
+
+    @EmbeddedId
+    private PaymentDailyTotalId id;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    // Constructors
+    public PaymentDailyTotal() {
+    }
+
+    // Getters
+    public PaymentDailyTotalId getId() {
+        return id;
+    }
+
+    public long getPaymentCount() {
+        return paymentCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+}
@@ -0,0 +1,81 @@
+package com.pawhaven.backend.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Bucket key of a payment aggregate row: the day the payment was created, its status, purpose and currency.
+// Each bucket is spread over a few shards (payment id modulo the shard count) so concurrent status changes on
+// the same busy day do not all queue on one row lock; readers sum over the shards.
+@Embeddable
+public class PaymentDailyTotalId implements Serializable {
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private PaymentStatus status;
+
+    @Column(name = "purpose", nullable = false, length = 100)
+    private String purpose;
+
+    @Column(name = "currency", nullable = false, length = 10)
+    private String currency;
+
+    @Column(name = "shard", nullable = false)
+    private int shard;
+
+    // Constructors
+    public PaymentDailyTotalId() {
+    }
+
+    public PaymentDailyTotalId(LocalDate day, PaymentStatus status, String purpose, String currency, int shard) {
+        this.day = day;
+        this.status = status;
+        this.purpose = purpose;
+        this.currency = currency;
+        this.shard = shard;
+    }
+
+    // Getters
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    public String getPurpose() {
+        return purpose;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PaymentDailyTotalId other)) {
+            return false;
+        }
+        return Objects.equals(day, other.day) && status == other.status
+                && Objects.equals(purpose, other.purpose) && Objects.equals(currency, other.currency)
+                && shard == other.shard;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(day, status, purpose, currency, shard);
+    }
+}
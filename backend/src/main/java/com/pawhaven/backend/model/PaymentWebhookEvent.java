@@ -0,0 +1,68 @@
+package com.pawhaven.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A gateway webhook that has already been applied; its id makes redelivered events no-ops
+@Entity
+@Table(name = "payment_webhook_events")
+public class PaymentWebhookEvent {
+
+    @Id
+    @Column(name = "event_id", length = 100)
+    private String eventId;
+
+    @Column(name = "tran_id", nullable = false, length = 100)
+    private String tranId;
+
+    @Column(name = "type", nullable = false, length = 50)
+    private String type;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    // Constructors
+    public PaymentWebhookEvent() {
+    }
+
+    public PaymentWebhookEvent(String eventId, String tranId, String type, LocalDateTime receivedAt) {
+        this.eventId = eventId;
+        this.tranId = tranId;
+        this.type = type;
+        this.receivedAt = receivedAt;
+    }
+
+    // Getters and Setters
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getTranId() {
+        return tranId;
+    }
+
+    public void setTranId(String tranId) {
+        this.tranId = tranId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+}
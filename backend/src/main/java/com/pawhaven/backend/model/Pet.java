@@ -3,6 +3,10 @@ package com.pawhaven.backend.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pawhaven.backend.search.PetIndexListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -11,11 +15,18 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "pets")
+@Table(name = "pets", indexes = {
+        @Index(name = "idx_pets_created_at_id", columnList = "created_at, p_id"),
+        @Index(name = "idx_pets_available_created_at_id", columnList = "available, created_at, p_id")
+})
+@EntityListeners(PetIndexListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pets")
 public class Pet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pet_id")
+    @SequenceGenerator(name = "pet_id", sequenceName = "pets_seq", allocationSize = 50)
     @Column(name = "p_id")
     private Long id;
 
@@ -80,6 +91,12 @@ public class Pet {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Optimistic lock version, also sent to clients as the ETag
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Relationships
     @OneToMany(mappedBy = "pet", cascade = CascadeType.ALL)
     @JsonIgnore
@@ -261,6 +278,14 @@ public class Pet {
         this.babysittings = babysittings;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Pet{" +
@@ -0,0 +1,46 @@
+package com.pawhaven.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Time-decayed demand for one pet as last flushed by PetDemandTracker. Scores are valid as of scoredAt and halve
+// every configured half-life after it; flushes decay the stored scores and add what arrived since.
+@Entity
+@Table(name = "pet_demand")
+public class PetDemand {
+
+    @Id
+    @Column(name = "pet_id")
+    private Long petId;
+
+    @Column(name = "view_score", nullable = false)
+    private double viewScore;
+
+    @Column(name = "application_score", nullable = false)
+    private double applicationScore;
+
+    @Column(name = "scored_at", nullable = false)
+    private LocalDateTime scoredAt;
+
+    // Constructors
+    public PetDemand() {
+    }
+
+    // Getters
+    public Long getPetId() {
+        return petId;
+    }
+
+    public double getViewScore() {
+        return viewScore;
+    }
+
+    public double getApplicationScore() {
+        return applicationScore;
+    }
+
+    public LocalDateTime getScoredAt() {
+        return scoredAt;
+    }
+}
@@ -1,23 +1,44 @@
 package com.pawhaven.backend.repository;
 
 import com.pawhaven.backend.model.Accessory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
     
+    // Query space of the stock updates; no cached entity or query uses it
+    String STOCK_SPACE = "accessory_stock";
+    
     // Find active accessories
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "accessory-queries")
+    })
     List<Accessory> findByIsActiveTrue();
     
     // Find accessories by type
     List<Accessory> findByType(String type);
     
     // Find active accessories by type
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "accessory-queries")
+    })
     List<Accessory> findByTypeAndIsActiveTrue(String type);
     
     // Find accessories by name containing
@@ -31,10 +52,50 @@ public interface AccessoryRepository extends JpaRepository<Accessory, Long> {
     List<Accessory> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
     
     // Find in-stock accessories
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "accessory-queries")
+    })
     @Query("SELECT a FROM Accessory a WHERE a.quantity > 0 AND a.isActive = true")
     List<Accessory> findInStock();
     
     // Find recent accessories
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "accessory-queries")
+    })
     @Query("SELECT a FROM Accessory a WHERE a.isActive = true ORDER BY a.createdAt DESC")
     List<Accessory> findRecentAccessories();
+    
+    // Current stock straight from the table, bypassing the entity cache
+    @Query("SELECT a.quantity FROM Accessory a WHERE a.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Long id);
+    
+    // Current stock under a row lock: the latest committed value rather than the caller's snapshot. Runs in its
+    // own transaction when called outside one, otherwise the lock is held until the caller's transaction ends
+    @Transactional
+    @Query(value = "SELECT quantity FROM accessories WHERE acc_id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockQuantityById(@Param("id") Long id);
+    
+    // Atomically take stock only if enough is left; returns the number of rows updated (0 or 1).
+    // Bulk updates bypass entity versioning, so these bump the version themselves to invalidate stale ETags.
+    // They are native and declare a query space of their own: a bulk update would otherwise evict the whole
+    // accessories region and every cached accessory query. Callers evict the one entry through CacheService
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = STOCK_SPACE))
+    @Query(value = "UPDATE accessories SET quantity = quantity - :quantity, version = version + 1, " +
+                   "updated_at = CURRENT_TIMESTAMP WHERE acc_id = :id AND quantity >= :quantity", nativeQuery = true)
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    // Atomically return stock; returns the number of rows updated (0 or 1)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = STOCK_SPACE))
+    @Query(value = "UPDATE accessories SET quantity = quantity + :quantity, version = version + 1, " +
+                   "updated_at = CURRENT_TIMESTAMP WHERE acc_id = :id", nativeQuery = true)
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    // Lock a set of rows for update in id order, so concurrent carts always acquire locks in the same sequence
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Accessory a WHERE a.id IN :ids ORDER BY a.id")
+    List<Accessory> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
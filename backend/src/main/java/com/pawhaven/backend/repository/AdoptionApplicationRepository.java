@@ -1,42 +1,160 @@
 package com.pawhaven.backend.repository;
 
+import com.pawhaven.backend.dto.AdoptionApplicationSummary;
 import com.pawhaven.backend.model.AdoptionApplication;
 import com.pawhaven.backend.model.ApplicationStatus;
 import com.pawhaven.backend.model.Pet;
 import com.pawhaven.backend.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AdoptionApplicationRepository extends JpaRepository<AdoptionApplication, Long> {
     
+    // user and pet are lazy; the list finders below fetch both in the same statement since every caller serializes them
+    
+    // Find all applications with user and pet
+    @Override
+    @EntityGraph(attributePaths = {"user", "pet"})
+    List<AdoptionApplication> findAll();
+    
+    // Find application by ID with user and pet
+    @EntityGraph(attributePaths = {"user", "pet"})
+    Optional<AdoptionApplication> findWithUserAndPetById(Long id);
+    
     // Find applications by user
+    @EntityGraph(attributePaths = {"user", "pet"})
     List<AdoptionApplication> findByUser(User user);
     
     // Find applications by pet
+    @EntityGraph(attributePaths = {"user", "pet"})
     List<AdoptionApplication> findByPet(Pet pet);
     
     // Find applications by status
+    @EntityGraph(attributePaths = {"user", "pet"})
     List<AdoptionApplication> findByStatus(ApplicationStatus status);
     
     // Find applications by user and status
+    @EntityGraph(attributePaths = {"user", "pet"})
     List<AdoptionApplication> findByUserAndStatus(User user, ApplicationStatus status);
     
     // Find applications by pet and status
+    @EntityGraph(attributePaths = {"user", "pet"})
     List<AdoptionApplication> findByPetAndStatus(Pet pet, ApplicationStatus status);
     
     // Custom query to find recent applications
-    @Query("SELECT a FROM AdoptionApplication a ORDER BY a.submissionDate DESC")
+    @Query("SELECT a FROM AdoptionApplication a JOIN FETCH a.user JOIN FETCH a.pet ORDER BY a.submissionDate DESC")
     List<AdoptionApplication> findRecentApplications();
     
     // Custom query to count applications by status
     @Query("SELECT COUNT(a) FROM AdoptionApplication a WHERE a.status = :status")
     long countByStatus(@Param("status") ApplicationStatus status);
     
+    // Application counts for every status in one grouped scan: rows of (status, count)
+    @Query("SELECT a.status, COUNT(a) FROM AdoptionApplication a GROUP BY a.status")
+    List<Object[]> countGroupedByStatus();
+    
     // Check if user has pending application for a pet
     boolean existsByUserAndPetAndStatus(User user, Pet pet, ApplicationStatus status);
+    
+    // Summary projections for list views: only the columns the screens need, no entity hydration
+    @Query("SELECT new com.pawhaven.backend.dto.AdoptionApplicationSummary(a.id, a.status, a.submissionDate, a.reviewedDate, " +
+           "u.id, u.name, u.email, p.id, p.name, p.species, p.breed, p.image) " +
+           "FROM AdoptionApplication a JOIN a.user u JOIN a.pet p ORDER BY a.submissionDate DESC")
+    List<AdoptionApplicationSummary> findAllSummaries();
+    
+    @Query("SELECT new com.pawhaven.backend.dto.AdoptionApplicationSummary(a.id, a.status, a.submissionDate, a.reviewedDate, " +
+           "u.id, u.name, u.email, p.id, p.name, p.species, p.breed, p.image) " +
+           "FROM AdoptionApplication a JOIN a.user u JOIN a.pet p WHERE a.status = :status ORDER BY a.submissionDate DESC")
+    List<AdoptionApplicationSummary> findSummariesByStatus(@Param("status") ApplicationStatus status);
+    
+    @Query("SELECT new com.pawhaven.backend.dto.AdoptionApplicationSummary(a.id, a.status, a.submissionDate, a.reviewedDate, " +
+           "u.id, u.name, u.email, p.id, p.name, p.species, p.breed, p.image) " +
+           "FROM AdoptionApplication a JOIN a.user u JOIN a.pet p WHERE u.id = :userId ORDER BY a.submissionDate DESC")
+    List<AdoptionApplicationSummary> findSummariesByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.pawhaven.backend.dto.AdoptionApplicationSummary(a.id, a.status, a.submissionDate, a.reviewedDate, " +
+           "u.id, u.name, u.email, p.id, p.name, p.species, p.breed, p.image) " +
+           "FROM AdoptionApplication a JOIN a.user u JOIN a.pet p WHERE p.id = :petId ORDER BY a.submissionDate DESC")
+    List<AdoptionApplicationSummary> findSummariesByPetId(@Param("petId") Long petId);
+    
+    // Review queue. Claimable means PENDING, or UNDER_REVIEW with a lapsed lease; a manual UNDER_REVIEW has no lease
+    // and stays with whoever set it.
+    
+    // Ranked claim candidates, read without locks: oldest first, each other open application for the same pet
+    // counting as demandWeightSeconds of extra waiting
+    @Query(value = "SELECT a.a_id FROM adoption_applications a " +
+                   "WHERE a.status = 'PENDING' OR (a.status = 'UNDER_REVIEW' AND a.lease_expires_at < :now) " +
+                   "ORDER BY TIMESTAMPDIFF(SECOND, a.submission_date, :now) + :demandWeightSeconds * " +
+                   "(SELECT COUNT(*) FROM adoption_applications c WHERE c.pet_id = a.pet_id " +
+                   "AND c.status IN ('PENDING', 'UNDER_REVIEW') AND c.a_id <> a.a_id) DESC, a.a_id " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Long> findClaimCandidateIds(@Param("now") LocalDateTime now,
+                                     @Param("demandWeightSeconds") long demandWeightSeconds,
+                                     @Param("limit") int limit);
+    
+    // Lock the still-claimable rows among ids by primary key, skipping rows another reviewer is claiming right now.
+    // Only the listed keys are touched, so concurrent claims never wait on each other.
+    @Query(value = "SELECT a.a_id FROM adoption_applications a WHERE a.a_id IN (:ids) " +
+                   "AND (a.status = 'PENDING' OR (a.status = 'UNDER_REVIEW' AND a.lease_expires_at < :now)) " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockClaimable(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    // Bulk updates bypass versioning, so these bump the version themselves
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE AdoptionApplication a SET a.status = com.pawhaven.backend.model.ApplicationStatus.UNDER_REVIEW, " +
+           "a.reviewerId = :reviewerId, a.claimedAt = :now, a.leaseExpiresAt = :leaseExpiresAt, a.version = a.version + 1 " +
+           "WHERE a.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("reviewerId") Long reviewerId,
+              @Param("now") LocalDateTime now, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE AdoptionApplication a SET a.status = com.pawhaven.backend.model.ApplicationStatus.PENDING, " +
+           "a.reviewerId = null, a.claimedAt = null, a.leaseExpiresAt = null, a.version = a.version + 1 " +
+           "WHERE a.status = com.pawhaven.backend.model.ApplicationStatus.UNDER_REVIEW AND a.leaseExpiresAt < :now")
+    int releaseExpiredLeases(@Param("now") LocalDateTime now);
+    
+    // Applicants behind the other open applications for a pet being adopted. A locking read, so review queue claims
+    // skip these rows and nothing changes them before the bulk rejection below
+    @Query(value = "SELECT a.user_id FROM adoption_applications a WHERE a.pet_id = :petId AND a.a_id <> :approvedId " +
+                   "AND a.status IN ('PENDING', 'UNDER_REVIEW') FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockCompetingApplicantIds(@Param("petId") Long petId, @Param("approvedId") Long approvedId);
+    
+    // The approved application stays managed, so this only flushes and does not clear the persistence context
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AdoptionApplication a SET a.status = com.pawhaven.backend.model.ApplicationStatus.REJECTED, " +
+           "a.adminNotes = :adminNotes, a.reviewedDate = :now, a.reviewerId = null, a.claimedAt = null, " +
+           "a.leaseExpiresAt = null, a.version = a.version + 1 " +
+           "WHERE a.pet.id = :petId AND a.id <> :approvedId AND a.status IN " +
+           "(com.pawhaven.backend.model.ApplicationStatus.PENDING, com.pawhaven.backend.model.ApplicationStatus.UNDER_REVIEW)")
+    int rejectCompetingApplications(@Param("petId") Long petId, @Param("approvedId") Long approvedId,
+                                    @Param("adminNotes") String adminNotes, @Param("now") LocalDateTime now);
+    
+    @EntityGraph(attributePaths = {"user", "pet"})
+    List<AdoptionApplication> findByIdIn(Collection<Long> ids);
+    
+    // Applications a reviewer currently holds, soonest-expiring lease first
+    @EntityGraph(attributePaths = {"user", "pet"})
+    List<AdoptionApplication> findByReviewerIdAndStatusAndLeaseExpiresAtAfterOrderByLeaseExpiresAt(
+            Long reviewerId, ApplicationStatus status, LocalDateTime now);
+    
+    long countByStatusAndLeaseExpiresAtBefore(ApplicationStatus status, LocalDateTime now);
+    
+    long countByStatusAndLeaseExpiresAtAfter(ApplicationStatus status, LocalDateTime now);
+    
+    @Query("SELECT MIN(a.submissionDate) FROM AdoptionApplication a " +
+           "WHERE a.status = com.pawhaven.backend.model.ApplicationStatus.PENDING")
+    Optional<LocalDateTime> findOldestPendingSubmissionDate();
 }
@@ -0,0 +1,45 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.dto.NotificationSummary;
+import com.pawhaven.backend.model.ArchivedNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedNotificationRepository extends JpaRepository<ArchivedNotification, Long> {
+    
+    // Archived notifications for a user, newest first
+    @Query("SELECT new com.pawhaven.backend.dto.NotificationSummary(a.id, a.type, a.message, a.date, a.isRead) " +
+           "FROM ArchivedNotification a WHERE a.userId = :userId ORDER BY a.date DESC, a.id DESC")
+    List<NotificationSummary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    // Count archived notifications for a user
+    long countByUserId(Long userId);
+    
+    // Copy a chunk of live notifications into the archive, keeping their ids
+    @Modifying
+    @Query("INSERT INTO ArchivedNotification (id, userId, type, message, date, isRead, archivedAt) " +
+           "SELECT n.id, n.user.id, n.type, n.message, n.date, n.isRead, :archivedAt " +
+           "FROM Notification n WHERE n.id IN :ids AND n.isRead = true AND n.date < :cutoff")
+    int copyFromLive(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff,
+                     @Param("archivedAt") LocalDateTime archivedAt);
+    
+    // Drop the copies of a chunk's notifications that are still live, because they were marked unread after the
+    // copy and the delete skipped them
+    @Modifying
+    @Query("DELETE FROM ArchivedNotification a WHERE a.id IN :ids " +
+           "AND EXISTS (SELECT n.id FROM Notification n WHERE n.id = a.id)")
+    int deleteStillLive(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("DELETE FROM ArchivedNotification a WHERE a.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
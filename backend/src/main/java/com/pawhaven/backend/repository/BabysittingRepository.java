@@ -42,6 +42,10 @@ public interface BabysittingRepository extends JpaRepository<Babysitting, Long>
     @Query("SELECT COUNT(b) FROM Babysitting b WHERE b.status = :status")
     long countByStatus(@Param("status") BabysittingStatus status);
     
+    // Babysitting counts for every status in one grouped scan: rows of (status, count)
+    @Query("SELECT b.status, COUNT(b) FROM Babysitting b GROUP BY b.status")
+    List<Object[]> countGroupedByStatus();
+    
     // Find recent babysitting bookings
     @Query("SELECT b FROM Babysitting b ORDER BY b.createdAt DESC")
     List<Babysitting> findRecentBookings();
@@ -0,0 +1,50 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.model.IdempotencyRecord;
+import com.pawhaven.backend.model.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    // Store the final response for a key this request still holds; 0 when the claim was taken over meanwhile
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseStatus = :responseStatus, " +
+           "r.responseBody = :responseBody " +
+           "WHERE r.key = :key AND r.claimToken = :claimToken AND r.status = :inProgress")
+    int complete(@Param("key") String key,
+                 @Param("claimToken") String claimToken,
+                 @Param("inProgress") IdempotencyStatus inProgress,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody);
+    
+    // Take over a key whose previous holder expired or stopped without finishing; 0 when someone else holds it
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.requestHash = :requestHash, r.claimToken = :claimToken, " +
+           "r.status = :inProgress, r.responseStatus = null, r.responseBody = null, r.createdAt = :now, r.expiresAt = :expiresAt " +
+           "WHERE r.key = :key AND (r.expiresAt < :now OR (r.status = :inProgress AND r.createdAt < :staleBefore))")
+    int reclaim(@Param("key") String key,
+                @Param("requestHash") String requestHash,
+                @Param("claimToken") String claimToken,
+                @Param("inProgress") IdempotencyStatus inProgress,
+                @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt,
+                @Param("staleBefore") LocalDateTime staleBefore);
+    
+    // Drop a claim whose request failed, so the client can retry it; leaves a claim taken over by a retry alone
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.claimToken = :claimToken AND r.status = :status")
+    int release(@Param("key") String key, @Param("claimToken") String claimToken,
+                @Param("status") IdempotencyStatus status);
+    
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,13 +1,19 @@
 package com.pawhaven.backend.repository;
 
+import com.pawhaven.backend.dto.NotificationSummary;
 import com.pawhaven.backend.model.Notification;
 import com.pawhaven.backend.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -32,7 +38,66 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user = :user AND n.isRead = false")
     long countUnreadByUser(@Param("user") User user);
     
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.isRead = false")
+    long countUnreadByUserId(@Param("userId") Long userId);
+    
+    // Unread counts for a batch of users as (userId, count) rows; users with none are omitted
+    @Query("SELECT n.user.id, COUNT(n) FROM Notification n WHERE n.user.id IN :userIds AND n.isRead = false " +
+           "GROUP BY n.user.id")
+    List<Object[]> countUnreadGroupedByUserIds(@Param("userIds") Collection<Long> userIds);
+    
+    // Owners of a set of notifications
+    @Query("SELECT DISTINCT n.user.id FROM Notification n WHERE n.id IN :ids")
+    List<Long> findUserIdsByIds(@Param("ids") Collection<Long> ids);
+    
     // Find recent unread notifications
     @Query("SELECT n FROM Notification n WHERE n.user = :user AND n.isRead = false ORDER BY n.date DESC")
     List<Notification> findRecentUnreadByUser(@Param("user") User user);
+    
+    // Summary projections for list views, keyed by user id so the user row is never loaded
+    @Query("SELECT new com.pawhaven.backend.dto.NotificationSummary(n.id, n.type, n.message, n.date, n.isRead) " +
+           "FROM Notification n WHERE n.user.id = :userId ORDER BY n.date DESC")
+    List<NotificationSummary> findSummariesByUserId(@Param("userId") Long userId);
+    
+    @Query("SELECT new com.pawhaven.backend.dto.NotificationSummary(n.id, n.type, n.message, n.date, n.isRead) " +
+           "FROM Notification n WHERE n.user.id = :userId AND n.isRead = false ORDER BY n.date DESC")
+    List<NotificationSummary> findUnreadSummariesByUserId(@Param("userId") Long userId);
+    
+    // Notifications created at or after a point in time, oldest first, for resuming a notification stream
+    @Query("SELECT new com.pawhaven.backend.dto.NotificationSummary(n.id, n.type, n.message, n.date, n.isRead) " +
+           "FROM Notification n WHERE n.user.id = :userId AND n.date >= :since ORDER BY n.date ASC, n.id ASC")
+    List<NotificationSummary> findSummariesByUserIdSince(@Param("userId") Long userId,
+                                                         @Param("since") LocalDateTime since, Limit limit);
+    
+    // Creation date of a notification, to place a bare-id stream position
+    @Query("SELECT n.date FROM Notification n WHERE n.id = :id")
+    Optional<LocalDateTime> findDateById(@Param("id") Long id);
+    
+    // Set-based bulk changes; each returns the number of rows affected
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.user.id = :userId AND n.isRead = false")
+    int markAllReadByUserId(@Param("userId") Long userId);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id IN :ids AND n.isRead = false")
+    int markReadByIds(@Param("ids") Collection<Long> ids);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Notification n SET n.isRead = true " +
+           "WHERE n.user.id = :userId AND n.id IN :ids AND n.isRead = false")
+    int markReadByUserIdAndIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Notification n WHERE n.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+    
+    // Read notifications older than the cutoff, a chunk at a time, for the retention job
+    @Query("SELECT n.id FROM Notification n WHERE n.isRead = true AND n.date < :cutoff")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+    
+    // Delete a chunk that was archived; the condition is repeated so a notification marked unread since the ids
+    // were read stays live
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids AND n.isRead = true AND n.date < :cutoff")
+    int deleteArchivedByIds(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,75 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.model.PaymentDailyTotal;
+import com.pawhaven.backend.model.PaymentDailyTotalId;
+import com.pawhaven.backend.model.PaymentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PaymentDailyTotalRepository extends JpaRepository<PaymentDailyTotal, PaymentDailyTotalId> {
+    
+    // Add a delta to one bucket, creating it on first use
+    @Modifying
+    @Query(value = "INSERT INTO payment_daily_totals (bucket_date, status, purpose, currency, shard, payment_count, total_amount) " +
+                   "VALUES (:day, :status, :purpose, :currency, :shard, :countDelta, :amountDelta) " +
+                   "ON DUPLICATE KEY UPDATE payment_count = payment_count + :countDelta, " +
+                   "total_amount = total_amount + :amountDelta",
+           nativeQuery = true)
+    int upsert(@Param("day") LocalDate day,
+               @Param("status") String status,
+               @Param("purpose") String purpose,
+               @Param("currency") String currency,
+               @Param("shard") int shard,
+               @Param("countDelta") long countDelta,
+               @Param("amountDelta") BigDecimal amountDelta);
+    
+    // Total for one status across all buckets
+    @Query("SELECT COALESCE(SUM(t.totalAmount), 0) FROM PaymentDailyTotal t WHERE t.id.status = :status")
+    BigDecimal sumAmountByStatus(@Param("status") PaymentStatus status);
+    
+    // Totals for every status across all buckets: rows of (status, amount)
+    @Query("SELECT t.id.status, SUM(t.totalAmount) FROM PaymentDailyTotal t GROUP BY t.id.status")
+    List<Object[]> sumAmountGroupedByStatus();
+    
+    // Per-day totals for a status in a date range, optionally narrowed to one purpose and/or currency
+    @Query("SELECT t.id.day, SUM(t.paymentCount), SUM(t.totalAmount) FROM PaymentDailyTotal t " +
+           "WHERE t.id.status = :status AND t.id.day BETWEEN :from AND :to " +
+           "AND (:purpose IS NULL OR t.id.purpose = :purpose) AND (:currency IS NULL OR t.id.currency = :currency) " +
+           "GROUP BY t.id.day ORDER BY t.id.day")
+    List<Object[]> sumByDay(@Param("status") PaymentStatus status,
+                            @Param("from") LocalDate from,
+                            @Param("to") LocalDate to,
+                            @Param("purpose") String purpose,
+                            @Param("currency") String currency);
+    
+    // Totals per (status, purpose, currency) in a date range
+    @Query("SELECT t.id.status, t.id.purpose, t.id.currency, SUM(t.paymentCount), SUM(t.totalAmount) " +
+           "FROM PaymentDailyTotal t WHERE t.id.day BETWEEN :from AND :to " +
+           "GROUP BY t.id.status, t.id.purpose, t.id.currency")
+    List<Object[]> sumByStatusPurposeCurrency(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    @Query(value = "SELECT COUNT(*) FROM payments", nativeQuery = true)
+    long countPayments();
+    
+    @Modifying
+    @Query(value = "DELETE FROM payment_daily_totals", nativeQuery = true)
+    int deleteAllRows();
+    
+    // Recompute every bucket from the payments table
+    @Modifying
+    @Query(value = "INSERT INTO payment_daily_totals (bucket_date, status, purpose, currency, shard, payment_count, total_amount) " +
+                   "SELECT b.bucket_date, b.status, b.purpose, b.currency, b.shard, COUNT(*), SUM(b.amount) FROM (" +
+                   "SELECT CAST(p.date AS DATE) AS bucket_date, COALESCE(p.status, 'PENDING') AS status, p.purpose, " +
+                   "COALESCE(p.currency, 'USD') AS currency, MOD(p.pay_id, :shards) AS shard, p.amount FROM payments p" +
+                   ") b GROUP BY b.bucket_date, b.status, b.purpose, b.currency, b.shard",
+           nativeQuery = true)
+    int rebuildFromPayments(@Param("shards") int shards);
+}
@@ -1,13 +1,20 @@
 package com.pawhaven.backend.repository;
 
+import com.pawhaven.backend.dto.PaymentSettlementView;
+import com.pawhaven.backend.dto.PaymentSummary;
 import com.pawhaven.backend.model.Payment;
 import com.pawhaven.backend.model.PaymentStatus;
 import com.pawhaven.backend.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +30,16 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Find payment by transaction ID
     Optional<Payment> findByTranId(String tranId);
     
+    // Lock a payment row before changing it, so its aggregate bucket moves exactly once
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> findByIdForUpdate(@Param("id") Long id);
+    
+    // Lock a payment row so a gateway reply and a webhook for the same charge are applied one at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.tranId = :tranId")
+    Optional<Payment> findByTranIdForUpdate(@Param("tranId") String tranId);
+    
     // Find payments by user and status
     List<Payment> findByUserAndStatus(User user, PaymentStatus status);
     
@@ -40,4 +57,29 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Find payments by user ordered by date
     @Query("SELECT p FROM Payment p WHERE p.user = :user ORDER BY p.date DESC")
     List<Payment> findByUserOrderByDateDesc(@Param("user") User user);
+    
+    // Summary projections for list views
+    @Query("SELECT new com.pawhaven.backend.dto.PaymentSummary(p.id, p.amount, p.purpose, p.date, p.tranId, p.status, " +
+           "p.paymentMethod, p.currency, u.id, u.name) FROM Payment p JOIN p.user u ORDER BY p.date DESC")
+    List<PaymentSummary> findAllSummaries();
+    
+    @Query("SELECT new com.pawhaven.backend.dto.PaymentSummary(p.id, p.amount, p.purpose, p.date, p.tranId, p.status, " +
+           "p.paymentMethod, p.currency, u.id, u.name) FROM Payment p JOIN p.user u WHERE p.status = :status ORDER BY p.date DESC")
+    List<PaymentSummary> findSummariesByStatus(@Param("status") PaymentStatus status);
+    
+    @Query("SELECT new com.pawhaven.backend.dto.PaymentSummary(p.id, p.amount, p.purpose, p.date, p.tranId, p.status, " +
+           "p.paymentMethod, p.currency, u.id, u.name) FROM Payment p JOIN p.user u WHERE u.id = :userId ORDER BY p.date DESC")
+    List<PaymentSummary> findSummariesByUserId(@Param("userId") Long userId);
+    
+    // Batch lookup for reconciliation: one IN query per block of settlement lines
+    @Query("SELECT new com.pawhaven.backend.dto.PaymentSettlementView(p.id, p.tranId, p.status, p.amount, p.currency) " +
+           "FROM Payment p WHERE p.tranId IN :tranIds")
+    List<PaymentSettlementView> findSettlementViewsByTranIdIn(@Param("tranIds") Collection<String> tranIds);
+    
+    // Payments still PENDING that were created before the cutoff, oldest first, in keyset pages
+    @Query("SELECT new com.pawhaven.backend.dto.PaymentSummary(p.id, p.amount, p.purpose, p.date, p.tranId, p.status, " +
+           "p.paymentMethod, p.currency, u.id, u.name) FROM Payment p JOIN p.user u " +
+           "WHERE p.status = com.pawhaven.backend.model.PaymentStatus.PENDING AND p.date < :cutoff AND p.id > :afterId " +
+           "ORDER BY p.id")
+    List<PaymentSummary> findStuckPendingAfter(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Limit limit);
 }
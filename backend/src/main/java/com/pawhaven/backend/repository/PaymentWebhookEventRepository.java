@@ -0,0 +1,9 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.model.PaymentWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, String> {
+}
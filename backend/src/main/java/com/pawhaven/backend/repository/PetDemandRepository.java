@@ -0,0 +1,40 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.model.PetDemand;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PetDemandRepository extends JpaRepository<PetDemand, Long> {
+    
+    // Decay the stored scores to scoredAt and add a delta already decayed to the same instant. Additive, so
+    // several instances can flush into the same row; scored_at is assigned last so the decay reads the old value.
+    @Modifying
+    @Query(value = "INSERT INTO pet_demand (pet_id, view_score, application_score, scored_at) " +
+                   "VALUES (:petId, :viewDelta, :applicationDelta, :scoredAt) " +
+                   "ON DUPLICATE KEY UPDATE " +
+                   "view_score = view_score * POWER(0.5, GREATEST(0, TIMESTAMPDIFF(SECOND, scored_at, :scoredAt)) / :halfLifeSeconds) + :viewDelta, " +
+                   "application_score = application_score * POWER(0.5, GREATEST(0, TIMESTAMPDIFF(SECOND, scored_at, :scoredAt)) / :halfLifeSeconds) + :applicationDelta, " +
+                   "scored_at = GREATEST(scored_at, :scoredAt)",
+           nativeQuery = true)
+    int addDecayed(@Param("petId") Long petId,
+                   @Param("viewDelta") double viewDelta,
+                   @Param("applicationDelta") double applicationDelta,
+                   @Param("scoredAt") LocalDateTime scoredAt,
+                   @Param("halfLifeSeconds") double halfLifeSeconds);
+    
+    // Rows for pets that still exist, to seed the tracker on startup
+    @Query("SELECT d FROM PetDemand d WHERE EXISTS (SELECT 1 FROM Pet p WHERE p.id = d.petId)")
+    List<PetDemand> findForExistingPets();
+    
+    // Rows not touched for so long that their scores have decayed to nothing
+    @Modifying
+    @Query("DELETE FROM PetDemand d WHERE d.scoredAt < :cutoff")
+    int deleteScoredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,9 +1,18 @@
 package com.pawhaven.backend.repository;
 
+import com.pawhaven.backend.dto.PetSummary;
 import com.pawhaven.backend.model.Pet;
 import com.pawhaven.backend.model.Shelter;
+import com.pawhaven.backend.search.PetDocument;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,12 +22,20 @@ import java.util.List;
 public interface PetRepository extends JpaRepository<Pet, Long> {
     
     // Find available pets
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "pet-queries")
+    })
     List<Pet> findByAvailableTrue();
     
     // Find pets by species
     List<Pet> findBySpecies(String species);
     
     // Find pets by species and available status
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "pet-queries")
+    })
     List<Pet> findBySpeciesAndAvailableTrue(String species);
     
     // Find pets by breed
@@ -34,14 +51,62 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
     List<Pet> findByNameContainingIgnoreCase(String name);
     
     // Custom query to find recently added available pets
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "pet-queries")
+    })
     @Query("SELECT p FROM Pet p WHERE p.available = true ORDER BY p.createdAt DESC")
     List<Pet> findRecentAvailablePets();
     
     // Custom query to count available pets by species
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "pet-queries")
+    })
     @Query("SELECT COUNT(p) FROM Pet p WHERE p.species = :species AND p.available = true")
     long countAvailableBySpecies(@Param("species") String species);
     
     // Custom query to find pets by age range
     @Query("SELECT p FROM Pet p WHERE p.age BETWEEN :minAge AND :maxAge AND p.available = true")
     List<Pet> findByAgeRange(@Param("minAge") Integer minAge, @Param("maxAge") Integer maxAge);
+    
+    // Keyset-paginated variants of the listings above
+    Window<Pet> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findByAvailableTrue(ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findBySpecies(String species, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findBySpeciesAndAvailableTrue(String species, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findByBreedContainingIgnoreCase(String breed, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findByNameContainingIgnoreCase(String name, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findByShelter(Shelter shelter, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findByShelterAndAvailableTrue(Shelter shelter, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Pet> findByAgeBetweenAndAvailableTrue(Integer minAge, Integer maxAge, ScrollPosition position, Sort sort, Limit limit);
+    
+    // Bounds and id-range reads used to rebuild the search index in parallel chunks
+    @Query("SELECT MIN(p.id) FROM Pet p")
+    Long findMinId();
+    
+    @Query("SELECT MAX(p.id) FROM Pet p")
+    Long findMaxId();
+    
+    @Query("SELECT new com.pawhaven.backend.search.PetDocument(p.id, p.name, p.breed, p.color, p.description, s.id, s.city, " +
+           "CASE WHEN p.available = true THEN true ELSE false END) " +
+           "FROM Pet p LEFT JOIN p.shelter s WHERE p.id BETWEEN :fromId AND :toId")
+    List<PetDocument> findSearchDocuments(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    // Summary projections for catalog views, skipping the TEXT description and health columns
+    @Query("SELECT new com.pawhaven.backend.dto.PetSummary(p.id, p.name, p.species, p.breed, p.gender, p.age, p.size, " +
+           "p.image, p.available, p.adoptionFee, p.createdAt) FROM Pet p ORDER BY p.createdAt DESC")
+    List<PetSummary> findAllSummaries();
+    
+    @Query("SELECT new com.pawhaven.backend.dto.PetSummary(p.id, p.name, p.species, p.breed, p.gender, p.age, p.size, " +
+           "p.image, p.available, p.adoptionFee, p.createdAt) FROM Pet p WHERE p.available = true ORDER BY p.createdAt DESC")
+    List<PetSummary> findAvailableSummaries();
 }
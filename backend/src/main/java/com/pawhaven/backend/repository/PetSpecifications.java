@@ -0,0 +1,55 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.dto.PetQueryCriteria;
+import com.pawhaven.backend.model.Pet;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds a single Specification over Pet from the combined query filters
+public final class PetSpecifications {
+
+    private PetSpecifications() {
+    }
+
+    public static Specification<Pet> matching(PetQueryCriteria criteria) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (criteria.species() != null && !criteria.species().isEmpty()) {
+                predicates.add(root.get("species").in(criteria.species()));
+            }
+            if (criteria.breed() != null && !criteria.breed().isBlank()) {
+                predicates.add(cb.like(cb.lower(root.get("breed")), "%" + criteria.breed().toLowerCase() + "%"));
+            }
+            if (criteria.gender() != null && !criteria.gender().isEmpty()) {
+                predicates.add(root.get("gender").in(criteria.gender()));
+            }
+            if (criteria.petSize() != null && !criteria.petSize().isEmpty()) {
+                predicates.add(root.get("size").in(criteria.petSize()));
+            }
+            if (criteria.minAge() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("age"), criteria.minAge()));
+            }
+            if (criteria.maxAge() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("age"), criteria.maxAge()));
+            }
+            if (criteria.minFee() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("adoptionFee"), criteria.minFee()));
+            }
+            if (criteria.maxFee() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("adoptionFee"), criteria.maxFee()));
+            }
+            if (criteria.shelterId() != null) {
+                predicates.add(cb.equal(root.get("shelter").get("id"), criteria.shelterId()));
+            }
+            if (criteria.available() != null) {
+                predicates.add(cb.equal(root.get("available"), criteria.available()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -33,6 +33,10 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     @Query("SELECT COUNT(r) FROM Report r WHERE r.status = :status")
     long countByStatus(@Param("status") ReportStatus status);
     
+    // Report counts for every status in one grouped scan: rows of (status, count)
+    @Query("SELECT r.status, COUNT(r) FROM Report r GROUP BY r.status")
+    List<Object[]> countGroupedByStatus();
+    
     // Find pending reports
     @Query("SELECT r FROM Report r WHERE r.status = 'PENDING' ORDER BY r.createdAt DESC")
     List<Report> findPendingReports();
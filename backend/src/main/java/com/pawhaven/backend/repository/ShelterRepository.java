@@ -1,8 +1,11 @@
 package com.pawhaven.backend.repository;
 
 import com.pawhaven.backend.model.Shelter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,6 +15,10 @@ import java.util.Optional;
 public interface ShelterRepository extends JpaRepository<Shelter, Long> {
     
     // Find active shelters
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "shelter-queries")
+    })
     List<Shelter> findByIsActiveTrue();
     
     // Find shelter by name
@@ -37,6 +44,10 @@ public interface ShelterRepository extends JpaRepository<Shelter, Long> {
     List<Shelter> findByMinCapacity(Integer minCapacity);
     
     // Custom query to count total capacity
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "shelter-queries")
+    })
     @Query("SELECT SUM(s.capacity) FROM Shelter s WHERE s.isActive = true")
     Long getTotalCapacity();
 }
@@ -2,11 +2,13 @@ package com.pawhaven.backend.repository;
 
 import com.pawhaven.backend.model.User;
 import com.pawhaven.backend.model.UserRole;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +25,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.role = :role")
     long countByRole(@Param("role") UserRole role);
     
+    // User counts for every role in one grouped scan: rows of (role, count)
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
+    
     @Query("SELECT u FROM User u ORDER BY u.createdAt DESC")
     List<User> findRecentUsers();
+    
+    // Keyset pages of recipient ids for notification broadcasts, in id order
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.id > :afterId ORDER BY u.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, Limit limit);
+    
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.role = :role AND u.id > :afterId ORDER BY u.id")
+    List<Long> findActiveIdsByRoleAfter(@Param("role") UserRole role, @Param("afterId") Long afterId, Limit limit);
+    
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.id > :afterId AND EXISTS " +
+           "(SELECT 1 FROM AdoptionApplication a WHERE a.user = u AND a.pet.id = :petId) ORDER BY u.id")
+    List<Long> findActiveApplicantIdsAfter(@Param("petId") Long petId, @Param("afterId") Long afterId, Limit limit);
+    
+    @Query("SELECT u.id FROM User u WHERE u.isActive = true AND u.id IN :userIds AND u.id > :afterId ORDER BY u.id")
+    List<Long> findActiveIdsInAfter(@Param("userIds") Collection<Long> userIds, @Param("afterId") Long afterId, Limit limit);
 }
@@ -0,0 +1,14 @@
+package com.pawhaven.backend.search;
+
+// The searchable text of one pet, plus its availability for filtered searches, as fed into the in-memory index
+public record PetDocument(
+        Long id,
+        String name,
+        String breed,
+        String color,
+        String description,
+        Long shelterId,
+        String city,
+        boolean available
+) {
+}
@@ -0,0 +1,58 @@
+package com.pawhaven.backend.search;
+
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.Shelter;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Keeps the pet search index in step with the pets table; changes are applied once the transaction commits
+public class PetIndexListener {
+
+    // Resolved lazily: the listener is created while the EntityManagerFactory that the index depends on is still being built
+    @Autowired
+    private ObjectProvider<PetSearchIndex> searchIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Pet pet) {
+        PetDocument document = toDocument(pet);
+        afterCommit(() -> searchIndex.getObject().index(document));
+    }
+
+    @PostRemove
+    public void onDelete(Pet pet) {
+        Long petId = pet.getId();
+        afterCommit(() -> searchIndex.getObject().remove(petId));
+    }
+
+    // Snapshot the searchable fields now, while the session is still open
+    private PetDocument toDocument(Pet pet) {
+        Shelter shelter = pet.getShelter();
+        Long shelterId = shelter != null ? shelter.getId() : null;
+        String city = null;
+        if (shelter != null) {
+            city = Hibernate.isInitialized(shelter) ? shelter.getCity() : searchIndex.getObject().shelterCity(shelterId);
+        }
+        return new PetDocument(pet.getId(), pet.getName(), pet.getBreed(), pet.getColor(),
+                pet.getDescription(), shelterId, city, Boolean.TRUE.equals(pet.getAvailable()));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.pawhaven.backend.search;
+
+import com.pawhaven.backend.repository.PetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-process inverted index over pet name, breed, color, description and shelter city, ranked with BM25
+@Component
+public class PetSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PetSearchIndex.class);
+
+    // BM25 tuning constants
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Term frequency weight per field, so a match on the name outranks one buried in the description
+    private static final int NAME_WEIGHT = 3;
+    private static final int BREED_WEIGHT = 2;
+    private static final int DEFAULT_WEIGHT = 1;
+
+    // Upper bound on prefix matches inspected per autocomplete request
+    private static final int MAX_SUGGEST_SCAN = 500;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "he", "her", "his",
+            "in", "is", "it", "its", "of", "on", "or", "she", "so", "that", "the", "they", "this", "to", "very",
+            "was", "who", "will", "with");
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Value("${pawhaven.search.rebuild-threads:4}")
+    private int rebuildThreads;
+
+    @Value("${pawhaven.search.rebuild-chunk-size:2000}")
+    private int rebuildChunkSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private IndexState state = new IndexState();
+
+    // Changes that arrive while a rebuild is running, replayed onto the fresh state before it is swapped in
+    private List<Consumer<IndexState>> pendingDuringRebuild;
+
+    // Add or replace a pet in the index
+    public void index(PetDocument document) {
+        Map<String, Integer> terms = analyze(document);
+        apply(s -> {
+            s.put(document.id(), terms, document.available());
+            if (document.shelterId() != null && document.city() != null) {
+                s.shelterCities.put(document.shelterId(), document.city());
+            }
+        });
+    }
+
+    // Drop a pet from the index
+    public void remove(Long petId) {
+        apply(s -> s.remove(petId));
+    }
+
+    // Last known city of a shelter, used when a pet's shelter proxy has not been loaded
+    public String shelterCity(Long shelterId) {
+        lock.readLock().lock();
+        try {
+            return state.shelterCities.get(shelterId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rank pets matching any of the query terms, best first
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, false);
+    }
+
+    // Rank matching pets, skipping unavailable ones before the top limit is cut when availableOnly is set
+    public List<Long> search(String query, int limit, boolean availableOnly) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = state.lengths.size();
+            double averageLength = documentCount == 0 ? 0 : (double) state.totalLength / documentCount;
+            for (String term : terms) {
+                Map<Long, Integer> postings = state.postings.get(term);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - postings.size() + 0.5) / (postings.size() + 0.5));
+                for (Map.Entry<Long, Integer> posting : postings.entrySet()) {
+                    if (availableOnly && !state.available.contains(posting.getKey())) {
+                        continue;
+                    }
+                    int tf = posting.getValue();
+                    int length = state.lengths.get(posting.getKey());
+                    double norm = tf + K1 * (1 - B + B * length / averageLength);
+                    scores.merge(posting.getKey(), idf * tf * (K1 + 1) / norm, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    // Complete a prefix to indexed terms, most common first
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, Map<Long, Integer>> entry
+                    : state.postings.subMap(normalized, true, normalized + Character.MAX_VALUE, false).entrySet()) {
+                candidates.add(Map.entry(entry.getKey(), entry.getValue().size()));
+                if (candidates.size() >= MAX_SUGGEST_SCAN) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        candidates.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        return candidates.stream().limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    // Number of pets currently indexed
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.lengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    // Reload every pet from the database, reading and analyzing id ranges in parallel, then swap the new index in
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        IndexState fresh = new IndexState();
+        try {
+            Long minId = petRepository.findMinId();
+            Long maxId = petRepository.findMaxId();
+            if (minId != null && maxId != null) {
+                loadRanges(fresh, minId, maxId);
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(change -> change.accept(fresh));
+            pendingDuringRebuild = null;
+            state = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Pet search index rebuilt with {} pets and {} terms in {} ms",
+                fresh.lengths.size(), fresh.postings.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void loadRanges(IndexState target, long minId, long maxId) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, rebuildThreads));
+        try {
+            List<Future<List<AnalyzedDocument>>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += rebuildChunkSize) {
+                long fromId = from;
+                long toId = Math.min(maxId, from + rebuildChunkSize - 1);
+                chunks.add(executor.submit(() -> petRepository.findSearchDocuments(fromId, toId).stream()
+                        .map(document -> new AnalyzedDocument(document, analyze(document)))
+                        .toList()));
+            }
+            for (Future<List<AnalyzedDocument>> chunk : chunks) {
+                for (AnalyzedDocument analyzed : chunk.get()) {
+                    target.put(analyzed.document().id(), analyzed.terms(), analyzed.document().available());
+                    if (analyzed.document().shelterId() != null && analyzed.document().city() != null) {
+                        target.shelterCities.put(analyzed.document().shelterId(), analyzed.document().city());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Pet search index rebuild interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pet search index rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void apply(Consumer<IndexState> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Weighted term frequencies for one pet across all searchable fields
+    private static Map<String, Integer> analyze(PetDocument document) {
+        Map<String, Integer> terms = new HashMap<>();
+        addField(terms, document.name(), NAME_WEIGHT);
+        addField(terms, document.breed(), BREED_WEIGHT);
+        addField(terms, document.color(), DEFAULT_WEIGHT);
+        addField(terms, document.description(), DEFAULT_WEIGHT);
+        addField(terms, document.city(), DEFAULT_WEIGHT);
+        return terms;
+    }
+
+    private static void addField(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    // Lower-case, split on anything that is not a letter or digit, and drop stop words and single characters
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private record AnalyzedDocument(PetDocument document, Map<String, Integer> terms) {
+    }
+
+    // Postings and document lengths; only touched under the index lock
+    private static final class IndexState {
+
+        private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+        private final Map<Long, Integer> lengths = new HashMap<>();
+        private final Map<Long, String> shelterCities = new HashMap<>();
+        private final Set<Long> available = new HashSet<>();
+        private long totalLength;
+
+        void put(Long id, Map<String, Integer> terms, boolean isAvailable) {
+            remove(id);
+            if (isAvailable) {
+                available.add(id);
+            }
+            int length = 0;
+            for (Map.Entry<String, Integer> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(id, term.getValue());
+                length += term.getValue();
+            }
+            documents.put(id, terms);
+            lengths.put(id, length);
+            totalLength += length;
+        }
+
+        void remove(Long id) {
+            available.remove(id);
+            Map<String, Integer> previous = documents.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String term : previous.keySet()) {
+                Map<Long, Integer> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(id);
+                    if (termPostings.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            totalLength -= lengths.remove(id);
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package com.pawhaven.backend.service;
 
+import com.pawhaven.backend.dto.CheckoutRequest;
+import com.pawhaven.backend.dto.CheckoutResponse;
+import com.pawhaven.backend.exception.InsufficientStockException;
+import com.pawhaven.backend.exception.ResourceNotFoundException;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.Accessory;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.User;
 import com.pawhaven.backend.repository.AccessoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -17,6 +32,25 @@ public class AccessoryService {
     @Autowired
     private AccessoryRepository accessoryRepository;
     
+    @Autowired
+    private StockReservationBuffer stockReservationBuffer;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private CacheService cacheService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Route purchases through the in-memory reservation buffer instead of hitting the row on every call
+    @Value("${pawhaven.accessories.stock-buffer.enabled:false}")
+    private boolean stockBufferEnabled;
+    
     // Create or update accessory
     public Accessory saveAccessory(Accessory accessory) {
         return accessoryRepository.save(accessory);
@@ -72,10 +106,12 @@ public class AccessoryService {
         return accessoryRepository.findRecentAccessories();
     }
     
-    // Update accessory
-    public Accessory updateAccessory(Long id, Accessory accessoryDetails) {
+    // Update accessory, optionally only if it is still at the expected version
+    public Accessory updateAccessory(Long id, Accessory accessoryDetails, Long expectedVersion) {
+        stockReservationBuffer.invalidate(id);
         Accessory accessory = accessoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + id));
+        VersionConflictException.check("Accessory", id, expectedVersion, accessory.getVersion());
         
         accessory.setName(accessoryDetails.getName());
         accessory.setType(accessoryDetails.getType());
@@ -89,34 +125,141 @@ public class AccessoryService {
         return accessoryRepository.save(accessory);
     }
     
-    // Update stock quantity
-    public Accessory updateStockQuantity(Long id, Integer quantity) {
+    // Update stock quantity, optionally only if it is still at the expected version
+    public Accessory updateStockQuantity(Long id, Integer quantity, Long expectedVersion) {
+        stockReservationBuffer.invalidate(id);
         Accessory accessory = accessoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + id));
+        VersionConflictException.check("Accessory", id, expectedVersion, accessory.getVersion());
         accessory.setQuantity(quantity);
         return accessoryRepository.save(accessory);
     }
     
-    // Decrease stock
+    // Decrease stock with a single conditional update, so concurrent purchases can never oversell
     public Accessory decreaseStock(Long id, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Quantity must be greater than 0");
+        }
+        if (stockBufferEnabled) {
+            Accessory buffered = decreaseBufferedStock(id, quantity);
+            if (buffered != null) {
+                return buffered;
+            }
+        }
+        if (accessoryRepository.decrementStock(id, quantity) == 0) {
+            Accessory accessory = accessoryRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + id));
+            throw new InsufficientStockException(id, accessory.getName(), quantity, accessory.getQuantity());
+        }
+        int left = accessoryRepository.findQuantityById(id).orElse(0);
+        cacheService.evictAccessoryStock(id, left == 0);
+        return accessoryRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + id));
+    }
+    
+    // Reserve against the in-memory counter; the row is updated by the buffer's periodic write-back. Returns null
+    // while another transaction is changing the row directly, so the caller falls back to the conditional update
+    private Accessory decreaseBufferedStock(Long id, Integer quantity) {
+        StockReservationBuffer.Reservation reservation = stockReservationBuffer.reserve(id, quantity);
+        if (reservation.outcome() == StockReservationBuffer.Outcome.UNBUFFERED) {
+            return null;
+        }
         Accessory accessory = accessoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + id));
+        if (!reservation.reserved()) {
+            throw new InsufficientStockException(id, accessory.getName(), quantity, reservation.available());
+        }
+        // Report the buffered quantity without letting it be flushed back over the row
+        entityManager.detach(accessory);
+        accessory.setQuantity(reservation.available());
+        return accessory;
+    }
+    
+    // Check out a cart: lock every accessory row in id order, take the stock and record the payment in one transaction
+    public CheckoutResponse checkout(CheckoutRequest request) {
+        if (request.userId() == null) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        if (request.items() == null || request.items().isEmpty()) {
+            throw new IllegalArgumentException("Cart is empty");
+        }
         
-        int currentQuantity = accessory.getQuantity();
-        if (currentQuantity < quantity) {
-            throw new RuntimeException("Insufficient stock for accessory: " + accessory.getName());
+        // Merge repeated lines and sort by id; the sorted order is also the lock order
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutRequest.Item item : request.items()) {
+            if (item.accessoryId() == null || item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("Each item needs an accessory ID and a quantity greater than 0");
+            }
+            quantities.merge(item.accessoryId(), item.quantity(), Integer::sum);
         }
         
-        accessory.setQuantity(currentQuantity - quantity);
-        return accessoryRepository.save(accessory);
+        User user = userService.getUserById(request.userId())
+                .orElseThrow(() -> new ResourceNotFoundException("User", request.userId()));
+        
+        // Write back and fence the buffered counters first: the fence keeps the buffer from reseeding any of these
+        // ids from the pre-checkout rows until this transaction has completed
+        quantities.keySet().forEach(stockReservationBuffer::invalidate);
+        List<Accessory> accessories = accessoryRepository.findAllByIdForUpdate(quantities.keySet());
+        if (accessories.size() != quantities.size()) {
+            Long missing = quantities.keySet().stream()
+                    .filter(id -> accessories.stream().noneMatch(accessory -> accessory.getId().equals(id)))
+                    .findFirst()
+                    .orElse(null);
+            throw new ResourceNotFoundException("Accessory", missing);
+        }
+        
+        BigDecimal total = BigDecimal.ZERO;
+        List<CheckoutResponse.Line> lines = new ArrayList<>();
+        StringBuilder notes = new StringBuilder();
+        for (Accessory accessory : accessories) {
+            int quantity = quantities.get(accessory.getId());
+            if (!Boolean.TRUE.equals(accessory.getIsActive())) {
+                throw new IllegalArgumentException("Accessory is not available: " + accessory.getName());
+            }
+            if (accessory.getQuantity() < quantity) {
+                throw new InsufficientStockException(accessory.getId(), accessory.getName(), quantity, accessory.getQuantity());
+            }
+            accessory.setQuantity(accessory.getQuantity() - quantity);
+            
+            BigDecimal lineTotal = BigDecimal.valueOf(accessory.getPrice()).multiply(BigDecimal.valueOf(quantity));
+            total = total.add(lineTotal);
+            lines.add(new CheckoutResponse.Line(accessory.getId(), accessory.getName(), quantity, accessory.getPrice(),
+                    lineTotal.setScale(2, RoundingMode.HALF_UP).doubleValue(), accessory.getQuantity()));
+            if (notes.length() > 0) {
+                notes.append("; ");
+            }
+            notes.append(quantity).append(" x ").append(accessory.getName()).append(" (#").append(accessory.getId()).append(")");
+        }
+        
+        Payment payment = new Payment();
+        payment.setUser(user);
+        payment.setAmount(total.setScale(2, RoundingMode.HALF_UP).doubleValue());
+        payment.setPurpose("Accessory purchase");
+        payment.setPaymentMethod(request.paymentMethod());
+        if (request.currency() != null) {
+            payment.setCurrency(request.currency());
+        }
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setNotes(notes.toString());
+        Payment savedPayment = paymentService.savePayment(payment);
+        
+        return new CheckoutResponse(savedPayment.getId(), savedPayment.getTranId(), savedPayment.getStatus(),
+                savedPayment.getAmount(), savedPayment.getCurrency(), lines);
     }
     
-    // Increase stock
+    // Increase stock with a single atomic update
     public Accessory increaseStock(Long id, Integer quantity) {
-        Accessory accessory = accessoryRepository.findById(id)
+        if (quantity == null || quantity <= 0) {
+            throw new RuntimeException("Quantity must be greater than 0");
+        }
+        stockReservationBuffer.invalidate(id);
+        if (accessoryRepository.incrementStock(id, quantity) == 0) {
+            throw new RuntimeException("Accessory not found with id: " + id);
+        }
+        int stock = accessoryRepository.findQuantityById(id).orElse(0);
+        cacheService.evictAccessoryStock(id, stock - quantity <= 0);
+        return accessoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + id));
-        accessory.setQuantity(accessory.getQuantity() + quantity);
-        return accessoryRepository.save(accessory);
     }
     
     // Deactivate accessory
@@ -137,6 +280,7 @@ public class AccessoryService {
     
     // Delete accessory
     public void deleteAccessory(Long id) {
+        stockReservationBuffer.invalidate(id);
         accessoryRepository.deleteById(id);
     }
 }
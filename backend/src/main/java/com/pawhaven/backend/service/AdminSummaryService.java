@@ -0,0 +1,197 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.AdminSummary;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.BabysittingStatus;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.ReportStatus;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.BabysittingRepository;
+import com.pawhaven.backend.repository.FeedbackRepository;
+import com.pawhaven.backend.repository.ReportRepository;
+import com.pawhaven.backend.repository.ShelterRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Everything the admin dashboard shows, from one grouped aggregate per table. The aggregates run side by side on
+// virtual threads, each in its own repository transaction. The result is kept for ttl-ms; once it has expired the
+// first caller recomputes it and everyone arriving meanwhile waits for that same refresh (single flight), so a room
+// full of admins costs the database one round of queries per TTL.
+@Service
+public class AdminSummaryService {
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private BabysittingRepository babysittingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShelterRepository shelterRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private PaymentTotalsService paymentTotalsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pawhaven.admin.summary.ttl-ms:10000}")
+    private long ttlMs;
+
+    // How long a refresh, and anyone waiting on it, may take before giving up
+    @Value("${pawhaven.admin.summary.timeout-ms:10000}")
+    private long timeoutMs;
+
+    private final AtomicReference<CompletableFuture<AdminSummary>> refreshing = new AtomicReference<>();
+
+    private volatile Snapshot snapshot;
+
+    private ExecutorService queries;
+
+    private Timer refreshTime;
+
+    private record Snapshot(AdminSummary summary, long expiresAtNanos) {
+
+        boolean fresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        queries = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("admin-summary-", 0).factory());
+        refreshTime = Timer.builder("pawhaven.admin.summary.refresh")
+                .description("Time to recompute the admin dashboard summary")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        queries.shutdownNow();
+    }
+
+    // The cached summary, recomputed by a single caller once it is older than the TTL
+    public AdminSummary getSummary() {
+        Snapshot current = snapshot;
+        if (current != null && current.fresh()) {
+            return current.summary();
+        }
+        CompletableFuture<AdminSummary> mine = new CompletableFuture<>();
+        CompletableFuture<AdminSummary> inFlight = refreshing.compareAndExchange(null, mine);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            // Another caller may have finished a refresh between the snapshot read and claiming this one
+            current = snapshot;
+            AdminSummary summary = current != null && current.fresh() ? current.summary() : refresh();
+            mine.complete(summary);
+            return summary;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshing.set(null);
+        }
+    }
+
+    // Drop the cached summary so the next read recomputes it
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private AdminSummary refresh() {
+        long started = System.nanoTime();
+        CompletableFuture<Map<ApplicationStatus, Long>> applications =
+                query(() -> counts(ApplicationStatus.class, applicationRepository.countGroupedByStatus()));
+        CompletableFuture<Map<ReportStatus, Long>> reports =
+                query(() -> counts(ReportStatus.class, reportRepository.countGroupedByStatus()));
+        CompletableFuture<Map<BabysittingStatus, Long>> babysitting =
+                query(() -> counts(BabysittingStatus.class, babysittingRepository.countGroupedByStatus()));
+        CompletableFuture<Map<UserRole, Long>> users =
+                query(() -> counts(UserRole.class, userRepository.countGroupedByRole()));
+        CompletableFuture<Map<PaymentStatus, BigDecimal>> payments =
+                query(() -> Collections.unmodifiableMap(paymentTotalsService.totalsByStatus()));
+        CompletableFuture<Long> capacity = query(shelterRepository::getTotalCapacity);
+        CompletableFuture<Double> rating = query(feedbackRepository::getAverageRating);
+
+        await(CompletableFuture.allOf(applications, reports, babysitting, users, payments, capacity, rating));
+        AdminSummary summary = new AdminSummary(
+                applications.join(),
+                reports.join(),
+                babysitting.join(),
+                users.join(),
+                payments.join(),
+                capacity.join() != null ? capacity.join() : 0L,
+                rating.join() != null ? rating.join() : 0.0,
+                LocalDateTime.now());
+        snapshot = new Snapshot(summary, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+        refreshTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return summary;
+    }
+
+    private <T> CompletableFuture<T> query(Supplier<T> aggregate) {
+        return CompletableFuture.supplyAsync(aggregate, queries);
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Admin summary refresh failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Admin summary refresh timed out after " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the admin summary");
+        }
+    }
+
+    // Grouped (value, count) rows as a count for every enum constant
+    private static <E extends Enum<E>> Map<E, Long> counts(Class<E> type, List<Object[]> rows) {
+        Map<E, Long> counts = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            counts.put(value, 0L);
+        }
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts.put(type.cast(row[0]), ((Number) row[1]).longValue());
+            }
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+}
@@ -1,14 +1,25 @@
 package com.pawhaven.backend.service;
 
+import com.pawhaven.backend.dto.AdoptionApplicationSummary;
+import com.pawhaven.backend.dto.NotificationBroadcastRequest;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.AdoptionApplication;
 import com.pawhaven.backend.model.ApplicationStatus;
 import com.pawhaven.backend.model.Pet;
 import com.pawhaven.backend.model.User;
 import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -17,20 +28,57 @@ import java.util.Optional;
 @Transactional
 public class AdoptionApplicationService {
     
+    private static final Logger log = LoggerFactory.getLogger(AdoptionApplicationService.class);
+    
     @Autowired
     private AdoptionApplicationRepository adoptionApplicationRepository;
     
     @Autowired
     private PetService petService;
     
+    @Autowired
+    private NotificationBroadcastService broadcastService;
+    
+    @Autowired
+    private PetDemandTracker petDemandTracker;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     // Create or update application
     public AdoptionApplication saveApplication(AdoptionApplication application) {
         return adoptionApplicationRepository.save(application);
     }
     
+    // Submit a new application as a single INSERT. User and pet are bound by reference, and the unique key on open
+    // applications rejects a second one for the same user and pet, so there is no existence check to race against.
+    public AdoptionApplication submitApplication(Long userId, Long petId, AdoptionApplication application) {
+        application.setUser(entityManager.getReference(User.class, userId));
+        application.setPet(entityManager.getReference(Pet.class, petId));
+        try {
+            AdoptionApplication saved = adoptionApplicationRepository.saveAndFlush(application);
+            petDemandTracker.recordApplication(petId);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            if (violatesActiveKey(e)) {
+                throw new IllegalStateException("User " + userId + " already has an open application for pet " + petId);
+            }
+            throw e;
+        }
+    }
+    
+    // The driver message names the violated key on both MySQL and H2
+    static boolean violatesActiveKey(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase().contains(AdoptionApplication.ACTIVE_KEY);
+    }
+    
     // Get application by ID
     public Optional<AdoptionApplication> getApplicationById(Long id) {
-        return adoptionApplicationRepository.findById(id);
+        return adoptionApplicationRepository.findWithUserAndPetById(id);
     }
     
     // Get all applications
@@ -63,6 +111,23 @@ public class AdoptionApplicationService {
         return adoptionApplicationRepository.findRecentApplications();
     }
     
+    // Summary list views
+    public List<AdoptionApplicationSummary> getAllApplicationSummaries() {
+        return adoptionApplicationRepository.findAllSummaries();
+    }
+    
+    public List<AdoptionApplicationSummary> getApplicationSummariesByStatus(ApplicationStatus status) {
+        return adoptionApplicationRepository.findSummariesByStatus(status);
+    }
+    
+    public List<AdoptionApplicationSummary> getApplicationSummariesByUser(Long userId) {
+        return adoptionApplicationRepository.findSummariesByUserId(userId);
+    }
+    
+    public List<AdoptionApplicationSummary> getApplicationSummariesByPet(Long petId) {
+        return adoptionApplicationRepository.findSummariesByPetId(petId);
+    }
+    
     // Count applications by status
     public long countApplicationsByStatus(ApplicationStatus status) {
         return adoptionApplicationRepository.countByStatus(status);
@@ -73,27 +138,84 @@ public class AdoptionApplicationService {
         return adoptionApplicationRepository.existsByUserAndPetAndStatus(user, pet, ApplicationStatus.PENDING);
     }
     
-    // Update application status
-    public AdoptionApplication updateApplicationStatus(Long id, ApplicationStatus status, String adminNotes) {
-        AdoptionApplication application = adoptionApplicationRepository.findById(id)
+    // Update application status; a stale expected version fails instead of overwriting another review
+    public AdoptionApplication updateApplicationStatus(Long id, ApplicationStatus status, String adminNotes,
+                                                       Long expectedVersion) {
+        AdoptionApplication application = adoptionApplicationRepository.findWithUserAndPetById(id)
                 .orElseThrow(() -> new RuntimeException("Application not found with id: " + id));
+        VersionConflictException.check("AdoptionApplication", id, expectedVersion, application.getVersion());
+        
+        LocalDateTime now = LocalDateTime.now();
+        // Approval adopts the pet and closes every competing application in the same transaction
+        if (status == ApplicationStatus.APPROVED && application.getStatus() != ApplicationStatus.APPROVED) {
+            Pet pet = petService.adoptPet(application.getPet());
+            rejectCompetingApplications(application, pet, now);
+        }
+        if ((status == ApplicationStatus.APPROVED || status == ApplicationStatus.REJECTED) && application.getStatus() != status) {
+            recordReviewTime(application, status, now);
+        }
         
         application.setStatus(status);
         application.setAdminNotes(adminNotes);
-        application.setReviewedDate(LocalDateTime.now());
-        
-        // If approved, mark pet as adopted
-        if (status == ApplicationStatus.APPROVED) {
-            petService.markPetAsAdopted(application.getPet().getId());
+        application.setReviewedDate(now);
+        // Any status other than UNDER_REVIEW ends a review queue lease
+        if (status != ApplicationStatus.UNDER_REVIEW) {
+            application.setReviewerId(null);
+            application.setClaimedAt(null);
+            application.setLeaseExpiresAt(null);
         }
         
         return adoptionApplicationRepository.save(application);
     }
     
+    // One locking read for the applicants and one UPDATE for the rows, however many people applied; the
+    // notifications go out in batches through the broadcast pipeline once the approval has committed
+    private void rejectCompetingApplications(AdoptionApplication approved, Pet pet, LocalDateTime now) {
+        List<Long> applicantIds = adoptionApplicationRepository.lockCompetingApplicantIds(pet.getId(), approved.getId())
+                .stream().distinct().toList();
+        if (applicantIds.isEmpty()) {
+            return;
+        }
+        int rejected = adoptionApplicationRepository.rejectCompetingApplications(pet.getId(), approved.getId(),
+                "Closed automatically: " + pet.getName() + " has been adopted", now);
+        meterRegistry.counter("pawhaven.adoptions.auto-rejected").increment(rejected);
+        log.info("Approval of application {} closed {} competing applications for pet {}", approved.getId(), rejected,
+                pet.getId());
+        
+        String message = "Thank you for applying to adopt " + pet.getName() + ". " + pet.getName()
+                + " has found a home with another family, so your application has been closed.";
+        for (int from = 0; from < applicantIds.size(); from += NotificationBroadcastService.MAX_TARGET_USERS) {
+            List<Long> batch = applicantIds.subList(from,
+                    Math.min(applicantIds.size(), from + NotificationBroadcastService.MAX_TARGET_USERS));
+            broadcastService.submitAfterCommit(new NotificationBroadcastRequest("adoption", message,
+                    NotificationBroadcastRequest.Target.users(List.copyOf(batch))));
+        }
+    }
+    
+    // Time from submission to decision, and from review-queue claim to decision when it was claimed
+    private void recordReviewTime(AdoptionApplication application, ApplicationStatus decision, LocalDateTime decidedAt) {
+        String outcome = decision.name().toLowerCase();
+        if (application.getSubmissionDate() != null) {
+            Timer.builder("pawhaven.adoptions.review.time")
+                    .description("Time from submission to an approve or reject decision")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(Duration.between(application.getSubmissionDate(), decidedAt));
+        }
+        if (application.getClaimedAt() != null) {
+            Timer.builder("pawhaven.adoptions.review.handling-time")
+                    .description("Time from review queue claim to decision")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(Duration.between(application.getClaimedAt(), decidedAt));
+        }
+    }
+    
     // Update application
-    public AdoptionApplication updateApplication(Long id, AdoptionApplication applicationDetails) {
-        AdoptionApplication application = adoptionApplicationRepository.findById(id)
+    public AdoptionApplication updateApplication(Long id, AdoptionApplication applicationDetails, Long expectedVersion) {
+        AdoptionApplication application = adoptionApplicationRepository.findWithUserAndPetById(id)
                 .orElseThrow(() -> new RuntimeException("Application not found with id: " + id));
+        VersionConflictException.check("AdoptionApplication", id, expectedVersion, application.getVersion());
         
         application.setApplicationReason(applicationDetails.getApplicationReason());
         application.setLivingSituation(applicationDetails.getLivingSituation());
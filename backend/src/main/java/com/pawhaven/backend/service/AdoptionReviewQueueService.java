@@ -0,0 +1,197 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.ReviewQueueStats;
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Work queue over adoption applications. A reviewer claims the next N by priority and holds them UNDER_REVIEW on a
+// time-limited lease; a lapsed lease puts the application back in the queue. Candidates are ranked with a plain read
+// and then locked by primary key with SKIP LOCKED, so reviewers claiming at the same time get disjoint rows without
+// ever waiting on each other.
+@Service
+@Transactional
+public class AdoptionReviewQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdoptionReviewQueueService.class);
+
+    // Ranked candidates read per wanted application, to make up for rows other reviewers are claiming concurrently
+    private static final int CANDIDATE_WINDOW = 4;
+
+    @Autowired
+    private AdoptionApplicationRepository adoptionApplicationRepository;
+
+    @Autowired
+    private AdoptionApplicationService adoptionApplicationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pawhaven.adoptions.review-queue.lease-minutes:15}")
+    private long leaseMinutes;
+
+    @Value("${pawhaven.adoptions.review-queue.max-claim:20}")
+    private int maxClaim;
+
+    // Each other open application for the same pet counts as this many hours of extra waiting
+    @Value("${pawhaven.adoptions.review-queue.demand-weight-hours:24}")
+    private double demandWeightHours;
+
+    private final AtomicLong depth = new AtomicLong();
+
+    private final AtomicLong inReview = new AtomicLong();
+
+    private final AtomicLong oldestWaitSeconds = new AtomicLong();
+
+    private Counter claimedCounter;
+
+    private Counter expiredCounter;
+
+    @PostConstruct
+    void init() {
+        claimedCounter = Counter.builder("pawhaven.adoptions.review.claimed")
+                .description("Applications claimed from the review queue")
+                .register(meterRegistry);
+        expiredCounter = Counter.builder("pawhaven.adoptions.review.lease-expired")
+                .description("Claims returned to the queue because the lease ran out")
+                .register(meterRegistry);
+        meterRegistry.gauge("pawhaven.adoptions.review.queue.depth", depth);
+        meterRegistry.gauge("pawhaven.adoptions.review.in-review", inReview);
+        meterRegistry.gauge("pawhaven.adoptions.review.oldest-wait-seconds", oldestWaitSeconds);
+    }
+
+    // Claim up to count applications for a reviewer, highest priority first
+    public List<AdoptionApplication> claim(Long reviewerId, int count) {
+        requireReviewer(reviewerId);
+        int wanted = Math.min(Math.max(count, 1), maxClaim);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> ranked = adoptionApplicationRepository.findClaimCandidateIds(now,
+                Math.round(demandWeightHours * 3600), wanted * CANDIDATE_WINDOW);
+        List<Long> claimed = new ArrayList<>(wanted);
+        int next = 0;
+        // Lock only as many rows as are still missing, so nothing is held that this reviewer will not take
+        while (claimed.size() < wanted && next < ranked.size()) {
+            List<Long> batch = ranked.subList(next, Math.min(ranked.size(), next + wanted - claimed.size()));
+            next += batch.size();
+            claimed.addAll(adoptionApplicationRepository.lockClaimable(batch, now));
+        }
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+
+        adoptionApplicationRepository.claim(claimed, reviewerId, now, now.plusMinutes(leaseMinutes));
+        claimedCounter.increment(claimed.size());
+
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            rank.put(ranked.get(i), i);
+        }
+        return adoptionApplicationRepository.findByIdIn(claimed).stream()
+                .sorted(Comparator.comparing(application -> rank.get(application.getId())))
+                .toList();
+    }
+
+    // Extend the lease on an application the reviewer holds
+    public AdoptionApplication renew(Long applicationId, Long reviewerId) {
+        AdoptionApplication application = heldBy(applicationId, reviewerId);
+        application.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(leaseMinutes));
+        return adoptionApplicationRepository.save(application);
+    }
+
+    // Hand an application back to the queue without deciding it
+    public AdoptionApplication release(Long applicationId, Long reviewerId) {
+        AdoptionApplication application = heldBy(applicationId, reviewerId);
+        application.setStatus(ApplicationStatus.PENDING);
+        application.setReviewerId(null);
+        application.setClaimedAt(null);
+        application.setLeaseExpiresAt(null);
+        return adoptionApplicationRepository.save(application);
+    }
+
+    // Approve or reject an application the reviewer holds
+    public AdoptionApplication decide(Long applicationId, Long reviewerId, ApplicationStatus status, String adminNotes,
+                                      Long expectedVersion) {
+        if (status != ApplicationStatus.APPROVED && status != ApplicationStatus.REJECTED) {
+            throw new IllegalArgumentException("A review decision must be APPROVED or REJECTED");
+        }
+        heldBy(applicationId, reviewerId);
+        return adoptionApplicationService.updateApplicationStatus(applicationId, status, adminNotes, expectedVersion);
+    }
+
+    // Applications a reviewer currently holds, soonest-expiring lease first
+    @Transactional(readOnly = true)
+    public List<AdoptionApplication> getClaims(Long reviewerId) {
+        return adoptionApplicationRepository.findByReviewerIdAndStatusAndLeaseExpiresAtAfterOrderByLeaseExpiresAt(
+                reviewerId, ApplicationStatus.UNDER_REVIEW, LocalDateTime.now());
+    }
+
+    @Transactional(readOnly = true)
+    public ReviewQueueStats getStats() {
+        LocalDateTime now = LocalDateTime.now();
+        long pending = adoptionApplicationRepository.countByStatus(ApplicationStatus.PENDING);
+        long expired = adoptionApplicationRepository.countByStatusAndLeaseExpiresAtBefore(ApplicationStatus.UNDER_REVIEW, now);
+        long leased = adoptionApplicationRepository.countByStatusAndLeaseExpiresAtAfter(ApplicationStatus.UNDER_REVIEW, now);
+        LocalDateTime oldest = adoptionApplicationRepository.findOldestPendingSubmissionDate().orElse(null);
+        long waitSeconds = oldest == null ? 0 : Math.max(0, Duration.between(oldest, now).toSeconds());
+        return new ReviewQueueStats(pending + expired, leased, expired, oldest, waitSeconds);
+    }
+
+    // Return lapsed claims to PENDING so status lists stay truthful, and refresh the queue gauges
+    @Scheduled(fixedDelayString = "${pawhaven.adoptions.review-queue.sweep-interval-ms:30000}")
+    public void sweep() {
+        int released = adoptionApplicationRepository.releaseExpiredLeases(LocalDateTime.now());
+        if (released > 0) {
+            expiredCounter.increment(released);
+            log.info("Returned {} adoption applications with lapsed review leases to the queue", released);
+        }
+        ReviewQueueStats stats = getStats();
+        depth.set(stats.depth());
+        inReview.set(stats.inReview());
+        oldestWaitSeconds.set(stats.oldestPendingWaitSeconds());
+    }
+
+    private AdoptionApplication heldBy(Long applicationId, Long reviewerId) {
+        AdoptionApplication application = adoptionApplicationRepository.findWithUserAndPetById(applicationId)
+                .orElseThrow(() -> new RuntimeException("Application not found with id: " + applicationId));
+        // A lapsed lease still counts until someone else claims the application
+        if (application.getStatus() != ApplicationStatus.UNDER_REVIEW || reviewerId == null
+                || !reviewerId.equals(application.getReviewerId())) {
+            throw new IllegalStateException("Application " + applicationId + " is not claimed by reviewer " + reviewerId);
+        }
+        return application;
+    }
+
+    private void requireReviewer(Long reviewerId) {
+        User reviewer = userRepository.findById(reviewerId == null ? -1L : reviewerId)
+                .orElseThrow(() -> new IllegalArgumentException("Reviewer not found with id: " + reviewerId));
+        if (reviewer.getRole() == UserRole.USER) {
+            throw new IllegalArgumentException("Only admins and moderators can review applications");
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.CacheRegionStats;
+import com.pawhaven.backend.dto.CacheStats;
+import com.pawhaven.backend.model.Accessory;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class CacheService {
+
+    private static final String ACCESSORY_QUERIES = "accessory-queries";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Collect overall and per-region hit/miss counters from Hibernate statistics
+    public CacheStats getStatistics() {
+        Statistics statistics = statistics();
+        List<CacheRegionStats> regions = new ArrayList<>();
+        String[] regionNames = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(regionNames);
+        for (String regionName : regionNames) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            long lookups = region.getHitCount() + region.getMissCount();
+            regions.add(new CacheRegionStats(
+                    regionName,
+                    region.getHitCount(),
+                    region.getMissCount(),
+                    region.getPutCount(),
+                    lookups == 0 ? 0 : (double) region.getHitCount() / lookups));
+        }
+        return new CacheStats(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                regions);
+    }
+
+    // Reset all statistics counters
+    public void resetStatistics() {
+        statistics().clear();
+    }
+
+    // Drop every cached entity and query result, e.g. after the database was edited outside the application
+    public void evictAll() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    // Drop one accessory after its stock was changed by a native update, leaving the rest of the region cached. The
+    // entry is dropped again when the transaction ends, in case a concurrent reader cached the old row meanwhile.
+    // Cached query results only go stale when the accessory moves in or out of stock
+    public void evictAccessoryStock(Long id, boolean crossedZero) {
+        evictAccessory(id, crossedZero);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictAccessory(id, crossedZero);
+                }
+            });
+        }
+    }
+
+    private void evictAccessory(Long id, boolean crossedZero) {
+        org.hibernate.Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Accessory.class, id);
+        if (crossedZero) {
+            cache.evictQueryRegion(ACCESSORY_QUERIES);
+        }
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,299 @@
+package com.pawhaven.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pawhaven.backend.model.IdempotencyRecord;
+import com.pawhaven.backend.model.IdempotencyStatus;
+import com.pawhaven.backend.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Makes a request safe to retry when the client sends an Idempotency-Key header. The first request claims the
+// key in idempotency_keys and runs; its response is stored and replayed for any retry with the same key and
+// body until the TTL runs out. Completed responses are also kept in a small in-memory LRU so hot retries skip
+// the database.
+//
+// The action runs in one transaction with the write that completes the key, and that write only succeeds while
+// the request still holds its claim token. Whatever the action changed therefore commits exactly when the key
+// becomes COMPLETED: a key left IN_PROGRESS means nothing committed, so reclaiming it after a crash is safe, and
+// a request whose claim was taken over by a retry rolls back instead of creating a duplicate.
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pawhaven.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${pawhaven.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    // A claim older than this with no stored response is treated as abandoned (e.g. the instance died mid-request).
+    // Its action cannot have committed, so a retry may take the key over
+    @Value("${pawhaven.idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    private Map<String, StoredResponse> cache;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        cache = new LinkedHashMap<>(Math.min(cacheSize, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Run the action once per (scope, key); retries get the stored response instead of running it again
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters"));
+        }
+        String storageKey = scope + ":" + key;
+        String requestHash = fingerprint(request);
+
+        StoredResponse cached = cached(storageKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        IdempotencyRecord existing = claim(storageKey, requestHash, claimToken);
+        if (existing != null) {
+            if (!existing.getRequestHash().equals(requestHash)) {
+                return mismatch();
+            }
+            if (existing.getStatus() == IdempotencyStatus.IN_PROGRESS) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "A request with this " + HEADER + " is still being processed"));
+            }
+            StoredResponse stored = new StoredResponse(existing.getRequestHash(), existing.getResponseStatus(),
+                    existing.getResponseBody(), existing.getExpiresAt());
+            remember(storageKey, stored);
+            return replay(stored, requestHash);
+        }
+
+        Outcome outcome;
+        try {
+            outcome = transactionTemplate.execute(tx -> {
+                ResponseEntity<?> result = action.get();
+                if (result.getStatusCode().is5xxServerError() || tx.isRollbackOnly()) {
+                    // Roll back quietly; nothing the action did is kept
+                    tx.setRollbackOnly();
+                    return new Outcome(result, null);
+                }
+                // Flush first so values filled in on insert are part of the stored response
+                entityManager.flush();
+                StoredResponse stored = toStored(requestHash, result);
+                if (!complete(storageKey, claimToken, stored)) {
+                    throw new ClaimLostException();
+                }
+                return new Outcome(result, stored);
+            });
+        } catch (ClaimLostException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "A retry with this " + HEADER + " took over the request"));
+        } catch (RuntimeException e) {
+            release(storageKey, claimToken);
+            throw e;
+        }
+
+        ResponseEntity<?> response = outcome.response();
+        StoredResponse stored = outcome.stored();
+        if (stored == null) {
+            if (response.getStatusCode().is5xxServerError()) {
+                release(storageKey, claimToken);
+                return response;
+            }
+            // A rejected request that was rolled back; its response is still the answer to every retry
+            stored = toStored(requestHash, response);
+            StoredResponse rejected = stored;
+            if (!Boolean.TRUE.equals(transactionTemplate.execute(tx -> complete(storageKey, claimToken, rejected)))) {
+                return response;
+            }
+        }
+        remember(storageKey, stored);
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${pawhaven.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(tx -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        if (purged != null && purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    // Claim the key for this request; returns null when claimed, otherwise the record that holds it
+    private IdempotencyRecord claim(String storageKey, String requestHash, String claimToken) {
+        IdempotencyRecord existing = idempotencyRecordRepository.findById(storageKey).orElse(null);
+        if (existing == null) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    entityManager.persist(new IdempotencyRecord(storageKey, requestHash, claimToken, now,
+                            now.plusHours(ttlHours)));
+                    entityManager.flush();
+                });
+                return null;
+            } catch (PersistenceException | DataIntegrityViolationException e) {
+                // Lost the race to a concurrent request with the same key
+                existing = idempotencyRecordRepository.findById(storageKey).orElse(null);
+                if (existing == null) {
+                    throw e;
+                }
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean reclaimable = existing.getExpiresAt().isBefore(now)
+                || (existing.getStatus() == IdempotencyStatus.IN_PROGRESS
+                        && existing.getCreatedAt().isBefore(now.minusSeconds(inProgressTimeoutSeconds)));
+        if (reclaimable) {
+            Integer updated = transactionTemplate.execute(tx -> idempotencyRecordRepository.reclaim(storageKey,
+                    requestHash, claimToken, IdempotencyStatus.IN_PROGRESS, now, now.plusHours(ttlHours),
+                    now.minusSeconds(inProgressTimeoutSeconds)));
+            if (updated != null && updated == 1) {
+                return null;
+            }
+            return idempotencyRecordRepository.findById(storageKey).orElse(existing);
+        }
+        return existing;
+    }
+
+    // Store the response if this request still holds the key, in the caller's transaction
+    private boolean complete(String storageKey, String claimToken, StoredResponse stored) {
+        return idempotencyRecordRepository.complete(storageKey, claimToken, IdempotencyStatus.IN_PROGRESS,
+                IdempotencyStatus.COMPLETED, stored.status(), stored.body()) == 1;
+    }
+
+    // Give the key back after a failure so the client's retry runs the request again
+    private void release(String storageKey, String claimToken) {
+        transactionTemplate.executeWithoutResult(tx ->
+                idempotencyRecordRepository.release(storageKey, claimToken, IdempotencyStatus.IN_PROGRESS));
+    }
+
+    private StoredResponse toStored(String requestHash, ResponseEntity<?> response) {
+        return new StoredResponse(requestHash, response.getStatusCode().value(), serialize(response.getBody()),
+                LocalDateTime.now().plusHours(ttlHours));
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return mismatch();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true");
+        if (stored.body() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(stored.body());
+    }
+
+    private ResponseEntity<?> mismatch() {
+        return ResponseEntity.unprocessableEntity()
+                .body(Map.of("error", HEADER + " was already used with a different request body"));
+    }
+
+    private StoredResponse cached(String storageKey) {
+        synchronized (cache) {
+            StoredResponse stored = cache.get(storageKey);
+            if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+                cache.remove(storageKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void remember(String storageKey, StoredResponse stored) {
+        synchronized (cache) {
+            cache.put(storageKey, stored);
+        }
+    }
+
+    // SHA-256 over the request serialized with sorted map keys
+    private String fingerprint(Object request) {
+        try {
+            byte[] json = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not fingerprint request", e);
+        }
+    }
+
+    private String serialize(Object body) {
+        if (body == null) {
+            return null;
+        }
+        if (body instanceof String text) {
+            return text;
+        }
+        try {
+            return new String(objectMapper.writeValueAsBytes(body), StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, int status, String body, LocalDateTime expiresAt) {
+    }
+
+    // The action's response, and what was stored for it when it committed
+    private record Outcome(ResponseEntity<?> response, StoredResponse stored) {
+    }
+
+    // Another request reclaimed the key while this one was running
+    private static final class ClaimLostException extends RuntimeException {
+    }
+}
@@ -0,0 +1,311 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.BroadcastJobStatus;
+import com.pawhaven.backend.dto.NotificationBroadcastRequest;
+import com.pawhaven.backend.model.Notification;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.stream.NotificationCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sends one notification to many users in the background. Recipients are read in keyset pages of ids, and
+// each page is inserted in its own transaction with JDBC batching, so a broadcast to every user never
+// holds one huge transaction and never loads User entities.
+@Service
+public class NotificationBroadcastService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationBroadcastService.class);
+
+    // Upper bound on the ids of a USERS target, which end up in an IN list on every page query
+    static final int MAX_TARGET_USERS = 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pawhaven.notifications.broadcast.workers:2}")
+    private int workers;
+
+    @Value("${pawhaven.notifications.broadcast.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${pawhaven.notifications.broadcast.page-size:1000}")
+    private int pageSize;
+
+    // Rows persisted between flushes; a multiple of hibernate.jdbc.batch_size
+    @Value("${pawhaven.notifications.broadcast.flush-size:500}")
+    private int flushSize;
+
+    @Value("${pawhaven.notifications.broadcast.retained-jobs:200}")
+    private int retainedJobs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicInteger runningJobs = new AtomicInteger();
+
+    private ThreadPoolExecutor executor;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter deliveredCounter;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "notification-broadcast");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        deliveredCounter = Counter.builder("pawhaven.notifications.broadcast.delivered")
+                .description("Notifications inserted by broadcast jobs")
+                .register(meterRegistry);
+        meterRegistry.gauge("pawhaven.notifications.broadcast.running", runningJobs);
+        meterRegistry.gauge("pawhaven.notifications.broadcast.queued", executor, pool -> pool.getQueue().size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Validate and queue a broadcast; returns the job id straight away
+    public String submit(NotificationBroadcastRequest request) {
+        validate(request);
+        Job job = new Job(UUID.randomUUID().toString(), request);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new IllegalStateException("Too many broadcasts queued, try again later");
+        }
+        pruneFinishedJobs();
+        return job.id;
+    }
+
+    // Queue a broadcast once the current transaction commits, so nobody hears about a change that rolled back.
+    // Runs after the commit, so a full queue is logged rather than thrown.
+    public void submitAfterCommit(NotificationBroadcastRequest request) {
+        validate(request);
+        Runnable submit = () -> {
+            try {
+                submit(request);
+            } catch (IllegalStateException e) {
+                log.error("Dropped {} broadcast to {}: {}", request.type(), request.target().kind(), e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    public Optional<BroadcastJobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toStatus);
+    }
+
+    // Most recent jobs first
+    public List<BroadcastJobStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.submittedAt).reversed())
+                .map(Job::toStatus)
+                .toList();
+    }
+
+    private void run(Job job) {
+        job.state = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        runningJobs.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Long> userIds = nextPage(job.request.target(), afterId);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                insertPage(job, userIds);
+                afterId = userIds.get(userIds.size() - 1);
+                if (userIds.size() < pageSize) {
+                    break;
+                }
+            }
+            job.state = "COMPLETED";
+        } catch (RuntimeException e) {
+            outcome = "failed";
+            job.state = "FAILED";
+            job.error = e.getMessage();
+            log.error("Notification broadcast {} failed after {} notifications", job.id, job.delivered.get(), e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            runningJobs.decrementAndGet();
+            sample.stop(Timer.builder("pawhaven.notifications.broadcast.duration")
+                    .description("Wall time of notification broadcast jobs")
+                    .tag("target", job.request.target().kind().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private List<Long> nextPage(NotificationBroadcastRequest.Target target, long afterId) {
+        Limit limit = Limit.of(pageSize);
+        return switch (target.kind()) {
+            case ACTIVE_USERS -> userRepository.findActiveIdsAfter(afterId, limit);
+            case ROLE -> userRepository.findActiveIdsByRoleAfter(target.role(), afterId, limit);
+            case PET_APPLICANTS -> userRepository.findActiveApplicantIdsAfter(target.petId(), afterId, limit);
+            case USERS -> userRepository.findActiveIdsInAfter(target.userIds(), afterId, limit);
+        };
+    }
+
+    // Insert one page of notifications in a single transaction, flushing in JDBC-batch-sized chunks
+    private void insertPage(Job job, List<Long> userIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < userIds.size(); i++) {
+                Long userId = userIds.get(i);
+                Notification notification = new Notification(entityManager.getReference(User.class, userId),
+                        job.request.type(), job.request.message());
+                entityManager.persist(notification);
+                eventPublisher.publishEvent(new NotificationCreatedEvent(userId, notification));
+                if ((i + 1) % flushSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            unreadCounter.adjustAll(userIds.stream().mapToLong(Long::longValue).toArray(), 1);
+        });
+        job.delivered.addAndGet(userIds.size());
+        deliveredCounter.increment(userIds.size());
+    }
+
+    private void validate(NotificationBroadcastRequest request) {
+        if (request.type() == null || request.type().isBlank()) {
+            throw new IllegalArgumentException("Notification type is required");
+        }
+        if (request.message() == null || request.message().isBlank()) {
+            throw new IllegalArgumentException("Notification message is required");
+        }
+        NotificationBroadcastRequest.Target target = request.target();
+        if (target == null || target.kind() == null) {
+            throw new IllegalArgumentException("Broadcast target is required");
+        }
+        if (target.kind() == NotificationBroadcastRequest.TargetKind.ROLE && target.role() == null) {
+            throw new IllegalArgumentException("Role is required for a ROLE broadcast");
+        }
+        if (target.kind() == NotificationBroadcastRequest.TargetKind.PET_APPLICANTS && target.petId() == null) {
+            throw new IllegalArgumentException("Pet ID is required for a PET_APPLICANTS broadcast");
+        }
+        if (target.kind() == NotificationBroadcastRequest.TargetKind.USERS) {
+            if (target.userIds() == null || target.userIds().isEmpty()) {
+                throw new IllegalArgumentException("User IDs are required for a USERS broadcast");
+            }
+            if (target.userIds().size() > MAX_TARGET_USERS) {
+                throw new IllegalArgumentException("A USERS broadcast can name at most " + MAX_TARGET_USERS + " users");
+            }
+        }
+    }
+
+    // Keep the job table bounded by forgetting the oldest finished jobs
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((Job job) -> job.finishedAt))
+                .limit(excess)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final NotificationBroadcastRequest request;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicLong delivered = new AtomicLong();
+        private volatile String state = "QUEUED";
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Job(String id, NotificationBroadcastRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private BroadcastJobStatus toStatus() {
+            NotificationBroadcastRequest.Target target = request.target();
+            String targetLabel = switch (target.kind()) {
+                case ACTIVE_USERS -> "ACTIVE_USERS";
+                case ROLE -> "ROLE:" + target.role();
+                case PET_APPLICANTS -> "PET_APPLICANTS:" + target.petId();
+                case USERS -> "USERS:" + target.userIds().size();
+            };
+            double rate = 0;
+            if (startedAt != null) {
+                LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+                long millis = Duration.between(startedAt, end).toMillis();
+                rate = millis > 0 ? delivered.get() * 1000.0 / millis : 0;
+            }
+            return new BroadcastJobStatus(id, state, request.type(), targetLabel, delivered.get(), submittedAt,
+                    startedAt, finishedAt, rate, error);
+        }
+    }
+}
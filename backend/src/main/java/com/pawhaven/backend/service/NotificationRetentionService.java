@@ -0,0 +1,158 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.NotificationSummary;
+import com.pawhaven.backend.dto.RetentionRunResult;
+import com.pawhaven.backend.repository.ArchivedNotificationRepository;
+import com.pawhaven.backend.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Moves read notifications past their retention age from the live table into notifications_archive.
+// Each chunk is copied and deleted in its own short transaction, and the job sleeps between chunks
+// (at least as long as the last chunk took) so it never competes with request traffic for long.
+@Service
+public class NotificationRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRetentionService.class);
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ArchivedNotificationRepository archivedNotificationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${pawhaven.notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pawhaven.notifications.retention.read-age-days:90}")
+    private int readAgeDays;
+
+    @Value("${pawhaven.notifications.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${pawhaven.notifications.retention.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${pawhaven.notifications.retention.max-run-minutes:30}")
+    private long maxRunMinutes;
+
+    @Value("${pawhaven.notifications.archive.max-page-size:100}")
+    private int maxArchivePageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${pawhaven.notifications.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            runOnce().ifPresent(result -> log.info("Notification retention archived {} rows in {} chunks ({} ms, complete={})",
+                    result.archived(), result.chunks(), result.durationMs(), result.complete()));
+        }
+    }
+
+    // Archive everything currently eligible; empty when another pass is already running
+    public Optional<RetentionRunResult> runOnce() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(archive(LocalDateTime.now().minusDays(readAgeDays)));
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Whether a retention pass is in progress
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    // Archived notifications for a user, newest first
+    public List<NotificationSummary> getArchivedSummariesByUser(Long userId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxArchivePageSize));
+        return archivedNotificationRepository.findSummariesByUserId(userId, PageRequest.of(Math.max(page, 0), pageSize));
+    }
+
+    // Number of archived notifications for a user
+    public long countArchivedByUser(Long userId) {
+        return archivedNotificationRepository.countByUserId(userId);
+    }
+
+    private RetentionRunResult archive(LocalDateTime cutoff) {
+        long started = System.nanoTime();
+        long deadline = started + maxRunMinutes * 60_000_000_000L;
+        long archived = 0;
+        int chunks = 0;
+        boolean complete = false;
+
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            Integer moved = transactionTemplate.execute(status -> moveChunk(cutoff));
+            int count = moved == null ? 0 : moved;
+            archived += count;
+            if (count > 0) {
+                chunks++;
+            }
+            if (count < chunkSize) {
+                complete = true;
+                break;
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+            if (!pause(Math.max(pauseMs, (System.nanoTime() - chunkStarted) / 1_000_000))) {
+                break;
+            }
+        }
+        return new RetentionRunResult(cutoff, archived, chunks, (System.nanoTime() - started) / 1_000_000, complete);
+    }
+
+    // Copy one chunk into the archive and delete it from the live table, atomically. The ids are read without
+    // locks, so both statements re-check that each notification is still read and old enough; one marked unread
+    // between the copy and the delete stays live and its copy is dropped again
+    private int moveChunk(LocalDateTime cutoff) {
+        List<Long> ids = notificationRepository.findArchivableIds(cutoff, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = archivedNotificationRepository.copyFromLive(ids, cutoff, LocalDateTime.now());
+        int deleted = notificationRepository.deleteArchivedByIds(ids, cutoff);
+        if (deleted < copied) {
+            archivedNotificationRepository.deleteStillLive(ids);
+        }
+        return deleted;
+    }
+
+    private boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package com.pawhaven.backend.service;
 
+import com.pawhaven.backend.dto.NotificationSummary;
 import com.pawhaven.backend.model.Notification;
 import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.repository.ArchivedNotificationRepository;
 import com.pawhaven.backend.repository.NotificationRepository;
+import com.pawhaven.backend.stream.NotificationCreatedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,12 +21,37 @@ import java.util.Optional;
 @Transactional
 public class NotificationService {
     
+    // Upper bound on ids per IN list, to stay clear of driver and query-plan limits
+    private static final int MAX_IDS_PER_STATEMENT = 1000;
+    
     @Autowired
     private NotificationRepository notificationRepository;
     
+    @Autowired
+    private ArchivedNotificationRepository archivedNotificationRepository;
+    
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     // Create or update notification
     public Notification saveNotification(Notification notification) {
-        return notificationRepository.save(notification);
+        boolean created = notification.getId() == null;
+        Notification savedNotification = notificationRepository.save(notification);
+        Long userId = savedNotification.getUser() != null ? savedNotification.getUser().getId() : null;
+        if (userId != null) {
+            if (!created) {
+                unreadCounter.invalidate(userId);
+            } else if (!Boolean.TRUE.equals(savedNotification.getIsRead())) {
+                unreadCounter.adjust(userId, 1);
+            }
+            if (created) {
+                eventPublisher.publishEvent(new NotificationCreatedEvent(userId, savedNotification));
+            }
+        }
+        return savedNotification;
     }
     
     // Get notification by ID
@@ -57,9 +89,22 @@ public class NotificationService {
         return notificationRepository.findByUserAndTypeAndIsReadFalse(user, type);
     }
     
-    // Count unread notifications by user
+    // Summary list views
+    public List<NotificationSummary> getNotificationSummariesByUser(Long userId) {
+        return notificationRepository.findSummariesByUserId(userId);
+    }
+    
+    public List<NotificationSummary> getUnreadNotificationSummariesByUser(Long userId) {
+        return notificationRepository.findUnreadSummariesByUserId(userId);
+    }
+    
+    // Count unread notifications by user, served from the in-memory counter
     public long countUnreadNotificationsByUser(User user) {
-        return notificationRepository.countUnreadByUser(user);
+        return unreadCounter.get(user.getId());
+    }
+    
+    public long countUnreadNotificationsByUserId(Long userId) {
+        return unreadCounter.get(userId);
     }
     
     // Get recent unread notifications by user
@@ -71,6 +116,9 @@ public class NotificationService {
     public Notification markAsRead(Long id) {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Notification not found with id: " + id));
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounter.adjust(notification.getUser().getId(), -1);
+        }
         notification.setIsRead(true);
         return notificationRepository.save(notification);
     }
@@ -79,25 +127,66 @@ public class NotificationService {
     public Notification markAsUnread(Long id) {
         Notification notification = notificationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Notification not found with id: " + id));
+        if (Boolean.TRUE.equals(notification.getIsRead())) {
+            unreadCounter.adjust(notification.getUser().getId(), 1);
+        }
         notification.setIsRead(false);
         return notificationRepository.save(notification);
     }
     
-    // Mark all notifications as read for user
-    public void markAllAsReadForUser(User user) {
-        List<Notification> notifications = notificationRepository.findByUserAndIsReadFalse(user);
-        notifications.forEach(notification -> notification.setIsRead(true));
-        notificationRepository.saveAll(notifications);
+    // Mark all notifications as read for user in one statement; returns the number of notifications changed
+    public int markAllAsReadForUser(User user) {
+        int updated = notificationRepository.markAllReadByUserId(user.getId());
+        unreadCounter.set(user.getId(), 0);
+        return updated;
+    }
+    
+    // Mark a list of notifications as read; returns the number that were unread before
+    public int markAsRead(Collection<Long> ids) {
+        int updated = 0;
+        for (List<Long> chunk : chunk(ids)) {
+            notificationRepository.findUserIdsByIds(chunk).forEach(unreadCounter::invalidate);
+            updated += notificationRepository.markReadByIds(chunk);
+        }
+        return updated;
+    }
+    
+    // Mark a list of a user's notifications as read; ids belonging to other users are ignored
+    public int markAsReadForUser(Long userId, Collection<Long> ids) {
+        int updated = 0;
+        for (List<Long> chunk : chunk(ids)) {
+            updated += notificationRepository.markReadByUserIdAndIds(userId, chunk);
+        }
+        unreadCounter.adjust(userId, -updated);
+        return updated;
     }
     
     // Delete notification
     public void deleteNotification(Long id) {
-        notificationRepository.deleteById(id);
+        notificationRepository.findById(id).ifPresent(notification -> {
+            notificationRepository.delete(notification);
+            if (!Boolean.TRUE.equals(notification.getIsRead())) {
+                unreadCounter.adjust(notification.getUser().getId(), -1);
+            }
+        });
+    }
+    
+    // Delete all notifications for user, live and archived; returns the number of live rows deleted
+    public int deleteAllForUser(User user) {
+        int deleted = notificationRepository.deleteAllByUserId(user.getId());
+        archivedNotificationRepository.deleteAllByUserId(user.getId());
+        unreadCounter.set(user.getId(), 0);
+        return deleted;
     }
     
-    // Delete all notifications for user
-    public void deleteAllForUser(User user) {
-        List<Notification> notifications = notificationRepository.findByUser(user);
-        notificationRepository.deleteAll(notifications);
+    // Split an id list into de-duplicated chunks of at most MAX_IDS_PER_STATEMENT
+    private List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(id -> id == null);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_IDS_PER_STATEMENT) {
+            chunks.add(distinct.subList(from, Math.min(distinct.size(), from + MAX_IDS_PER_STATEMENT)));
+        }
+        return chunks;
     }
 }
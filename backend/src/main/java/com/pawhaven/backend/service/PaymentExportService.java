@@ -0,0 +1,251 @@
+package com.pawhaven.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.model.PaymentStatus;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+// Streams payments out of the database straight into the HTTP response, one row at a time, so an export of any
+// size runs in constant memory. Rows come from a forward-only, read-only cursor: on MySQL the driver's
+// row-by-row streaming mode, elsewhere a plain fetch size.
+@Service
+public class PaymentExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentExportService.class);
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    private static final String[] COLUMNS = {
+            "id", "tranId", "date", "amount", "currency", "status", "purpose", "paymentMethod", "userId", "userName",
+            "userEmail", "notes"
+    };
+
+    private static final String SELECT = "SELECT p.pay_id, p.tran_id, p.date, p.amount, p.currency, p.status, p.purpose, " +
+            "p.payment_method, p.user_id, u.name, u.email, p.notes FROM payments p JOIN users u ON u.u_id = p.user_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pawhaven.payments.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${pawhaven.payments.export.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private Semaphore slots;
+
+    private boolean mysql;
+
+    @PostConstruct
+    void init() {
+        slots = new Semaphore(maxConcurrent);
+        try (Connection connection = dataSource.getConnection()) {
+            mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+        } catch (SQLException e) {
+            log.warn("Could not detect database type; payment exports will use fetch size {}", fetchSize, e);
+        }
+    }
+
+    // Reserve an export slot and return the body that writes the export; throws IllegalStateException when busy
+    public StreamingResponseBody stream(Format format, LocalDate from, LocalDate to, PaymentStatus status) {
+        if (!slots.tryAcquire()) {
+            throw new IllegalStateException("Too many payment exports running; try again shortly");
+        }
+        return out -> {
+            try {
+                long started = System.nanoTime();
+                long rows = export(format, from, to, status, out);
+                log.info("Exported {} payments as {} in {} ms", rows, format, (System.nanoTime() - started) / 1_000_000);
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    // Write every matching payment to out in date order; returns the number of rows written
+    public long export(Format format, LocalDate from, LocalDate to, PaymentStatus status, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> params = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("p.date >= ?");
+            params.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            conditions.add("p.date < ?");
+            params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        if (status != null) {
+            conditions.add("p.status = ?");
+            params.add(status.name());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY p.date, p.pay_id");
+
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        try {
+            Long rows = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // Integer.MIN_VALUE switches MySQL Connector/J to streaming one row at a time
+                statement.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, resultSet -> {
+                long count = 0;
+                try {
+                    while (resultSet.next()) {
+                        writer.write(resultSet);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    // The client went away; stop the server sending the rest instead of draining it
+                    resultSet.getStatement().cancel();
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            writer.finish();
+            return rows == null ? 0 : rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface RowWriter {
+
+        void write(ResultSet row) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    // RFC 4180 CSV with a header row; text cells that a spreadsheet would read as a formula are prefixed with '
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet row) throws SQLException, IOException {
+            writer.write(Long.toString(row.getLong(1)));
+            writer.write(',');
+            text(row.getString(2));
+            writer.write(',');
+            Timestamp date = row.getTimestamp(3);
+            writer.write(date == null ? "" : date.toLocalDateTime().toString());
+            writer.write(',');
+            writer.write(Double.toString(row.getDouble(4)));
+            for (int column = 5; column <= 8; column++) {
+                writer.write(',');
+                text(row.getString(column));
+            }
+            writer.write(',');
+            writer.write(Long.toString(row.getLong(9)));
+            for (int column = 10; column <= 12; column++) {
+                writer.write(',');
+                text(row.getString(column));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void text(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    // One JSON object per line
+    private final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet row) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], row.getLong(1));
+            generator.writeStringField(COLUMNS[1], row.getString(2));
+            Timestamp date = row.getTimestamp(3);
+            generator.writeStringField(COLUMNS[2], date == null ? null : date.toLocalDateTime().toString());
+            generator.writeNumberField(COLUMNS[3], row.getDouble(4));
+            for (int column = 5; column <= 8; column++) {
+                generator.writeStringField(COLUMNS[column - 1], row.getString(column));
+            }
+            generator.writeNumberField(COLUMNS[8], row.getLong(9));
+            for (int column = 10; column <= 12; column++) {
+                generator.writeStringField(COLUMNS[column - 1], row.getString(column));
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.gateway.GatewayCharge;
+import com.pawhaven.backend.gateway.GatewayResponse;
+import com.pawhaven.backend.gateway.PaymentGateway;
+import com.pawhaven.backend.gateway.PaymentSubmittedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Sends committed payments to the gateway in the background. Charges wait in a bounded queue; one dispatcher
+// thread moves them onto virtual threads while at most max-concurrency calls are outstanding. A call that
+// outlives the timeout leaves the payment PENDING for the gateway's webhook to settle, since the charge may
+// still go through on the provider's side.
+@Service
+public class PaymentGatewayDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentGatewayDispatcher.class);
+
+    @Autowired
+    private PaymentGateway gateway;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${pawhaven.payments.gateway.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${pawhaven.payments.gateway.max-concurrency:200}")
+    private int maxConcurrency;
+
+    @Value("${pawhaven.payments.gateway.timeout-ms:5000}")
+    private long timeoutMs;
+
+    // How long a committing request may wait for queue space before its payment is failed instead
+    @Value("${pawhaven.payments.gateway.enqueue-timeout-ms:100}")
+    private long enqueueTimeoutMs;
+
+    private BlockingQueue<GatewayCharge> queue;
+
+    private Semaphore permits;
+
+    private ExecutorService workers;
+
+    private Thread dispatcher;
+
+    private Timer latency;
+
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        permits = new Semaphore(maxConcurrency);
+        // Outcomes are written in a transaction of their own: a rejected charge is settled from the after-commit
+        // listener, where joining the submitting transaction would silently drop the write
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-gateway-", 0).factory());
+        latency = Timer.builder("pawhaven.payments.gateway.latency")
+                .description("Time from gateway call to decision")
+                .tag("gateway", gateway.name())
+                .register(meterRegistry);
+        meterRegistry.gauge("pawhaven.payments.gateway.queued", queue, BlockingQueue::size);
+        meterRegistry.gauge("pawhaven.payments.gateway.in-flight", permits,
+                semaphore -> maxConcurrency - semaphore.availablePermits());
+
+        running = true;
+        dispatcher = Thread.ofPlatform().name("payment-gateway-dispatcher").daemon().start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} queued payments left PENDING at shutdown", queue.size());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onPaymentSubmitted(PaymentSubmittedEvent event) {
+        boolean queued;
+        try {
+            queued = queue.offer(event.charge(), enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            record("rejected");
+            settle(event.charge().tranId(), false, "Payment gateway queue is full");
+        }
+    }
+
+    // Charges waiting for a free gateway slot
+    public int queued() {
+        return queue.size();
+    }
+
+    // Gateway calls currently outstanding
+    public int inFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                permits.acquire();
+                GatewayCharge charge;
+                try {
+                    charge = queue.take();
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+                workers.execute(() -> process(charge));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void process(GatewayCharge charge) {
+        long started = System.nanoTime();
+        CompletableFuture<GatewayResponse> call = CompletableFuture.supplyAsync(() -> gateway.charge(charge), workers);
+        // The slot is held until the gateway actually answers, even if we stopped waiting for it
+        call.whenComplete((response, error) -> {
+            permits.release();
+            latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        });
+
+        try {
+            GatewayResponse response = call.get(timeoutMs, TimeUnit.MILLISECONDS);
+            record(response.approved() ? "approved" : "declined");
+            settle(charge.tranId(), response.approved(), response.reason());
+        } catch (TimeoutException e) {
+            record("timeout");
+            log.warn("Gateway {} did not answer for payment {} within {} ms; waiting for its webhook",
+                    gateway.name(), charge.tranId(), timeoutMs);
+        } catch (ExecutionException e) {
+            record("error");
+            log.warn("Gateway {} failed for payment {}", gateway.name(), charge.tranId(), e.getCause());
+            settle(charge.tranId(), false, "Gateway error: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void settle(String tranId, boolean approved, String reason) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> paymentService.applyGatewayOutcome(tranId, approved, reason));
+        } catch (RuntimeException e) {
+            log.error("Could not record gateway outcome for payment {}", tranId, e);
+        }
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("pawhaven.payments.gateway.outcomes", "gateway", gateway.name(), "outcome", outcome)
+                .increment();
+    }
+}
@@ -0,0 +1,604 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.PaymentSettlementView;
+import com.pawhaven.backend.dto.PaymentSummary;
+import com.pawhaven.backend.dto.ReconciliationJobStatus;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+// Reconciles payments against a gateway settlement file (CSV with a header naming at least tranId and status,
+// optionally amount and currency). Fields follow RFC 4180, so quoted values may hold commas, doubled quotes and
+// line breaks. The file is cut into record-aligned chunks that workers memory-map and parse in parallel; each
+// block of lines is matched with one IN query, status fixes go through PaymentService so aggregates stay
+// correct, and every discrepancy is written to a CSV report. Payments still PENDING past the stale cutoff are
+// appended to the report at the end.
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    public enum Discrepancy {
+        // The file names a transaction we have no payment for
+        MISSING_PAYMENT,
+        // Our status differs and can be moved to the settled one
+        STATUS_MISMATCH,
+        // Our status differs in a way that needs a person (e.g. FAILED here, settled there)
+        STATUS_CONFLICT,
+        AMOUNT_MISMATCH,
+        CURRENCY_MISMATCH,
+        INVALID_LINE,
+        // PENDING since before the stale cutoff
+        STUCK_PENDING
+    }
+
+    private static final int DEADLOCK_RETRIES = 3;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Value("${pawhaven.payments.reconciliation.workers:4}")
+    private int workers;
+
+    @Value("${pawhaven.payments.reconciliation.chunk-bytes:8388608}")
+    private long chunkBytes;
+
+    // Settlement lines matched per IN query
+    @Value("${pawhaven.payments.reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${pawhaven.payments.reconciliation.stale-pending-minutes:60}")
+    private long stalePendingMinutes;
+
+    @Value("${pawhaven.payments.reconciliation.retained-jobs:50}")
+    private int retainedJobs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    // Runs one job at a time; each job fans its chunks out to its own worker pool
+    private ExecutorService jobRunner;
+
+    @PostConstruct
+    void init() {
+        jobRunner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobRunner.shutdownNow();
+    }
+
+    // Queue a reconciliation of a settlement file the service now owns; it is deleted when the job is forgotten
+    public String submit(Path settlementFile, String fileName, boolean applyFixes) throws IOException {
+        Job job = new Job(UUID.randomUUID().toString(), settlementFile, fileName, applyFixes, Files.size(settlementFile),
+                Files.createTempFile("reconciliation-", ".csv"));
+        jobs.put(job.id, job);
+        jobRunner.execute(() -> run(job));
+        pruneFinishedJobs();
+        return job.id;
+    }
+
+    public Optional<ReconciliationJobStatus> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::toStatus);
+    }
+
+    // Most recent jobs first
+    public List<ReconciliationJobStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.submittedAt).reversed())
+                .map(Job::toStatus)
+                .toList();
+    }
+
+    // Discrepancy report of a finished job
+    public Optional<Path> getReport(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId))
+                .filter(job -> job.finishedAt != null && !"FAILED".equals(job.state))
+                .map(job -> job.reportFile);
+    }
+
+    private void run(Job job) {
+        job.state = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciliation-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(job.settlementFile, StandardOpenOption.READ);
+             BufferedWriter report = Files.newBufferedWriter(job.reportFile, StandardCharsets.UTF_8)) {
+            report.write("type,tranId,ourStatus,settledStatus,ourAmount,settledAmount,ourCurrency,settledCurrency,offset,detail\r\n");
+            ReportWriter writer = new ReportWriter(report, job);
+
+            long size = channel.size();
+            long headerEnd = recordEnd(channel, 0, 0, size);
+            Columns columns = Columns.parse(readLine(channel, 0, headerEnd));
+            long start = Math.min(size, headerEnd + 1);
+            job.bytesProcessed.addAndGet(start);
+
+            List<Future<?>> chunks = new ArrayList<>();
+            while (start < size) {
+                long end = Math.min(size, recordEnd(channel, start, Math.min(size - 1, start + chunkBytes - 1), size) + 1);
+                long chunkStart = start;
+                chunks.add(pool.submit(() -> processChunk(job, channel, columns, chunkStart, end, writer)));
+                start = end;
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+            reportStuckPending(job, writer);
+            report.flush();
+            job.state = "COMPLETED";
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (Exception e) {
+            fail(job, e);
+        } finally {
+            pool.shutdownNow();
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(job.settlementFile);
+            } catch (IOException e) {
+                log.warn("Could not delete settlement file {}", job.settlementFile, e);
+            }
+        }
+        log.info("Reconciliation {} {}: {} lines, {} matched, {} fixed, discrepancies {}", job.id, job.state,
+                job.linesRead.sum(), job.matched.sum(), job.fixed.sum(), job.discrepancyCounts());
+    }
+
+    private void fail(Job job, Throwable error) {
+        job.state = "FAILED";
+        job.error = error.getMessage();
+        log.error("Reconciliation {} failed", job.id, error);
+    }
+
+    // Map one chunk, parse its lines and reconcile them a batch at a time
+    private void processChunk(Job job, FileChannel channel, Columns columns, long start, long end, ReportWriter report) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<SettlementLine> batch = new ArrayList<>(batchSize);
+        int lineStart = 0;
+        int limit = buffer.limit();
+        boolean quoted = false;
+        for (int position = 0; position <= limit; position++) {
+            if (position < limit) {
+                byte b = buffer.get(position);
+                if (b == '"') {
+                    quoted = !quoted;
+                }
+                if (b != '\n' || quoted) {
+                    continue;
+                }
+            }
+            int lineEnd = position;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart) {
+                job.linesRead.increment();
+                SettlementLine line = columns.read(buffer, lineStart, lineEnd, start + lineStart);
+                if (line == null) {
+                    report.write(Discrepancy.INVALID_LINE, null, null, null, null, null, null, null,
+                            start + lineStart, "Could not parse line");
+                } else {
+                    batch.add(line);
+                    if (batch.size() == batchSize) {
+                        reconcile(job, batch, report);
+                        batch.clear();
+                    }
+                }
+            }
+            lineStart = position + 1;
+        }
+        if (!batch.isEmpty()) {
+            reconcile(job, batch, report);
+        }
+        job.bytesProcessed.addAndGet(end - start);
+    }
+
+    // Match one batch of settlement lines with a single query and fix what can be fixed
+    private void reconcile(Job job, List<SettlementLine> batch, ReportWriter report) {
+        Map<String, PaymentSettlementView> payments = new HashMap<>(batch.size() * 2);
+        for (PaymentSettlementView view : paymentRepository.findSettlementViewsByTranIdIn(
+                batch.stream().map(SettlementLine::tranId).distinct().toList())) {
+            payments.put(view.tranId(), view);
+        }
+
+        List<PaymentService.SettlementFix> fixes = new ArrayList<>();
+        for (SettlementLine line : batch) {
+            PaymentSettlementView payment = payments.get(line.tranId());
+            if (payment == null) {
+                report.write(Discrepancy.MISSING_PAYMENT, line, null);
+                continue;
+            }
+            job.matched.increment();
+            if (line.amount() != null && payment.amount() != null
+                    && BigDecimal.valueOf(payment.amount()).setScale(2, RoundingMode.HALF_UP)
+                    .compareTo(line.amount().setScale(2, RoundingMode.HALF_UP)) != 0) {
+                report.write(Discrepancy.AMOUNT_MISMATCH, line, payment);
+            }
+            if (line.currency() != null && payment.currency() != null
+                    && !line.currency().equalsIgnoreCase(payment.currency())) {
+                report.write(Discrepancy.CURRENCY_MISMATCH, line, payment);
+            }
+            if (line.status() != payment.status()) {
+                if (canMove(payment.status(), line.status())) {
+                    report.write(Discrepancy.STATUS_MISMATCH, line, payment);
+                    fixes.add(new PaymentService.SettlementFix(payment.tranId(), payment.status(), line.status()));
+                } else {
+                    report.write(Discrepancy.STATUS_CONFLICT, line, payment);
+                }
+            }
+        }
+
+        if (job.applyFixes && !fixes.isEmpty()) {
+            // Lock payments in a fixed order; their totals buckets are written sorted at commit, so parallel
+            // batches cannot deadlock on each other
+            fixes.sort(Comparator.comparing(PaymentService.SettlementFix::tranId));
+            job.fixed.add(applyWithRetry(fixes));
+        }
+    }
+
+    private int applyWithRetry(List<PaymentService.SettlementFix> fixes) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return paymentService.applySettlementStatuses(fixes);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == DEADLOCK_RETRIES) {
+                    throw e;
+                }
+                log.debug("Settlement batch hit a lock conflict, retrying ({}/{})", attempt, DEADLOCK_RETRIES);
+            }
+        }
+    }
+
+    // Transitions a settlement file may make on its own; anything else is left for review
+    private static boolean canMove(PaymentStatus from, PaymentStatus to) {
+        return (from == PaymentStatus.PENDING && (to == PaymentStatus.COMPLETED || to == PaymentStatus.FAILED))
+                || (from == PaymentStatus.COMPLETED && to == PaymentStatus.REFUNDED);
+    }
+
+    private void reportStuckPending(Job job, ReportWriter report) {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(stalePendingMinutes);
+        long afterId = 0;
+        while (true) {
+            List<PaymentSummary> page = paymentService.getStuckPendingPayments(cutoff, afterId, batchSize);
+            for (PaymentSummary payment : page) {
+                report.write(Discrepancy.STUCK_PENDING, payment.tranId(), PaymentStatus.PENDING, null,
+                        payment.amount(), null, payment.currency(), null, -1,
+                        "Pending since " + payment.date());
+            }
+            if (page.size() < batchSize) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).id();
+        }
+    }
+
+    // End of the first record that ends at or after target, scanning from the record starting at from; a line
+    // break inside a quoted field does not end a record. Chunks are cut here while workers parse earlier ones
+    private static long recordEnd(FileChannel channel, long from, long target, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        boolean quoted = false;
+        long offset = from;
+        while (offset < size) {
+            buffer.clear();
+            int read = channel.read(buffer, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted && offset + i >= target) {
+                    return offset + i;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private static String readLine(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(end - start, 64 * 1024));
+        channel.read(buffer, start);
+        String line = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    // Keep the job table bounded by forgetting the oldest finished jobs and their reports
+    private void pruneFinishedJobs() {
+        int excess = jobs.size() - retainedJobs;
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparing((Job job) -> job.finishedAt))
+                .limit(excess)
+                .forEach(job -> {
+                    jobs.remove(job.id);
+                    try {
+                        Files.deleteIfExists(job.reportFile);
+                    } catch (IOException e) {
+                        log.warn("Could not delete reconciliation report {}", job.reportFile, e);
+                    }
+                });
+    }
+
+    private record SettlementLine(String tranId, PaymentStatus status, BigDecimal amount, String currency, long offset) {
+    }
+
+    // Positions of the settlement columns, found from the header row
+    private record Columns(int tranId, int status, int amount, int currency, int count) {
+
+        static Columns parse(String header) {
+            ByteBuffer bytes = ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8));
+            List<String> names = split(bytes, 0, bytes.limit(), Integer.MAX_VALUE, field -> true);
+            if (names == null) {
+                throw new IllegalArgumentException("Settlement file header has an unterminated quote");
+            }
+            int tranId = -1;
+            int status = -1;
+            int amount = -1;
+            int currency = -1;
+            for (int i = 0; i < names.size(); i++) {
+                switch (names.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT)) {
+                    case "tranid", "transactionid" -> tranId = i;
+                    case "status" -> status = i;
+                    case "amount" -> amount = i;
+                    case "currency" -> currency = i;
+                    default -> {
+                    }
+                }
+            }
+            if (tranId < 0 || status < 0) {
+                throw new IllegalArgumentException("Settlement file header must name tranId and status columns");
+            }
+            return new Columns(tranId, status, amount, currency, names.size());
+        }
+
+        // Split one record into fields without building a String per unused column; null when it cannot be read
+        SettlementLine read(ByteBuffer buffer, int from, int to, long offset) {
+            List<String> fields = split(buffer, from, to, count,
+                    field -> field == tranId || field == status || field == amount || field == currency);
+            if (fields == null) {
+                return null;
+            }
+            String tranIdValue = field(fields, tranId);
+            PaymentStatus statusValue = settledStatus(field(fields, status));
+            if (tranIdValue == null || tranIdValue.isEmpty() || statusValue == null) {
+                return null;
+            }
+            String amountField = field(fields, amount);
+            BigDecimal amountValue = null;
+            if (amountField != null && !amountField.isEmpty()) {
+                try {
+                    amountValue = new BigDecimal(amountField);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            String currencyField = field(fields, currency);
+            String currencyValue = currencyField != null && !currencyField.isEmpty() ? currencyField : null;
+            return new SettlementLine(tranIdValue, statusValue, amountValue, currencyValue, offset);
+        }
+
+        private static String field(List<String> fields, int index) {
+            return index >= 0 && index < fields.size() ? fields.get(index) : null;
+        }
+
+        // RFC 4180 fields of one record, at most max of them; unwanted fields are left null. A quoted field may
+        // contain commas, line breaks and doubled quotes. Returns null when a quote is never closed
+        private static List<String> split(ByteBuffer buffer, int from, int to, int max, IntPredicate wanted) {
+            List<String> fields = new ArrayList<>();
+            int position = from;
+            while (fields.size() < max) {
+                int index = fields.size();
+                int start = position;
+                while (start < to && buffer.get(start) == ' ') {
+                    start++;
+                }
+                if (start < to && buffer.get(start) == '"') {
+                    int close = start + 1;
+                    boolean escaped = false;
+                    while (true) {
+                        if (close >= to) {
+                            return null;
+                        }
+                        if (buffer.get(close) == '"') {
+                            if (close + 1 < to && buffer.get(close + 1) == '"') {
+                                escaped = true;
+                                close += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        close++;
+                    }
+                    String value = wanted.test(index) ? decode(buffer, start + 1, close) : null;
+                    fields.add(escaped && value != null ? value.replace("\"\"", "\"") : value);
+                    position = close + 1;
+                    while (position < to && buffer.get(position) != ',') {
+                        position++;
+                    }
+                } else {
+                    int end = start;
+                    while (end < to && buffer.get(end) != ',') {
+                        end++;
+                    }
+                    fields.add(wanted.test(index) ? decode(buffer, start, end).trim() : null);
+                    position = end;
+                }
+                if (position >= to) {
+                    break;
+                }
+                position++;
+            }
+            return fields;
+        }
+
+        private static String decode(ByteBuffer buffer, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Gateway status words mapped onto ours
+        private static PaymentStatus settledStatus(String value) {
+            if (value == null) {
+                return null;
+            }
+            return switch (value.toUpperCase(Locale.ROOT)) {
+                case "SETTLED", "COMPLETED", "SUCCESS", "CAPTURED" -> PaymentStatus.COMPLETED;
+                case "FAILED", "DECLINED", "REJECTED" -> PaymentStatus.FAILED;
+                case "REFUNDED" -> PaymentStatus.REFUNDED;
+                case "PENDING" -> PaymentStatus.PENDING;
+                default -> null;
+            };
+        }
+    }
+
+    // Thread-safe discrepancy report; workers share one buffered writer
+    private static final class ReportWriter {
+
+        private final BufferedWriter writer;
+        private final Job job;
+
+        ReportWriter(BufferedWriter writer, Job job) {
+            this.writer = writer;
+            this.job = job;
+        }
+
+        void write(Discrepancy type, SettlementLine line, PaymentSettlementView payment) {
+            write(type, line.tranId(), payment == null ? null : payment.status(), line.status(),
+                    payment == null ? null : payment.amount(), line.amount(),
+                    payment == null ? null : payment.currency(), line.currency(), line.offset(), null);
+        }
+
+        void write(Discrepancy type, String tranId, PaymentStatus ourStatus, PaymentStatus settledStatus,
+                   Double ourAmount, BigDecimal settledAmount, String ourCurrency, String settledCurrency,
+                   long offset, String detail) {
+            job.discrepancies.get(type).increment();
+            String row = String.join(",", type.name(), cell(tranId), cell(ourStatus), cell(settledStatus),
+                    cell(ourAmount), cell(settledAmount), cell(ourCurrency), cell(settledCurrency),
+                    offset < 0 ? "" : Long.toString(offset), cell(detail)) + "\r\n";
+            synchronized (writer) {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        private static String cell(Object value) {
+            if (value == null) {
+                return "";
+            }
+            String text = value.toString();
+            return text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0
+                    ? text
+                    : "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final Path settlementFile;
+        private final String fileName;
+        private final boolean applyFixes;
+        private final long fileBytes;
+        private final Path reportFile;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final AtomicLong bytesProcessed = new AtomicLong();
+        private final LongAdder linesRead = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder fixed = new LongAdder();
+        private final Map<Discrepancy, LongAdder> discrepancies = new EnumMap<>(Discrepancy.class);
+        private volatile String state = "QUEUED";
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private Job(String id, Path settlementFile, String fileName, boolean applyFixes, long fileBytes, Path reportFile) {
+            this.id = id;
+            this.settlementFile = settlementFile;
+            this.fileName = fileName;
+            this.applyFixes = applyFixes;
+            this.fileBytes = fileBytes;
+            this.reportFile = reportFile;
+            for (Discrepancy type : Discrepancy.values()) {
+                discrepancies.put(type, new LongAdder());
+            }
+        }
+
+        private Map<String, Long> discrepancyCounts() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            discrepancies.forEach((type, count) -> counts.put(type.name(), count.sum()));
+            return counts;
+        }
+
+        private ReconciliationJobStatus toStatus() {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            double seconds = startedAt == null ? 0 : Duration.between(startedAt, end).toMillis() / 1000.0;
+            return new ReconciliationJobStatus(id, state, fileName, applyFixes, fileBytes,
+                    Math.min(bytesProcessed.get(), fileBytes), linesRead.sum(), matched.sum(), fixed.sum(),
+                    discrepancyCounts(), submittedAt, startedAt, finishedAt,
+                    seconds > 0 ? linesRead.sum() / seconds : 0, error);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package com.pawhaven.backend.service;
 
+import com.pawhaven.backend.dto.PaymentSummary;
+import com.pawhaven.backend.exception.VersionConflictException;
+import com.pawhaven.backend.gateway.GatewayCharge;
+import com.pawhaven.backend.gateway.PaymentSubmittedEvent;
 import com.pawhaven.backend.model.Payment;
 import com.pawhaven.backend.model.PaymentStatus;
 import com.pawhaven.backend.model.User;
 import com.pawhaven.backend.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -19,13 +25,30 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepository;
     
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PaymentTotalsService totalsService;
+    
     // Create or update payment
     public Payment savePayment(Payment payment) {
         // Generate unique transaction ID if not set
         if (payment.getTranId() == null || payment.getTranId().isEmpty()) {
             payment.setTranId(generateTransactionId());
         }
-        return paymentRepository.save(payment);
+        PaymentTotalsService.Contribution before = payment.getId() == null ? null
+                : paymentRepository.findByIdForUpdate(payment.getId()).map(totalsService::contributionOf).orElse(null);
+        Payment savedPayment = paymentRepository.save(payment);
+        if (before == null) {
+            totalsService.added(savedPayment);
+        } else {
+            totalsService.changed(before, savedPayment);
+        }
+        return savedPayment;
     }
     
     // Get payment by ID
@@ -73,16 +96,30 @@ public class PaymentService {
         return paymentRepository.findRecentPayments();
     }
     
-    // Get total amount by status
+    // Summary list views
+    public List<PaymentSummary> getAllPaymentSummaries() {
+        return paymentRepository.findAllSummaries();
+    }
+    
+    public List<PaymentSummary> getPaymentSummariesByStatus(PaymentStatus status) {
+        return paymentRepository.findSummariesByStatus(status);
+    }
+    
+    public List<PaymentSummary> getPaymentSummariesByUser(Long userId) {
+        return paymentRepository.findSummariesByUserId(userId);
+    }
+    
+    // Get total amount by status, from the maintained aggregates rather than a scan of payments
     public Double getTotalAmountByStatus(PaymentStatus status) {
-        Double total = paymentRepository.getTotalAmountByStatus(status);
-        return total != null ? total : 0.0;
+        return totalsService.totalByStatus(status).doubleValue();
     }
     
-    // Update payment
-    public Payment updatePayment(Long id, Payment paymentDetails) {
-        Payment payment = paymentRepository.findById(id)
+    // Update payment, optionally only if it is still at the expected version
+    public Payment updatePayment(Long id, Payment paymentDetails, Long expectedVersion) {
+        Payment payment = paymentRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
+        VersionConflictException.check("Payment", id, expectedVersion, payment.getVersion());
+        PaymentTotalsService.Contribution before = totalsService.contributionOf(payment);
         
         payment.setAmount(paymentDetails.getAmount());
         payment.setPurpose(paymentDetails.getPurpose());
@@ -90,71 +127,120 @@ public class PaymentService {
         payment.setCurrency(paymentDetails.getCurrency());
         payment.setNotes(paymentDetails.getNotes());
         
+        totalsService.changed(before, payment);
         return paymentRepository.save(payment);
     }
     
-    // Update payment status
-    public Payment updatePaymentStatus(Long id, PaymentStatus status) {
-        Payment payment = paymentRepository.findById(id)
+    // Update payment status, optionally only if it is still at the expected version
+    public Payment updatePaymentStatus(Long id, PaymentStatus status, Long expectedVersion) {
+        Payment payment = paymentRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Payment not found with id: " + id));
-        payment.setStatus(status);
-        return paymentRepository.save(payment);
+        VersionConflictException.check("Payment", id, expectedVersion, payment.getVersion());
+        return moveTo(payment, status);
     }
     
-    // Process payment
+    // Process payment: save it as PENDING and hand it to the payment gateway once the transaction commits
     public Payment processPayment(Payment payment) {
-        // Set initial status as PENDING
         payment.setStatus(PaymentStatus.PENDING);
-        
-        // Generate transaction ID
         payment.setTranId(generateTransactionId());
         
-        // Save payment
         Payment savedPayment = paymentRepository.save(payment);
+        totalsService.added(savedPayment);
         
-        // Here you would integrate with actual payment gateway
-        // For now, we'll just mark it as completed
-        // In real scenario, this would be async and updated via webhook
+        // The gateway reply (or its webhook) later moves the payment on through completePayment / failPayment
+        eventPublisher.publishEvent(new PaymentSubmittedEvent(new GatewayCharge(savedPayment.getTranId(),
+                savedPayment.getAmount(), savedPayment.getCurrency(), savedPayment.getPaymentMethod())));
         
         return savedPayment;
     }
     
+    // Apply a gateway decision to a PENDING payment; returns false when the payment was already settled
+    public boolean applyGatewayOutcome(String tranId, boolean approved, String reason) {
+        Payment payment = paymentRepository.findByTranIdForUpdate(tranId)
+                .orElseThrow(() -> new RuntimeException("Payment not found with transaction ID: " + tranId));
+        if (payment.getStatus() != PaymentStatus.PENDING) {
+            return false;
+        }
+        if (approved) {
+            completePayment(tranId);
+        } else {
+            if (reason != null && !reason.isBlank()) {
+                payment.setNotes(payment.getNotes() == null || payment.getNotes().isBlank()
+                        ? "Gateway: " + reason
+                        : payment.getNotes() + "\nGateway: " + reason);
+            }
+            failPayment(tranId);
+        }
+        return true;
+    }
+    
     // Complete payment
     public Payment completePayment(String tranId) {
-        Payment payment = paymentRepository.findByTranId(tranId)
+        Payment payment = paymentRepository.findByTranIdForUpdate(tranId)
                 .orElseThrow(() -> new RuntimeException("Payment not found with transaction ID: " + tranId));
-        payment.setStatus(PaymentStatus.COMPLETED);
-        return paymentRepository.save(payment);
+        return moveTo(payment, PaymentStatus.COMPLETED);
     }
     
     // Fail payment
     public Payment failPayment(String tranId) {
-        Payment payment = paymentRepository.findByTranId(tranId)
+        Payment payment = paymentRepository.findByTranIdForUpdate(tranId)
                 .orElseThrow(() -> new RuntimeException("Payment not found with transaction ID: " + tranId));
-        payment.setStatus(PaymentStatus.FAILED);
-        return paymentRepository.save(payment);
+        return moveTo(payment, PaymentStatus.FAILED);
     }
     
     // Refund payment
     public Payment refundPayment(String tranId) {
-        Payment payment = paymentRepository.findByTranId(tranId)
+        Payment payment = paymentRepository.findByTranIdForUpdate(tranId)
                 .orElseThrow(() -> new RuntimeException("Payment not found with transaction ID: " + tranId));
         
         if (payment.getStatus() != PaymentStatus.COMPLETED) {
             throw new RuntimeException("Only completed payments can be refunded");
         }
         
-        payment.setStatus(PaymentStatus.REFUNDED);
-        return paymentRepository.save(payment);
+        return moveTo(payment, PaymentStatus.REFUNDED);
+    }
+    
+    // Apply settlement outcomes in one transaction; a payment is only moved if it is still in the status the
+    // reconciliation saw, so a concurrent gateway reply is never overwritten. Returns the number changed.
+    public int applySettlementStatuses(List<SettlementFix> fixes) {
+        int changed = 0;
+        for (SettlementFix fix : fixes) {
+            Optional<Payment> locked = paymentRepository.findByTranIdForUpdate(fix.tranId());
+            if (locked.isPresent() && locked.get().getStatus() == fix.expected()) {
+                moveTo(locked.get(), fix.target());
+                changed++;
+            }
+        }
+        return changed;
+    }
+    
+    // Status change requested by a settlement file
+    public record SettlementFix(String tranId, PaymentStatus expected, PaymentStatus target) {
+    }
+    
+    // Payments stuck in PENDING since before the cutoff
+    public List<PaymentSummary> getStuckPendingPayments(LocalDateTime cutoff, Long afterId, int limit) {
+        return paymentRepository.findStuckPendingAfter(cutoff, afterId, Limit.of(limit));
     }
     
     // Delete payment
     public void deletePayment(Long id) {
-        paymentRepository.deleteById(id);
+        paymentRepository.findByIdForUpdate(id).ifPresent(payment -> {
+            totalsService.removed(totalsService.contributionOf(payment));
+            paymentRepository.delete(payment);
+        });
+    }
+    
+    // Change a locked payment's status and move its contribution to the matching aggregate bucket
+    private Payment moveTo(Payment payment, PaymentStatus status) {
+        PaymentTotalsService.Contribution before = totalsService.contributionOf(payment);
+        payment.setStatus(status);
+        totalsService.changed(before, payment);
+        return paymentRepository.save(payment);
     }
     
-    // Generate unique transaction ID
+    // Generate unique, time-ordered transaction ID
     private String generateTransactionId() {
-        return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return transactionIdGenerator.next();
     }
 }
@@ -0,0 +1,276 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.RevenueBucket;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Keeps payment_daily_totals in step with the payments table and answers revenue questions from it. Every
+// change goes through PaymentService inside the same transaction as the payment write, so the aggregates
+// commit or roll back together with the payment. rebuild() recomputes everything from scratch.
+//
+// Bucket changes are netted per transaction and written just before it commits, in LOCK_ORDER. Writing them as
+// each payment changed took bucket locks in payment order, so two batches touching the same buckets could
+// deadlock; with every transaction locking its payments first and its buckets last in one order, they cannot.
+@Service
+@Transactional(readOnly = true)
+public class PaymentTotalsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentTotalsService.class);
+
+    // Row shards per bucket; changing it only requires a rebuild
+    static final int SHARDS = 16;
+
+    private static final String DEFAULT_CURRENCY = "USD";
+
+    // Bucket order of every write, so two transactions never lock buckets in opposite orders; amounts are ignored
+    private static final Comparator<Contribution> LOCK_ORDER = Comparator
+            .comparing(Contribution::day)
+            .thenComparing(Contribution::status)
+            .thenComparing(Contribution::purpose)
+            .thenComparing(Contribution::currency)
+            .thenComparingInt(Contribution::shard);
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Value("${pawhaven.payments.totals.max-buckets:1000}")
+    private int maxBuckets;
+
+    // A payment's share of the aggregates, captured before it changes
+    public record Contribution(LocalDate day, PaymentStatus status, String purpose, String currency, int shard,
+                               BigDecimal amount) {
+    }
+
+    // Capture what a payment currently contributes
+    public Contribution contributionOf(Payment payment) {
+        return new Contribution(
+                payment.getDate() != null ? payment.getDate().toLocalDate() : LocalDate.now(),
+                payment.getStatus() != null ? payment.getStatus() : PaymentStatus.PENDING,
+                payment.getPurpose(),
+                payment.getCurrency() != null ? payment.getCurrency() : DEFAULT_CURRENCY,
+                (int) Math.floorMod(payment.getId(), (long) SHARDS),
+                payment.getAmount() != null ? BigDecimal.valueOf(payment.getAmount()) : BigDecimal.ZERO);
+    }
+
+    // Count a newly created payment
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void added(Payment payment) {
+        apply(contributionOf(payment), 1);
+    }
+
+    // Uncount a deleted payment
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removed(Contribution before) {
+        apply(before, -1);
+    }
+
+    // Move a payment from its old bucket to its current one
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void changed(Contribution before, Payment payment) {
+        Contribution after = contributionOf(payment);
+        if (before.equals(after)) {
+            return;
+        }
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    // First start after the aggregates were introduced: fill them from the existing payments
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeIfEmpty() {
+        if (totalsRepository.count() == 0 && totalsRepository.countPayments() > 0) {
+            rebuild();
+        }
+    }
+
+    // Throw the aggregates away and recompute them from the payments table in one transaction
+    @Transactional
+    public int rebuild() {
+        long started = System.nanoTime();
+        totalsRepository.deleteAllRows();
+        int buckets = totalsRepository.rebuildFromPayments(SHARDS);
+        log.info("Rebuilt payment totals: {} bucket rows in {} ms", buckets, (System.nanoTime() - started) / 1_000_000);
+        return buckets;
+    }
+
+    // Total amount of all payments in a status
+    public BigDecimal totalByStatus(PaymentStatus status) {
+        return totalsRepository.sumAmountByStatus(status);
+    }
+
+    // Total amount for every status in one grouped query; statuses without payments are zero
+    public Map<PaymentStatus, BigDecimal> totalsByStatus() {
+        Map<PaymentStatus, BigDecimal> totals = new EnumMap<>(PaymentStatus.class);
+        for (PaymentStatus status : PaymentStatus.values()) {
+            totals.put(status, BigDecimal.ZERO);
+        }
+        for (Object[] row : totalsRepository.sumAmountGroupedByStatus()) {
+            totals.put((PaymentStatus) row[0], (BigDecimal) row[1]);
+        }
+        return totals;
+    }
+
+    // Revenue per day, ISO week or month between two dates (inclusive); empty periods are included as zero
+    public List<RevenueBucket> series(PaymentStatus status, LocalDate from, LocalDate to, String granularity,
+                                      String purpose, String currency) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Function<LocalDate, LocalDate> periodStart;
+        Function<LocalDate, String> label;
+        ChronoUnit step;
+        switch (granularity == null ? "day" : granularity.toLowerCase()) {
+            case "day" -> {
+                periodStart = Function.identity();
+                label = LocalDate::toString;
+                step = ChronoUnit.DAYS;
+            }
+            case "week" -> {
+                periodStart = day -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                label = day -> String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR),
+                        day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                step = ChronoUnit.WEEKS;
+            }
+            case "month" -> {
+                periodStart = day -> day.withDayOfMonth(1);
+                label = day -> YearMonth.from(day).toString();
+                step = ChronoUnit.MONTHS;
+            }
+            default -> throw new IllegalArgumentException("Unsupported granularity: " + granularity);
+        }
+
+        LocalDate first = periodStart.apply(from);
+        if (step.between(first, periodStart.apply(to)) >= maxBuckets) {
+            throw new IllegalArgumentException("Range covers more than " + maxBuckets + " " + step.toString().toLowerCase());
+        }
+
+        Map<LocalDate, long[]> counts = new HashMap<>();
+        Map<LocalDate, BigDecimal> amounts = new HashMap<>();
+        for (Object[] row : totalsRepository.sumByDay(status, from, to, purpose, currency)) {
+            LocalDate period = periodStart.apply((LocalDate) row[0]);
+            counts.computeIfAbsent(period, key -> new long[1])[0] += ((Number) row[1]).longValue();
+            amounts.merge(period, (BigDecimal) row[2], BigDecimal::add);
+        }
+
+        List<RevenueBucket> series = new ArrayList<>();
+        for (LocalDate period = first; !period.isAfter(to); period = period.plus(1, step)) {
+            long[] count = counts.get(period);
+            series.add(new RevenueBucket(label.apply(period), count == null ? 0 : count[0],
+                    amounts.getOrDefault(period, BigDecimal.ZERO)));
+        }
+        return series;
+    }
+
+    // Totals between two dates grouped by status, purpose or currency; status narrows the purpose and currency views
+    public List<RevenueBucket> breakdown(String dimension, PaymentStatus status, LocalDate from, LocalDate to) {
+        Function<Object[], String> key = switch (dimension == null ? "purpose" : dimension.toLowerCase()) {
+            case "status" -> row -> row[0].toString();
+            case "purpose" -> row -> (String) row[1];
+            case "currency" -> row -> (String) row[2];
+            default -> throw new IllegalArgumentException("Unsupported breakdown: " + dimension);
+        };
+        boolean byStatus = "status".equalsIgnoreCase(dimension);
+
+        Map<String, long[]> counts = new LinkedHashMap<>();
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>();
+        for (Object[] row : totalsRepository.sumByStatusPurposeCurrency(from, to)) {
+            if (!byStatus && status != null && row[0] != status) {
+                continue;
+            }
+            String bucket = key.apply(row);
+            counts.computeIfAbsent(bucket, k -> new long[1])[0] += ((Number) row[3]).longValue();
+            amounts.merge(bucket, (BigDecimal) row[4], BigDecimal::add);
+        }
+
+        List<RevenueBucket> breakdown = new ArrayList<>();
+        counts.forEach((bucket, count) -> breakdown.add(new RevenueBucket(bucket, count[0], amounts.get(bucket))));
+        breakdown.sort(Comparator.comparing(RevenueBucket::amount).reversed());
+        return breakdown;
+    }
+
+    // Add a change to the current transaction's pending bucket deltas
+    private void apply(Contribution contribution, int sign) {
+        PendingTotals pending = (PendingTotals) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingTotals();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(contribution, sign);
+    }
+
+    // One transaction's net change per bucket, kept sorted in LOCK_ORDER
+    private final class PendingTotals implements TransactionSynchronization {
+
+        private final Map<Contribution, Delta> deltas = new TreeMap<>(LOCK_ORDER);
+
+        private void add(Contribution contribution, int sign) {
+            Delta delta = deltas.computeIfAbsent(contribution, key -> new Delta());
+            delta.count += sign;
+            delta.amount = sign > 0 ? delta.amount.add(contribution.amount()) : delta.amount.subtract(contribution.amount());
+        }
+
+        // A REQUIRES_NEW transaction started inside this one collects its own deltas
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(PaymentTotalsService.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(PaymentTotalsService.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            deltas.forEach((bucket, delta) -> {
+                if (delta.count != 0 || delta.amount.signum() != 0) {
+                    totalsRepository.upsert(bucket.day(), bucket.status().name(), bucket.purpose(), bucket.currency(),
+                            bucket.shard(), delta.count, delta.amount);
+                }
+            });
+            deltas.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(PaymentTotalsService.this);
+        }
+    }
+
+    private static final class Delta {
+
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+    }
+}
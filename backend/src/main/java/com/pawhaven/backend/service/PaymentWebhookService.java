@@ -0,0 +1,84 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.PaymentWebhookRequest;
+import com.pawhaven.backend.model.PaymentWebhookEvent;
+import com.pawhaven.backend.repository.PaymentWebhookEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+// Applies gateway webhooks. The event id is recorded in the same transaction as the status change, so a
+// redelivered event is either rejected as a duplicate or, if the first delivery rolled back, applied once.
+@Service
+public class PaymentWebhookService {
+
+    public enum Result {
+        PROCESSED,
+        DUPLICATE,
+        // The payment had already been settled by the direct gateway reply or an earlier event
+        IGNORED
+    }
+
+    @Autowired
+    private PaymentWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Record and apply one webhook delivery
+    public Result handle(PaymentWebhookRequest request) {
+        if (request.eventId() == null || request.eventId().isBlank()
+                || request.tranId() == null || request.tranId().isBlank()) {
+            throw new IllegalArgumentException("eventId and tranId are required");
+        }
+        boolean approved;
+        if (PaymentWebhookRequest.SUCCEEDED.equals(request.type())) {
+            approved = true;
+        } else if (PaymentWebhookRequest.FAILED.equals(request.type())) {
+            approved = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported webhook type: " + request.type());
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                if (webhookEventRepository.existsById(request.eventId())) {
+                    return Result.DUPLICATE;
+                }
+                entityManager.persist(new PaymentWebhookEvent(request.eventId(), request.tranId(), request.type(),
+                        LocalDateTime.now()));
+                entityManager.flush();
+                return paymentService.applyGatewayOutcome(request.tranId(), approved, request.reason())
+                        ? Result.PROCESSED
+                        : Result.IGNORED;
+            });
+        } catch (PersistenceException | DataIntegrityViolationException e) {
+            // A concurrent delivery of the same event committed first
+            if (webhookEventRepository.existsById(request.eventId())) {
+                return Result.DUPLICATE;
+            }
+            throw e;
+        }
+    }
+}
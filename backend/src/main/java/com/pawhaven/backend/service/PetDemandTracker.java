@@ -0,0 +1,262 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.TrendingPet;
+import com.pawhaven.backend.model.PetDemand;
+import com.pawhaven.backend.repository.PetDemandRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Recent demand per pet: detail views and applications, each decaying exponentially with a configurable half-life.
+// Events are added pre-scaled by 2^((t - landmark) / halfLife), so every counter shares one decay factor and the
+// ranking never has to touch them on read; a flush rebases the counters onto a new landmark. The top pets are kept
+// as a ready-made snapshot, so trending reads are O(K). Flushes add the decayed deltas into pet_demand, which seeds
+// the counters again after a restart.
+@Component
+public class PetDemandTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(PetDemandTracker.class);
+
+    @Autowired
+    private PetDemandRepository petDemandRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pawhaven.pets.demand.half-life-minutes:360}")
+    private double halfLifeMinutes;
+
+    // One application counts as this many detail views in the ranking
+    @Value("${pawhaven.pets.demand.application-weight:10}")
+    private double applicationWeight;
+
+    @Value("${pawhaven.pets.demand.max-trending:100}")
+    private int maxTrending;
+
+    // Counters that have decayed below this score, with nothing left to flush, are dropped
+    @Value("${pawhaven.pets.demand.min-score:0.01}")
+    private double minScore;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    // Shared by recorders; exclusive while a flush rebases every counter
+    private final ReentrantReadWriteLock rebaseLock = new ReentrantReadWriteLock();
+
+    private volatile long landmarkMillis;
+
+    private volatile List<TrendingPet> trending = List.of();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        // Flushes commit on their own, whichever thread triggers them
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        meterRegistry.gauge("pawhaven.pets.demand.tracked", counters, Map::size);
+        loadFromTable();
+    }
+
+    // A pet detail page was viewed
+    public void recordView(Long petId) {
+        record(petId, 1, 0);
+    }
+
+    // Someone applied to adopt the pet
+    public void recordApplication(Long petId) {
+        record(petId, 0, 1);
+    }
+
+    // Highest-demand pets first, as of the last ranking refresh
+    public List<TrendingPet> getTrending(int limit) {
+        List<TrendingPet> snapshot = trending;
+        return List.copyOf(snapshot.subList(0, Math.max(0, Math.min(limit, snapshot.size()))));
+    }
+
+    // Drop a deleted pet from the counters, the ranking and the table
+    public void forget(Long petId) {
+        counters.remove(petId);
+        trending = trending.stream().filter(pet -> !pet.petId().equals(petId)).toList();
+        petDemandRepository.deleteById(petId);
+    }
+
+    // Rebuild the ranking with a bounded min-heap: O(N log K) in the background instead of on every read
+    @Scheduled(fixedDelayString = "${pawhaven.pets.demand.ranking-refresh-ms:5000}")
+    public void refreshTrending() {
+        int k = Math.max(1, maxTrending);
+        PriorityQueue<TrendingPet> top = new PriorityQueue<>(k + 1, Comparator.comparingDouble(TrendingPet::score));
+        rebaseLock.readLock().lock();
+        try {
+            double decay = 1 / growth(System.currentTimeMillis());
+            for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                double views = counter.views.sum() * decay;
+                double applications = counter.applications.sum() * decay;
+                double score = views + applicationWeight * applications;
+                if (top.size() < k || score > top.peek().score()) {
+                    top.add(new TrendingPet(entry.getKey(), score, views, applications));
+                    if (top.size() > k) {
+                        top.poll();
+                    }
+                }
+            }
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+        List<TrendingPet> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble(TrendingPet::score).reversed()
+                .thenComparing(TrendingPet::petId));
+        trending = List.copyOf(ranked);
+    }
+
+    // Rebase the counters onto now, then add everything recorded since the last flush into pet_demand
+    @Scheduled(fixedDelayString = "${pawhaven.pets.demand.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        Map<Long, double[]> deltas = new HashMap<>();
+        rebaseLock.writeLock().lock();
+        try {
+            double decay = 1 / growth(now);
+            counters.entrySet().removeIf(entry -> {
+                Counter counter = entry.getValue();
+                double views = rescale(counter.views, decay);
+                double applications = rescale(counter.applications, decay);
+                double pendingViews = counter.pendingViews.sumThenReset() * decay;
+                double pendingApplications = counter.pendingApplications.sumThenReset() * decay;
+                if (pendingViews > 0 || pendingApplications > 0) {
+                    deltas.put(entry.getKey(), new double[]{pendingViews, pendingApplications});
+                    return false;
+                }
+                return views + applicationWeight * applications < minScore;
+            });
+            landmarkMillis = now;
+        } finally {
+            rebaseLock.writeLock().unlock();
+        }
+
+        LocalDateTime scoredAt = toDateTime(now);
+        double halfLifeSeconds = halfLifeMinutes * 60;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                deltas.forEach((petId, delta) ->
+                        petDemandRepository.addDecayed(petId, delta[0], delta[1], scoredAt, halfLifeSeconds));
+                // Twenty half-lives leave less than a millionth of the score
+                petDemandRepository.deleteScoredBefore(scoredAt.minusSeconds(Math.round(halfLifeSeconds * 20)));
+            });
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them
+            log.warn("Flushing demand for {} pets failed: {}", deltas.size(), e.getMessage());
+            rebaseLock.readLock().lock();
+            try {
+                double scale = growth(now);
+                deltas.forEach((petId, delta) -> {
+                    Counter counter = counters.computeIfAbsent(petId, id -> new Counter());
+                    counter.pendingViews.add(delta[0] * scale);
+                    counter.pendingApplications.add(delta[1] * scale);
+                });
+            } finally {
+                rebaseLock.readLock().unlock();
+            }
+        }
+        refreshTrending();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    // Replace the counters with the flushed scores, decayed to now
+    synchronized void loadFromTable() {
+        List<PetDemand> rows = petDemandRepository.findForExistingPets();
+        long now = System.currentTimeMillis();
+        rebaseLock.writeLock().lock();
+        try {
+            counters.clear();
+            landmarkMillis = now;
+            for (PetDemand row : rows) {
+                long age = Math.max(0, Duration.between(row.getScoredAt(), toDateTime(now)).toMillis());
+                double decay = Math.pow(0.5, age / (halfLifeMinutes * 60_000));
+                Counter counter = new Counter();
+                counter.views.add(row.getViewScore() * decay);
+                counter.applications.add(row.getApplicationScore() * decay);
+                counters.put(row.getPetId(), counter);
+            }
+        } finally {
+            rebaseLock.writeLock().unlock();
+        }
+        refreshTrending();
+    }
+
+    private void record(Long petId, double views, double applications) {
+        if (petId == null) {
+            return;
+        }
+        rebaseLock.readLock().lock();
+        try {
+            double scale = growth(System.currentTimeMillis());
+            Counter counter = counters.computeIfAbsent(petId, id -> new Counter());
+            if (views > 0) {
+                counter.views.add(views * scale);
+                counter.pendingViews.add(views * scale);
+            }
+            if (applications > 0) {
+                counter.applications.add(applications * scale);
+                counter.pendingApplications.add(applications * scale);
+            }
+        } finally {
+            rebaseLock.readLock().unlock();
+        }
+    }
+
+    // Weight of an event at time millis relative to one at the landmark
+    private double growth(long millis) {
+        return Math.pow(2, (millis - landmarkMillis) / (halfLifeMinutes * 60_000));
+    }
+
+    // Only called under the write lock, so nothing is added between the read and the reset
+    private static double rescale(DoubleAdder adder, double factor) {
+        double value = adder.sumThenReset() * factor;
+        adder.add(value);
+        return value;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    // Scores relative to the current landmark; pending holds what has not been flushed yet
+    private static final class Counter {
+
+        private final DoubleAdder views = new DoubleAdder();
+        private final DoubleAdder applications = new DoubleAdder();
+        private final DoubleAdder pendingViews = new DoubleAdder();
+        private final DoubleAdder pendingApplications = new DoubleAdder();
+    }
+}
@@ -0,0 +1,119 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.PetQueryCriteria;
+import com.pawhaven.backend.dto.PetQueryResult;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.repository.PetSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Transactional(readOnly = true)
+public class PetQueryService {
+
+    // Only these attributes may be used for server-side sorting
+    private static final Set<String> SORTABLE_FIELDS = Set.of("name", "age", "adoptionFee", "createdAt");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${pawhaven.pets.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${pawhaven.pets.page.max-size:100}")
+    private int maxPageSize;
+
+    // Run the combined filter: one grouped query for facets and total, one query for the page itself
+    public PetQueryResult query(PetQueryCriteria criteria, int page, Integer size, String sortField, String direction) {
+        if (sortField != null && !SORTABLE_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        }
+        int pageNumber = Math.max(page, 0);
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        int offset;
+        try {
+            offset = Math.multiplyExact(pageNumber, pageSize);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Page out of range: " + page);
+        }
+        Specification<Pet> specification = PetSpecifications.matching(criteria);
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        long total = computeFacets(specification, facets);
+
+        List<Pet> content = total > offset
+                ? fetchPage(specification, offset, pageSize, sortField, direction)
+                : List.of();
+        int totalPages = (int) ((total + pageSize - 1) / pageSize);
+
+        return new PetQueryResult(content, pageNumber, pageSize, total, totalPages, facets);
+    }
+
+    // Count matches per (species, size, gender) combination and roll them up into per-attribute facets
+    private long computeFacets(Specification<Pet> specification, Map<String, Map<String, Long>> facets) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Pet> root = query.from(Pet.class);
+        query.multiselect(root.get("species"), root.get("size"), root.get("gender"), cb.count(root))
+                .where(specification.toPredicate(root, query, cb))
+                .groupBy(root.get("species"), root.get("size"), root.get("gender"));
+
+        Map<String, Long> species = new LinkedHashMap<>();
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        Map<String, Long> genders = new LinkedHashMap<>();
+        long total = 0;
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            long count = row.get(3, Long.class);
+            total += count;
+            addFacet(species, row.get(0), count);
+            addFacet(sizes, row.get(1), count);
+            addFacet(genders, row.get(2), count);
+        }
+
+        facets.put("species", species);
+        facets.put("size", sizes);
+        facets.put("gender", genders);
+        return total;
+    }
+
+    private void addFacet(Map<String, Long> facet, Object value, long count) {
+        if (value != null) {
+            facet.merge(value.toString(), count, Long::sum);
+        }
+    }
+
+    // Fetch one page of entities in the requested order, with id as a stable tie-breaker
+    private List<Pet> fetchPage(Specification<Pet> specification, int offset, int size, String sortField, String direction) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Pet> query = cb.createQuery(Pet.class);
+        Root<Pet> root = query.from(Pet.class);
+        query.select(root).where(specification.toPredicate(root, query, cb));
+
+        boolean ascending = "asc".equalsIgnoreCase(direction);
+        List<Order> orders = new ArrayList<>();
+        String field = sortField != null ? sortField : "createdAt";
+        orders.add(ascending ? cb.asc(root.get(field)) : cb.desc(root.get(field)));
+        orders.add(ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        query.orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(size)
+                .getResultList();
+    }
+}
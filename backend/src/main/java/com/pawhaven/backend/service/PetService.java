@@ -1,14 +1,31 @@
 package com.pawhaven.backend.service;
 
+import com.pawhaven.backend.dto.CursorPage;
+import com.pawhaven.backend.dto.PetSummary;
+import com.pawhaven.backend.exception.VersionConflictException;
 import com.pawhaven.backend.model.Pet;
 import com.pawhaven.backend.model.Shelter;
 import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.search.PetSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -17,6 +34,24 @@ public class PetService {
     @Autowired
     private PetRepository petRepository;
     
+    @Autowired
+    private PetSearchIndex petSearchIndex;
+    
+    @Autowired
+    private PetDemandTracker petDemandTracker;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${pawhaven.pets.page.default-size:20}")
+    private int defaultPageSize;
+    
+    @Value("${pawhaven.pets.page.max-size:100}")
+    private int maxPageSize;
+    
+    // Newest first; id breaks ties between pets created in the same instant
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    
     // Create or update pet
     public Pet savePet(Pet pet) {
         return petRepository.save(pet);
@@ -37,6 +72,15 @@ public class PetService {
         return petRepository.findByAvailableTrue();
     }
     
+    // Summary list views
+    public List<PetSummary> getAllPetSummaries() {
+        return petRepository.findAllSummaries();
+    }
+    
+    public List<PetSummary> getAvailablePetSummaries() {
+        return petRepository.findAvailableSummaries();
+    }
+    
     // Get pets by species
     public List<Pet> getPetsBySpecies(String species) {
         return petRepository.findBySpecies(species);
@@ -77,15 +121,91 @@ public class PetService {
         return petRepository.findRecentAvailablePets();
     }
     
+    // Full-text search over name, breed, color, description and shelter city, best match first
+    public List<Pet> searchPets(String query, int limit, boolean availableOnly) {
+        // Availability is filtered inside the index, before the top limit is taken
+        List<Long> rankedIds = petSearchIndex.search(query, Math.min(limit, maxPageSize), availableOnly);
+        if (rankedIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Pet> pets = petRepository.findAllById(rankedIds).stream()
+                .collect(Collectors.toMap(Pet::getId, Function.identity()));
+        return rankedIds.stream()
+                .map(pets::get)
+                .filter(pet -> pet != null && (!availableOnly || Boolean.TRUE.equals(pet.getAvailable())))
+                .toList();
+    }
+    
+    // Autocomplete search terms from a prefix
+    public List<String> suggestSearchTerms(String prefix, int limit) {
+        return petSearchIndex.suggest(prefix, limit);
+    }
+    
     // Count available pets by species
     public long countAvailablePetsBySpecies(String species) {
         return petRepository.countAvailableBySpecies(species);
     }
     
-    // Update pet
-    public Pet updatePet(Long id, Pet petDetails) {
+    // Page through all pets
+    public CursorPage<Pet> getAllPetsPage(String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findAllBy(position, KEYSET_SORT, limit));
+    }
+    
+    // Page through available pets
+    public CursorPage<Pet> getAvailablePetsPage(String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findByAvailableTrue(position, KEYSET_SORT, limit));
+    }
+    
+    // Page through pets by species
+    public CursorPage<Pet> getPetsBySpeciesPage(String species, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findBySpecies(species, position, KEYSET_SORT, limit));
+    }
+    
+    // Page through available pets by species
+    public CursorPage<Pet> getAvailablePetsBySpeciesPage(String species, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findBySpeciesAndAvailableTrue(species, position, KEYSET_SORT, limit));
+    }
+    
+    // Page through breed search results
+    public CursorPage<Pet> searchPetsByBreedPage(String breed, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findByBreedContainingIgnoreCase(breed, position, KEYSET_SORT, limit));
+    }
+    
+    // Page through name search results
+    public CursorPage<Pet> searchPetsByNamePage(String name, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findByNameContainingIgnoreCase(name, position, KEYSET_SORT, limit));
+    }
+    
+    // Page through pets by shelter
+    public CursorPage<Pet> getPetsByShelterPage(Shelter shelter, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findByShelter(shelter, position, KEYSET_SORT, limit));
+    }
+    
+    // Page through available pets by shelter
+    public CursorPage<Pet> getAvailablePetsByShelterPage(Shelter shelter, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findByShelterAndAvailableTrue(shelter, position, KEYSET_SORT, limit));
+    }
+    
+    // Page through available pets in an age range
+    public CursorPage<Pet> getPetsByAgeRangePage(Integer minAge, Integer maxAge, String cursor, Integer size) {
+        return page(cursor, size, (position, limit) -> petRepository.findByAgeBetweenAndAvailableTrue(minAge, maxAge, position, KEYSET_SORT, limit));
+    }
+    
+    // Clamp the page size, run the keyset query and wrap the window with its continuation token
+    private CursorPage<Pet> page(String cursor, Integer size, BiFunction<ScrollPosition, Limit, Window<Pet>> query) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        Window<Pet> window = query.apply(PetPageCursor.decode(cursor), Limit.of(pageSize));
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? PetPageCursor.encode((KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPage<>(window.getContent(), window.size(), nextCursor != null, nextCursor);
+    }
+    
+    // Update pet; with an expected version the update only applies if nobody changed the pet since
+    public Pet updatePet(Long id, Pet petDetails, Long expectedVersion) {
         Pet pet = petRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Pet not found with id: " + id));
+        VersionConflictException.check("Pet", id, expectedVersion, pet.getVersion());
         
         pet.setName(petDetails.getName());
         pet.setSpecies(petDetails.getSpecies());
@@ -114,6 +234,17 @@ public class PetService {
         return petRepository.save(pet);
     }
     
+    // Take a pet for an approved adoption under a row lock. Concurrent approvals for the same pet queue up on the
+    // lock, and the refresh makes every one after the first see it is already gone.
+    public Pet adoptPet(Pet pet) {
+        entityManager.refresh(pet, LockModeType.PESSIMISTIC_WRITE);
+        if (!Boolean.TRUE.equals(pet.getAvailable())) {
+            throw new IllegalStateException("Pet " + pet.getId() + " is no longer available for adoption");
+        }
+        pet.setAvailable(false);
+        return pet;
+    }
+    
     // Mark pet as available
     public Pet markPetAsAvailable(Long id) {
         Pet pet = petRepository.findById(id)
@@ -125,5 +256,6 @@ public class PetService {
     // Delete pet
     public void deletePet(Long id) {
         petRepository.deleteById(id);
+        petDemandTracker.forget(id);
     }
 }
@@ -0,0 +1,240 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.repository.AccessoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory stock counters for hot accessories. Purchases reserve against the counter under a striped lock
+// and the accumulated decrements are written back per accessory under a row lock. Counters are local to this
+// instance, so the buffer is only safe for single-node deployments and is off by default.
+//
+// Lock order is always stripe, then row: a caller must not take a stripe lock again while its transaction
+// still holds the row lock from seeding, which is why reserve() reports the stock left itself.
+//
+// Anything that changes stock directly calls invalidate() first. Inside a transaction that also fences the id
+// until the transaction completes: reservations report UNBUFFERED and no slot is seeded from the row before the
+// direct change has committed, so the next seed sees its result.
+@Component
+public class StockReservationBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationBuffer.class);
+
+    @Autowired
+    private AccessoryRepository accessoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Value("${pawhaven.accessories.stock-buffer.stripes:64}")
+    private int stripeCount;
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+    // Ids being changed directly by open transactions, with how many hold each; only changed under the stripe lock
+    private final Map<Long, Integer> fenced = new ConcurrentHashMap<>();
+
+    private ReentrantLock[] stripes;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Counter oversold;
+
+    public enum Outcome {
+        RESERVED,
+        INSUFFICIENT,
+        // A transaction is changing the row directly; update the row instead
+        UNBUFFERED
+    }
+
+    // Outcome of a reservation and the buffered stock left afterwards
+    public record Reservation(Outcome outcome, int available) {
+
+        public boolean reserved() {
+            return outcome == Outcome.RESERVED;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        // Write-backs commit on their own so a caller's rollback can never drop decrements already promised
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        oversold = Counter.builder("pawhaven.accessories.stock-buffer.oversold")
+                .description("Units reserved through the buffer that the row no longer had stock for at write-back")
+                .register(meterRegistry);
+    }
+
+    // Take quantity from the in-memory counter, seeding it from the database on first use. The seed is a locking
+    // read, so it sees the latest committed stock even inside a caller's older snapshot
+    public Reservation reserve(Long accessoryId, int quantity) {
+        ReentrantLock lock = stripe(accessoryId);
+        lock.lock();
+        try {
+            if (fenced.containsKey(accessoryId)) {
+                return new Reservation(Outcome.UNBUFFERED, 0);
+            }
+            Slot slot = slots.get(accessoryId);
+            if (slot == null) {
+                int stock = accessoryRepository.lockQuantityById(accessoryId)
+                        .orElseThrow(() -> new RuntimeException("Accessory not found with id: " + accessoryId));
+                slot = new Slot(stock);
+                slots.put(accessoryId, slot);
+            }
+            if (slot.available < quantity) {
+                return new Reservation(Outcome.INSUFFICIENT, slot.available);
+            }
+            slot.available -= quantity;
+            slot.pending += quantity;
+            return new Reservation(Outcome.RESERVED, slot.available);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stock left after reservations not yet written back, or null if the accessory is not buffered
+    public Integer available(Long accessoryId) {
+        ReentrantLock lock = stripe(accessoryId);
+        lock.lock();
+        try {
+            Slot slot = slots.get(accessoryId);
+            return slot == null ? null : slot.available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Write back pending reservations for one accessory and resync its counter with the table
+    public void flush(Long accessoryId) {
+        ReentrantLock lock = stripe(accessoryId);
+        lock.lock();
+        try {
+            Slot slot = slots.get(accessoryId);
+            if (slot == null || slot.pending == 0) {
+                return;
+            }
+            int pending = slot.pending;
+            // Lock the row and take as much of the pending amount as it still has; the units were already promised
+            // to buyers, so a shortfall is recorded as oversold rather than silently dropped
+            int[] written = transactionTemplate.execute(status -> {
+                Integer stock = accessoryRepository.lockQuantityById(accessoryId).orElse(null);
+                if (stock == null) {
+                    return null;
+                }
+                int applied = Math.min(pending, Math.max(0, stock));
+                if (applied > 0) {
+                    accessoryRepository.decrementStock(accessoryId, applied);
+                    cacheService.evictAccessoryStock(accessoryId, stock == applied);
+                }
+                return new int[]{applied, stock - applied};
+            });
+            if (written == null) {
+                log.error("Accessory {} was deleted with {} reserved units not yet written back", accessoryId, pending);
+                oversold.increment(pending);
+                slots.remove(accessoryId);
+                return;
+            }
+            int shortfall = pending - written[0];
+            if (shortfall > 0) {
+                // Stock was lowered outside the buffer after these units were reserved
+                log.error("Oversold accessory {} by {} units: {} reserved, only {} left in stock",
+                        accessoryId, shortfall, pending, written[0]);
+                oversold.increment(shortfall);
+            }
+            slot.pending = 0;
+            slot.available = Math.max(0, written[1]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Write back pending reservations and forget the counter, before stock is changed by other means. Call it
+    // before locking the row: the write-back runs in its own transaction and would wait on the caller's lock
+    public void invalidate(Long accessoryId) {
+        ReentrantLock lock = stripe(accessoryId);
+        lock.lock();
+        try {
+            flush(accessoryId);
+            slots.remove(accessoryId);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                fenced.merge(accessoryId, 1, Integer::sum);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        unfence(accessoryId);
+                    }
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pawhaven.accessories.stock-buffer.flush-interval-ms:200}")
+    public void flushAll() {
+        for (Long accessoryId : slots.keySet()) {
+            try {
+                flush(accessoryId);
+            } catch (RuntimeException e) {
+                // Pending units stay in the slot and are retried on the next run
+                log.warn("Stock write-back for accessory {} failed: {}", accessoryId, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushAll();
+    }
+
+    private void unfence(Long accessoryId) {
+        ReentrantLock lock = stripe(accessoryId);
+        lock.lock();
+        try {
+            fenced.computeIfPresent(accessoryId, (id, holders) -> holders == 1 ? null : holders - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(Long accessoryId) {
+        return stripes[Math.floorMod(accessoryId.hashCode(), stripes.length)];
+    }
+
+    // Counter state for one accessory; only touched while holding its stripe lock
+    private static final class Slot {
+
+        private int available;
+        private int pending;
+
+        private Slot(int available) {
+            this.available = available;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.pawhaven.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+
+// Time-ordered transaction ids in ULID layout: 48 bits of epoch milliseconds followed by 80 random bits,
+// Crockford base32 encoded. Within one millisecond the random part is incremented instead of redrawn, so a
+// single instance never repeats an id, and ids from different instances collide only with 2^-80 odds.
+@Component
+public class TransactionIdGenerator {
+
+    private static final String PREFIX = "TXN-";
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private long lastMillis = -1;
+
+    // Random part as 16 high bits and 64 low bits
+    private int randomHigh;
+    private long randomLow;
+
+    // Next transaction id, e.g. TXN-01JAC4ZQ7N3W8X5V2T9R6P4M0K
+    public String next() {
+        long millis;
+        int high;
+        long low;
+        synchronized (this) {
+            millis = System.currentTimeMillis();
+            if (millis > lastMillis) {
+                lastMillis = millis;
+                randomHigh = random.nextInt() & 0xFFFF;
+                randomLow = random.nextLong();
+            } else {
+                // Same (or an earlier, after a clock step back) millisecond: stay on the last timestamp and count up
+                millis = lastMillis;
+                randomLow++;
+                if (randomLow == 0) {
+                    randomHigh = (randomHigh + 1) & 0xFFFF;
+                    if (randomHigh == 0) {
+                        // 2^80 ids in one millisecond; borrow the next one
+                        lastMillis = ++millis;
+                    }
+                }
+            }
+            high = randomHigh;
+            low = randomLow;
+        }
+        return PREFIX + encode(millis, high, low);
+    }
+
+    private static String encode(long millis, int high, long low) {
+        char[] out = new char[26];
+        // 10 characters of timestamp (50 bits, the top 2 always zero)
+        for (int i = 9; i >= 0; i--) {
+            out[i] = ALPHABET[(int) (millis & 31)];
+            millis >>>= 5;
+        }
+        // 16 characters of randomness (80 bits), least significant last
+        for (int i = 25; i >= 10; i--) {
+            out[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | ((long) (high & 31) << 59);
+            high >>>= 5;
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,171 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// In-memory unread notification counts per user, so the navbar badge can be served without a COUNT(*).
+// A user's count is loaded on first read and then kept current by the changes NotificationService reports
+// after each commit; a periodic pass re-counts cached users to correct any drift.
+@Component
+public class UnreadNotificationCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadNotificationCounter.class);
+
+    private static final long MISSING = -1;
+
+    // Change stamps per user stripe. A load or reconciliation only stores its result if no change for that
+    // stripe committed while it was querying, so a slow read can never overwrite a newer count.
+    private static final int STRIPES = 256;
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${pawhaven.notifications.unread-cache.max-users:100000}")
+    private int maxUsers;
+
+    private final LongLongHashMap counts = new LongLongHashMap(1024);
+
+    private final long[] stamps = new long[STRIPES];
+
+    // Unread count for a user, from memory when cached
+    public long get(long userId) {
+        long stamp;
+        synchronized (this) {
+            long cached = counts.get(userId, MISSING);
+            if (cached != MISSING) {
+                return cached;
+            }
+            stamp = stamps[stripe(userId)];
+        }
+        long loaded = notificationRepository.countUnreadByUserId(userId);
+        synchronized (this) {
+            if (stamps[stripe(userId)] == stamp) {
+                if (counts.size() >= maxUsers) {
+                    counts.clear();
+                }
+                counts.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    // Shift a user's count once the current transaction commits
+    public void adjust(long userId, long delta) {
+        afterCommit(() -> {
+            synchronized (this) {
+                stamps[stripe(userId)]++;
+                if (counts.addIfPresent(userId, delta, MISSING) < 0) {
+                    counts.remove(userId);
+                }
+            }
+        });
+    }
+
+    // Shift the counts of many users at once when the current transaction commits
+    public void adjustAll(long[] userIds, long delta) {
+        afterCommit(() -> {
+            synchronized (this) {
+                for (long userId : userIds) {
+                    stamps[stripe(userId)]++;
+                    if (counts.addIfPresent(userId, delta, MISSING) < 0) {
+                        counts.remove(userId);
+                    }
+                }
+            }
+        });
+    }
+
+    // Set a user's count once the current transaction commits
+    public void set(long userId, long count) {
+        afterCommit(() -> {
+            synchronized (this) {
+                stamps[stripe(userId)]++;
+                counts.put(userId, count);
+            }
+        });
+    }
+
+    // Forget a user's count once the current transaction commits, so the next read re-counts it
+    public void invalidate(long userId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                stamps[stripe(userId)]++;
+                counts.remove(userId);
+            }
+        });
+    }
+
+    // Re-count every cached user in grouped queries and fix entries that drifted
+    @Scheduled(fixedDelayString = "${pawhaven.notifications.unread-cache.reconcile-interval-ms:300000}",
+            initialDelayString = "${pawhaven.notifications.unread-cache.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long[] userIds;
+        long[] seen;
+        synchronized (this) {
+            userIds = counts.keys();
+            seen = stamps.clone();
+        }
+
+        int corrected = 0;
+        for (int from = 0; from < userIds.length; from += MAX_IDS_PER_QUERY) {
+            long[] chunk = Arrays.copyOfRange(userIds, from, Math.min(userIds.length, from + MAX_IDS_PER_QUERY));
+            Map<Long, Long> actual = new HashMap<>();
+            for (Object[] row : notificationRepository.countUnreadGroupedByUserIds(
+                    Arrays.stream(chunk).boxed().toList())) {
+                actual.put((Long) row[0], (Long) row[1]);
+            }
+            synchronized (this) {
+                for (long userId : chunk) {
+                    if (stamps[stripe(userId)] != seen[stripe(userId)]) {
+                        continue;
+                    }
+                    long expected = actual.getOrDefault(userId, 0L);
+                    long cached = counts.get(userId, MISSING);
+                    if (cached != MISSING && cached != expected) {
+                        counts.put(userId, expected);
+                        corrected++;
+                    }
+                }
+            }
+        }
+        if (corrected > 0) {
+            log.warn("Corrected {} drifted unread notification counters out of {}", corrected, userIds.length);
+        }
+    }
+
+    // Number of users currently cached
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId & (STRIPES - 1));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -79,7 +79,6 @@ public class UserService {
         
         user.setName(userDetails.getName());
         user.setEmail(userDetails.getEmail());
-        user.setPhone(userDetails.getPhone());
         user.setAddress(userDetails.getAddress());
         user.setProfileImage(userDetails.getProfileImage());
         user.setRole(userDetails.getRole());
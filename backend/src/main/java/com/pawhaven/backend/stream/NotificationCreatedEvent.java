@@ -0,0 +1,8 @@
+package com.pawhaven.backend.stream;
+
+import com.pawhaven.backend.model.Notification;
+
+// Published when a notification is created; delivered to the user's open streams after the transaction commits,
+// by which point the insert has run and generated fields such as the date are filled in
+public record NotificationCreatedEvent(Long userId, Notification notification) {
+}
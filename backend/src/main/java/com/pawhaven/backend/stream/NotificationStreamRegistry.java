@@ -0,0 +1,271 @@
+package com.pawhaven.backend.stream;
+
+import com.pawhaven.backend.dto.NotificationSummary;
+import com.pawhaven.backend.model.Notification;
+import com.pawhaven.backend.repository.NotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Open notification streams per user. Emitters are asynchronous, so an idle connection holds no thread; each
+// subscriber has a bounded outbound queue that is drained on a virtual thread only while there is something to
+// send. A subscriber whose queue overflows is disconnected and can resume from its Last-Event-ID.
+//
+// Event ids are StreamCursor positions. A notification can commit after one with a later date or id has already
+// been streamed, so a resume replays everything from replay-overlap-ms before the client's position: delivery is
+// at least once and clients drop notification ids they already have. When more than max-replay notifications are
+// due the replay is not sent; a "resync" event tells the client to reload its list instead.
+@Component
+public class NotificationStreamRegistry implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationStreamRegistry.class);
+
+    private static final String EVENT_NAME = "notification";
+
+    private static final String RESYNC_EVENT_NAME = "resync";
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Value("${pawhaven.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${pawhaven.notifications.stream.queue-capacity:256}")
+    private int queueCapacity;
+
+    @Value("${pawhaven.notifications.stream.max-subscribers:50000}")
+    private int maxSubscribers;
+
+    @Value("${pawhaven.notifications.stream.max-replay:100}")
+    private int maxReplay;
+
+    // Longest expected time between a notification's creation date and its commit
+    @Value("${pawhaven.notifications.stream.replay-overlap-ms:60000}")
+    private long replayOverlapMs;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean running;
+
+    // Open a stream for a user, first replaying anything that may have been committed after the given position
+    public SseEmitter subscribe(Long userId, StreamCursor lastEventId) {
+        if (!running) {
+            throw new IllegalStateException("Notification streams are shutting down");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many open notification streams");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter, queueCapacity);
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(error -> unregister(subscriber));
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        // Registered before the replay query runs, so nothing committed in between is lost; live events are
+        // held back until the replay has been queued
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        if (lastEventId == null) {
+            subscriber.finishReplay(List.of());
+            return emitter;
+        }
+        List<NotificationSummary> replay;
+        try {
+            LocalDateTime from = lastEventId.date() != null
+                    ? lastEventId.date()
+                    : notificationRepository.findDateById(lastEventId.id()).orElse(null);
+            replay = from == null
+                    ? null
+                    : notificationRepository.findSummariesByUserIdSince(userId,
+                            from.minus(replayOverlapMs, ChronoUnit.MILLIS), Limit.of(maxReplay + 1));
+        } catch (RuntimeException e) {
+            // The emitter never reaches Spring MVC, so its callbacks will not fire; release the slot here
+            unregister(subscriber);
+            emitter.completeWithError(e);
+            throw e;
+        }
+        if (replay == null || replay.size() > maxReplay) {
+            // Unknown position or too far behind: the client reloads and carries on from here
+            subscriber.resync();
+        } else {
+            subscriber.finishReplay(replay);
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        Set<Subscriber> userSubscribers = subscribers.get(event.userId());
+        if (userSubscribers != null) {
+            Notification notification = event.notification();
+            NotificationSummary summary = new NotificationSummary(notification.getId(), notification.getType(),
+                    notification.getMessage(), notification.getDate(), notification.getIsRead());
+            userSubscribers.forEach(subscriber -> subscriber.deliver(summary));
+        }
+    }
+
+    // Keep idle connections alive through proxies and detect clients that went away
+    @Scheduled(fixedDelayString = "${pawhaven.notifications.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(userSubscribers ->
+                userSubscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("ping"))));
+    }
+
+    // Number of open streams on this node
+    public int size() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // Close every stream before the web server's graceful shutdown starts waiting for open requests to finish;
+    // clients reconnect elsewhere and resume from their last event id
+    @Override
+    public void stop() {
+        running = false;
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void unregister(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.userId, (id, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private static SseEmitter.SseEventBuilder toEvent(NotificationSummary notification) {
+        return SseEmitter.event()
+                .id(StreamCursor.of(notification).toString())
+                .name(EVENT_NAME)
+                .data(notification, MediaType.APPLICATION_JSON);
+    }
+
+    // One open stream with its outbound queue
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // Live notifications that arrived while the replay was being loaded; null once replay is done
+        private List<NotificationSummary> held = new ArrayList<>();
+
+        private Subscriber(Long userId, SseEmitter emitter, int capacity) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private synchronized void deliver(NotificationSummary notification) {
+            if (held != null) {
+                held.add(notification);
+            } else {
+                offer(toEvent(notification));
+            }
+        }
+
+        private synchronized void finishReplay(List<NotificationSummary> replay) {
+            Set<Long> replayed = new HashSet<>();
+            for (NotificationSummary notification : replay) {
+                offer(toEvent(notification));
+                replayed.add(notification.id());
+            }
+            for (NotificationSummary notification : held) {
+                if (!replayed.contains(notification.id())) {
+                    offer(toEvent(notification));
+                }
+            }
+            held = null;
+        }
+
+        // Tell the client its position cannot be replayed; the event id moves it to now so the next resume
+        // starts here, and live notifications that arrived meanwhile follow
+        private synchronized void resync() {
+            offer(SseEmitter.event()
+                    .id(new StreamCursor(LocalDateTime.now(), 0).toString())
+                    .name(RESYNC_EVENT_NAME)
+                    .data(""));
+            held.forEach(notification -> offer(toEvent(notification)));
+            held = null;
+        }
+
+        // Queue an event without blocking the publisher; a full queue means the client cannot keep up
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                log.debug("Dropping slow notification stream for user {}", userId);
+                unregister(this);
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(event);
+                    } catch (IOException | IllegalStateException e) {
+                        unregister(this);
+                        emitter.completeWithError(e);
+                        queue.clear();
+                        draining.set(false);
+                        return;
+                    }
+                }
+                draining.set(false);
+                // Re-check: an event may have been queued after the last poll but before the flag was cleared
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
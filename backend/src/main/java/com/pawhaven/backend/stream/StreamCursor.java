@@ -0,0 +1,38 @@
+package com.pawhaven.backend.stream;
+
+import com.pawhaven.backend.dto.NotificationSummary;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+// Position in a user's notification stream, sent as the SSE event id in the form "<date>_<id>". Ids come from
+// pooled sequence blocks and are not in commit order, so resuming goes by creation date. A bare number is an id
+// from before the date was part of the cursor; its date is then looked up
+public record StreamCursor(LocalDateTime date, long id) {
+
+    private static final char SEPARATOR = '_';
+
+    public static StreamCursor of(NotificationSummary notification) {
+        return new StreamCursor(notification.date(), notification.id());
+    }
+
+    // Parse a Last-Event-ID value; throws IllegalArgumentException when it is neither form
+    public static StreamCursor parse(String value) {
+        String trimmed = value.trim();
+        int separator = trimmed.lastIndexOf(SEPARATOR);
+        try {
+            if (separator < 0) {
+                return new StreamCursor(null, Long.parseLong(trimmed));
+            }
+            return new StreamCursor(LocalDateTime.parse(trimmed.substring(0, separator)),
+                    Long.parseLong(trimmed.substring(separator + 1)));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid stream position: " + value, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return date + String.valueOf(SEPARATOR) + id;
+    }
+}
@@ -0,0 +1,63 @@
+package com.pawhaven.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.repository.PetRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HibernateCacheConfigTest {
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @AfterEach
+    void tearDown() {
+        petRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void secondLevelCacheUsesTheContextsOwnManager() {
+        JCacheRegionFactory regionFactory = (JCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getCache().getRegionFactory();
+        assertThat(regionFactory.getCacheManager()).isSameAs(hibernateCacheManager);
+
+        // Region settings still come from application.conf
+        CaffeineConfiguration<?, ?> pets = hibernateCacheManager.getCache("pets").getConfiguration(CaffeineConfiguration.class);
+        assertThat(pets.getMaximumSize()).hasValue(10_000L);
+    }
+
+    @Test
+    void closingTheProvidersDefaultManagerLeavesThisContextWorking() {
+        // What another context shutting down used to do to everyone sharing the default manager
+        Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager().close();
+
+        Pet pet = petRepository.save(new Pet("Cached", "Dog", Gender.MALE));
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        assertThat(petRepository.findById(pet.getId())).isPresent();
+        assertThat(petRepository.findById(pet.getId())).isPresent();
+        assertThat(hibernateCacheManager.isClosed()).isFalse();
+    }
+}
@@ -0,0 +1,97 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.Accessory;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AccessoryRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Its own database with a short lock wait, so a checkout blocked behind another cart gives up quickly
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:checkout-locks;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=300")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AccessoryCheckoutLockTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccessoryRepository accessoryRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private Accessory leash;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Buyer", "buyer@example.com", "secret", UserRole.USER));
+        leash = accessoryRepository.save(new Accessory("Leash", "Walking", 12.50, 5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAllInBatch();
+        accessoryRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void lockWaitTimeoutIsAConflictNotANotFound() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    accessoryRepository.findAllByIdForUpdate(List.of(leash.getId()));
+                    locked.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            mockMvc.perform(post("/api/accessories/checkout")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"userId\":" + user.getId() + ",\"items\":[{\"accessoryId\":" + leash.getId()
+                                    + ",\"quantity\":1}]}"))
+                    .andExpect(status().isConflict());
+        } finally {
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(accessoryRepository.findQuantityById(leash.getId())).contains(5);
+        assertThat(paymentRepository.count()).isZero();
+    }
+}
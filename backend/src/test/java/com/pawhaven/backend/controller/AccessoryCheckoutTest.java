@@ -0,0 +1,113 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.Accessory;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AccessoryRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AccessoryCheckoutTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccessoryRepository accessoryRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    private User user;
+    private Accessory leash;
+    private Accessory bowl;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Buyer", "buyer@example.com", "secret", UserRole.USER));
+        leash = accessoryRepository.save(new Accessory("Leash", "Walking", 12.50, 5));
+        bowl = accessoryRepository.save(new Accessory("Bowl", "Feeding", 4.25, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        paymentRepository.deleteAllInBatch();
+        accessoryRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void checkoutTakesStockAndCreatesPaymentTogether() throws Exception {
+        mockMvc.perform(post("/api/accessories/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cart(leash.getId(), 2, bowl.getId(), 1, leash.getId(), 1)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.amount").value(41.75))
+                .andExpect(jsonPath("$.tranId").isNotEmpty())
+                .andExpect(jsonPath("$.lines.length()").value(2))
+                .andExpect(jsonPath("$.lines[0].quantity").value(3))
+                .andExpect(jsonPath("$.lines[0].remainingStock").value(2));
+
+        assertThat(accessoryRepository.findQuantityById(leash.getId())).contains(2);
+        assertThat(accessoryRepository.findQuantityById(bowl.getId())).contains(1);
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void checkoutRollsBackEveryLineWhenOneIsShort() throws Exception {
+        mockMvc.perform(post("/api/accessories/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cart(leash.getId(), 1, bowl.getId(), 3)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.accessoryId").value(bowl.getId()))
+                .andExpect(jsonPath("$.available").value(2));
+
+        assertThat(accessoryRepository.findQuantityById(leash.getId())).contains(5);
+        assertThat(accessoryRepository.findQuantityById(bowl.getId())).contains(2);
+        assertThat(paymentRepository.count()).isZero();
+    }
+
+    @Test
+    void unknownAccessoryIsNotFound() throws Exception {
+        mockMvc.perform(post("/api/accessories/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(cart(leash.getId(), 1, 987_654_321L, 1)))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Accessory not found with id: 987654321"));
+
+        assertThat(accessoryRepository.findQuantityById(leash.getId())).contains(5);
+        assertThat(paymentRepository.count()).isZero();
+    }
+
+    private String cart(Object... idsAndQuantities) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < idsAndQuantities.length; i += 2) {
+            if (i > 0) {
+                items.append(',');
+            }
+            items.append("{\"accessoryId\":").append(idsAndQuantities[i])
+                    .append(",\"quantity\":").append(idsAndQuantities[i + 1]).append('}');
+        }
+        return "{\"userId\":" + user.getId() + ",\"paymentMethod\":\"CARD\",\"items\":[" + items + "]}";
+    }
+}
@@ -0,0 +1,148 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdoptionApplicationStatementCountTest {
+
+    private static final int USERS = 5;
+    private static final int PETS = 8;
+    private static final int APPLICATIONS = 40;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AdoptionApplicationRepository adoptionApplicationRepository;
+
+    private Statistics statistics;
+    private User firstUser;
+    private Pet firstPet;
+    private Long firstApplicationId;
+
+    @BeforeEach
+    void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(new User("User " + i, "user" + i + "@example.com", "secret" + i, UserRole.USER)));
+        }
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < PETS; i++) {
+            pets.add(petRepository.save(new Pet("Pet " + i, "Dog", Gender.MALE)));
+        }
+        for (int i = 0; i < APPLICATIONS; i++) {
+            AdoptionApplication application = adoptionApplicationRepository.save(
+                    new AdoptionApplication(users.get(i % USERS), pets.get(i % PETS), ApplicationStatus.PENDING));
+            if (firstApplicationId == null) {
+                firstApplicationId = application.getId();
+            }
+        }
+        firstUser = users.get(0);
+        firstPet = pets.get(0);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        adoptionApplicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void listAllUsesOneStatement() throws Exception {
+        mockMvc.perform(get("/api/adoption-applications"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(APPLICATIONS))
+                .andExpect(jsonPath("$[0].user.name").exists())
+                .andExpect(jsonPath("$[0].pet.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listByStatusUsesOneStatement() throws Exception {
+        mockMvc.perform(get("/api/adoption-applications/status/PENDING"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(APPLICATIONS));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recentUsesOneStatement() throws Exception {
+        mockMvc.perform(get("/api/adoption-applications/recent"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(APPLICATIONS));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void byUserLoadsUserThenApplications() throws Exception {
+        mockMvc.perform(get("/api/adoption-applications/user/{userId}", firstUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(APPLICATIONS / USERS));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void byPetLoadsPetThenApplications() throws Exception {
+        mockMvc.perform(get("/api/adoption-applications/pet/{petId}", firstPet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(APPLICATIONS / PETS));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void byIdUsesOneStatement() throws Exception {
+        mockMvc.perform(get("/api/adoption-applications/{id}", firstApplicationId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.user.name").exists())
+                .andExpect(jsonPath("$.pet.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,158 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdoptionApplicationSubmissionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    private User user;
+    private Pet pet;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Applicant", "applicant@example.com", "secret", UserRole.USER));
+        pet = petRepository.save(new Pet("Biscuit", "Dog", Gender.MALE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void submissionIsOneInsertWithoutReads() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(post("/api/adoption-applications")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(applicationJson(user.getId(), pet.getId())))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andExpect(jsonPath("$.petId").value(pet.getId()))
+                .andExpect(jsonPath("$.version").value(0));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+    }
+
+    @Test
+    void secondOpenApplicationForTheSamePetIsRejected() throws Exception {
+        Long firstId = submit().andExpect(status().isCreated()).andReturn().getResponse()
+                .getHeader("Location").replaceAll(".*/", "").transform(Long::valueOf);
+
+        submit().andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("User " + user.getId() + " already has an open application for pet " + pet.getId()));
+
+        // Once the first is decided the user may apply again, and the decided one cannot be reopened alongside it
+        mockMvc.perform(put("/api/adoption-applications/" + firstId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"REJECTED\"}"))
+                .andExpect(status().isOk());
+        submit().andExpect(status().isCreated());
+        mockMvc.perform(put("/api/adoption-applications/" + firstId + "/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PENDING\"}"))
+                .andExpect(status().isConflict());
+
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.PENDING)).isEqualTo(1);
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.REJECTED)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentSubmissionsCreateExactlyOneApplication() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await(10, TimeUnit.SECONDS);
+                    return submit().andReturn().getResponse().getStatus();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        start.countDown();
+
+        List<Integer> statuses = new ArrayList<>();
+        for (CompletableFuture<Integer> result : results) {
+            statuses.add(result.get(20, TimeUnit.SECONDS));
+        }
+        assertThat(statuses).containsOnlyOnce(201).containsOnly(201, 409);
+        assertThat(applicationRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownPetIsABadRequest() throws Exception {
+        mockMvc.perform(post("/api/adoption-applications")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(applicationJson(user.getId(), pet.getId() + 1000)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions submit() throws Exception {
+        return mockMvc.perform(post("/api/adoption-applications")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(applicationJson(user.getId(), pet.getId())));
+    }
+
+    private static String applicationJson(Long userId, Long petId) {
+        return "{\"user\":{\"id\":" + userId + "},\"pet\":{\"id\":" + petId + "},\"applicationReason\":\"Big garden\"," +
+               "\"hasOtherPets\":false,\"status\":\"PENDING\"}";
+    }
+}
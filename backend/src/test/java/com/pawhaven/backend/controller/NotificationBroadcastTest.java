@@ -0,0 +1,236 @@
+package com.pawhaven.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.dto.NotificationBroadcastRequest;
+import com.pawhaven.backend.dto.NotificationBroadcastRequest.Target;
+import com.pawhaven.backend.dto.NotificationBroadcastRequest.TargetKind;
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.NotificationRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.service.UnreadNotificationCounter;
+import com.pawhaven.backend.stream.NotificationCreatedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pages of two recipients, so every target below spans more than one keyset page and insert transaction
+@SpringBootTest(properties = "pawhaven.notifications.broadcast.page-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class NotificationBroadcastTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UnreadNotificationCounter unreadCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CreatedEvents createdEvents;
+
+    private User admin;
+    private User alice;
+    private User bob;
+    private User carol;
+    private User dave;
+    private Pet pet;
+
+    @BeforeEach
+    void setUp() {
+        admin = userRepository.save(new User("Admin", "admin@example.com", "secret", UserRole.ADMIN));
+        alice = userRepository.save(new User("Alice", "alice@example.com", "secret", UserRole.USER));
+        User inactive = new User("Bob", "bob@example.com", "secret", UserRole.USER);
+        inactive.setIsActive(false);
+        bob = userRepository.save(inactive);
+        carol = userRepository.save(new User("Carol", "carol@example.com", "secret", UserRole.USER));
+        dave = userRepository.save(new User("Dave", "dave@example.com", "secret", UserRole.USER));
+        pet = petRepository.save(new Pet("Biscuit", "Dog", Gender.MALE));
+        applicationRepository.save(new AdoptionApplication(bob, pet, ApplicationStatus.PENDING));
+        applicationRepository.save(new AdoptionApplication(carol, pet, ApplicationStatus.PENDING));
+        applicationRepository.save(new AdoptionApplication(dave, pet, ApplicationStatus.PENDING));
+        createdEvents.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAllInBatch();
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void activeUsersBroadcastSkipsInactiveUsers() throws Exception {
+        JsonNode job = broadcast("all", new Target(TargetKind.ACTIVE_USERS, null, null, null));
+
+        assertThat(job.get("delivered").asLong()).isEqualTo(4);
+        assertThat(job.get("target").asText()).isEqualTo("ACTIVE_USERS");
+        assertThat(recipients("all")).containsExactlyInAnyOrder(admin.getId(), alice.getId(), carol.getId(), dave.getId());
+    }
+
+    @Test
+    void roleBroadcastReachesActiveUsersWithThatRole() throws Exception {
+        JsonNode job = broadcast("users", new Target(TargetKind.ROLE, UserRole.USER, null, null));
+
+        assertThat(job.get("delivered").asLong()).isEqualTo(3);
+        assertThat(recipients("users")).containsExactlyInAnyOrder(alice.getId(), carol.getId(), dave.getId());
+        assertThat(recipients("users")).doesNotContain(admin.getId(), bob.getId());
+    }
+
+    @Test
+    void petApplicantsBroadcastReachesActiveApplicants() throws Exception {
+        JsonNode job = broadcast("applicants", new Target(TargetKind.PET_APPLICANTS, null, pet.getId(), null));
+
+        assertThat(job.get("delivered").asLong()).isEqualTo(2);
+        assertThat(recipients("applicants")).containsExactlyInAnyOrder(carol.getId(), dave.getId());
+    }
+
+    @Test
+    void usersBroadcastReachesTheNamedActiveUsers() throws Exception {
+        JsonNode job = broadcast("named", Target.users(List.of(admin.getId(), bob.getId(), dave.getId(), 987_654_321L)));
+
+        assertThat(job.get("delivered").asLong()).isEqualTo(2);
+        assertThat(job.get("target").asText()).isEqualTo("USERS:4");
+        assertThat(recipients("named")).containsExactlyInAnyOrder(admin.getId(), dave.getId());
+    }
+
+    @Test
+    void broadcastAdjustsUnreadCountsAndPublishesOneEventPerNotification() throws Exception {
+        // Cached before the broadcast, so the new counts can only come from the adjustment
+        assertThat(unreadCounter.get(alice.getId())).isZero();
+        assertThat(unreadCounter.get(bob.getId())).isZero();
+
+        broadcast("counted", new Target(TargetKind.ROLE, UserRole.USER, null, null));
+
+        assertThat(unreadCounter.get(alice.getId())).isEqualTo(1);
+        assertThat(unreadCounter.get(bob.getId())).isZero();
+        assertThat(createdEvents.userIds("counted")).containsExactlyInAnyOrder(alice.getId(), carol.getId(), dave.getId());
+    }
+
+    @Test
+    void invalidTargetsAreRejected() throws Exception {
+        List<Long> tooMany = LongStream.rangeClosed(1, 1001).boxed().toList();
+        mockMvc.perform(post("/api/notifications/broadcast")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("too many", Target.users(tooMany)))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("A USERS broadcast can name at most 1000 users"));
+        mockMvc.perform(post("/api/notifications/broadcast")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request("no role", new Target(TargetKind.ROLE, null, null, null)))))
+                .andExpect(status().isBadRequest());
+
+        assertThat(recipients("too many")).isEmpty();
+    }
+
+    private NotificationBroadcastRequest request(String message, Target target) {
+        return new NotificationBroadcastRequest("ANNOUNCEMENT", message, target);
+    }
+
+    // Submit a broadcast, check the 202 contract and wait for the job to finish
+    private JsonNode broadcast(String message, Target target) throws Exception {
+        String body = mockMvc.perform(post("/api/notifications/broadcast")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request(message, target))))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andReturn().getResponse().getContentAsString();
+        String jobId = objectMapper.readTree(body).get("jobId").asText();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        JsonNode job;
+        do {
+            Thread.sleep(20);
+            job = objectMapper.readTree(mockMvc.perform(get("/api/notifications/broadcast/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        } while (!job.get("state").asText().equals("COMPLETED") && !job.get("state").asText().equals("FAILED")
+                && System.currentTimeMillis() < deadline);
+        assertThat(job.get("state").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("finishedAt").isNull()).isFalse();
+        return job;
+    }
+
+    private List<Long> recipients(String message) {
+        return jdbcTemplate.queryForList("SELECT user_id FROM notifications WHERE message = ?", Long.class, message);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        CreatedEvents createdEvents() {
+            return new CreatedEvents();
+        }
+    }
+
+    // Notification events seen after their transaction committed
+    static class CreatedEvents {
+
+        private final Queue<NotificationCreatedEvent> events = new ConcurrentLinkedQueue<>();
+
+        @TransactionalEventListener
+        public void onCreated(NotificationCreatedEvent event) {
+            events.add(event);
+        }
+
+        List<Long> userIds(String message) {
+            return events.stream()
+                    .filter(event -> event.notification().getMessage().equals(message))
+                    .map(NotificationCreatedEvent::userId)
+                    .toList();
+        }
+
+        void clear() {
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pawhaven.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.dto.RetentionRunResult;
+import com.pawhaven.backend.model.Notification;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.ArchivedNotificationRepository;
+import com.pawhaven.backend.repository.NotificationRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.service.NotificationRetentionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Small chunks and no pause, so a pass over a handful of rows takes several chunks
+@SpringBootTest(properties = {
+        "pawhaven.notifications.retention.enabled=false",
+        "pawhaven.notifications.retention.read-age-days=90",
+        "pawhaven.notifications.retention.chunk-size=2",
+        "pawhaven.notifications.retention.pause-ms=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class NotificationRetentionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private NotificationRetentionService retentionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @MockitoSpyBean
+    private ArchivedNotificationRepository archivedNotificationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Archivist", "archivist@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        archivedNotificationRepository.deleteAllInBatch();
+        notificationRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void oldReadNotificationsMoveToTheArchive() throws Exception {
+        Long oldRead1 = save("old read 1", true, 200);
+        Long oldRead2 = save("old read 2", true, 120);
+        Long oldRead3 = save("old read 3", true, 91);
+        Long oldUnread = save("old unread", false, 200);
+        Long recentRead = save("recent read", true, 10);
+
+        RetentionRunResult result = retentionService.runOnce().orElseThrow();
+
+        assertThat(result.archived()).isEqualTo(3);
+        assertThat(result.complete()).isTrue();
+        assertThat(notificationRepository.findAllById(List.of(oldRead1, oldRead2, oldRead3))).isEmpty();
+        assertThat(notificationRepository.existsById(oldUnread)).isTrue();
+        assertThat(notificationRepository.existsById(recentRead)).isTrue();
+        assertThat(archivedNotificationRepository.findAll()).extracting("id")
+                .containsExactlyInAnyOrder(oldRead1, oldRead2, oldRead3);
+
+        JsonNode archive = objectMapper.readTree(mockMvc.perform(get("/api/notifications/archive/user/{userId}", user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertThat(archive.get("total").asLong()).isEqualTo(3);
+        // Newest first
+        assertThat(archive.get("items")).extracting(item -> item.get("message").asText())
+                .containsExactly("old read 3", "old read 2", "old read 1");
+    }
+
+    @Test
+    void notificationMarkedUnreadBetweenCopyAndDeleteStaysLiveOnly() {
+        Long marked = save("marked unread meanwhile", true, 200);
+        // The spy wraps a repository proxy, so the real method is reached through its delegating default answer
+        Answer<?> real = mockingDetails(archivedNotificationRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            Object copied = real.answer(invocation);
+            // Another request marks it unread after the chunk was copied but before it is deleted
+            CompletableFuture.runAsync(() -> jdbcTemplate.update("UPDATE notifications SET is_read = false WHERE n_id = ?", marked))
+                    .get(10, TimeUnit.SECONDS);
+            return copied;
+        }).when(archivedNotificationRepository).copyFromLive(any(), any(), any());
+
+        RetentionRunResult result = retentionService.runOnce().orElseThrow();
+
+        assertThat(result.archived()).isZero();
+        assertThat(notificationRepository.findById(marked)).get()
+                .extracting(Notification::getIsRead).isEqualTo(false);
+        assertThat(archivedNotificationRepository.existsById(marked)).isFalse();
+    }
+
+    // Save a notification and backdate it; the date column is not updatable through the entity
+    private Long save(String message, boolean read, int ageDays) {
+        Notification notification = new Notification(user, "INFO", message);
+        notification.setIsRead(read);
+        Long id = notificationRepository.save(notification).getId();
+        jdbcTemplate.update("UPDATE notifications SET date = ? WHERE n_id = ?", LocalDateTime.now().minusDays(ageDays), id);
+        return id;
+    }
+}
@@ -0,0 +1,137 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.dto.NotificationSummary;
+import com.pawhaven.backend.model.Notification;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.NotificationRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.stream.NotificationStreamRegistry;
+import com.pawhaven.backend.stream.StreamCursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "pawhaven.notifications.stream.max-replay=3")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class NotificationStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoSpyBean
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Streamer", "streamer@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void resumeReplaysANotificationThatCommittedBehindTheLastEvent() throws Exception {
+        // The lower id came from an older sequence block and committed only after the higher one was streamed
+        notificationRepository.save(new Notification(user, "INFO", "committed late"));
+        Notification seen = notificationRepository.save(new Notification(user, "INFO", "already seen"));
+
+        NotificationSummary seenSummary = new NotificationSummary(seen.getId(), seen.getType(), seen.getMessage(),
+                seen.getDate(), seen.getIsRead());
+        String body = stream(StreamCursor.of(seenSummary).toString(), content -> content.contains("committed late"));
+
+        assertThat(body).contains("event:notification").contains("committed late").doesNotContain("event:resync");
+    }
+
+    @Test
+    void bareIdPositionIsPlacedByTheNotificationsDate() throws Exception {
+        Notification first = notificationRepository.save(new Notification(user, "INFO", "first"));
+        notificationRepository.save(new Notification(user, "INFO", "second"));
+
+        String body = stream(String.valueOf(first.getId()), content -> content.contains("second"));
+
+        assertThat(body).contains("second").doesNotContain("event:resync");
+    }
+
+    @Test
+    void tooMuchToReplaySendsAResyncInsteadOfAPartialReplay() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            notificationRepository.save(new Notification(user, "INFO", "backlog " + i));
+        }
+        String position = new StreamCursor(LocalDateTime.now().minusHours(1), 1).toString();
+
+        String body = stream(position, content -> content.contains("event:resync"));
+
+        assertThat(body).contains("event:resync").doesNotContain("backlog");
+    }
+
+    @Test
+    void unknownPositionSendsAResync() throws Exception {
+        String body = stream("987654321", content -> content.contains("event:resync"));
+
+        assertThat(body).contains("event:resync");
+    }
+
+    @Test
+    void malformedPositionIsRejected() throws Exception {
+        mockMvc.perform(get("/api/notifications/user/{userId}/stream", user.getId()).header("Last-Event-ID", "yesterday_x"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void failedReplayReleasesTheSubscription() {
+        doThrow(new DataAccessResourceFailureException("database unavailable"))
+                .when(notificationRepository).findDateById(anyLong());
+        int open = streamRegistry.size();
+
+        assertThatThrownBy(() -> streamRegistry.subscribe(user.getId(), StreamCursor.parse("42")))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(streamRegistry.size()).isEqualTo(open);
+    }
+
+    // Open a stream from a position and wait until what has been sent so far satisfies the check
+    private String stream(String lastEventId, Predicate<String> done) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/notifications/user/{userId}/stream", user.getId())
+                        .header("Last-Event-ID", lastEventId))
+                .andExpect(status().isOk())
+                .andReturn();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        String content = result.getResponse().getContentAsString();
+        while (!done.test(content) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,178 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.Accessory;
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AccessoryRepository;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OptimisticLockingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private AccessoryRepository accessoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Pet pet;
+    private AdoptionApplication application;
+    private Accessory accessory;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("Adopter", "adopter@example.com", "secret", UserRole.USER));
+        pet = petRepository.save(new Pet("Biscuit", "Dog", Gender.MALE));
+        application = applicationRepository.save(new AdoptionApplication(user, pet, ApplicationStatus.PENDING));
+        accessory = accessoryRepository.save(new Accessory("Collar", "Walking", 9.99, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        accessoryRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void staleIfMatchIsRejectedWithTheCurrentVersion() throws Exception {
+        mockMvc.perform(get("/api/pets/" + pet.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        mockMvc.perform(put("/api/pets/" + pet.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(petJson("Biscuit Senior")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+
+        // A second admin still holding version 0 must not overwrite the first edit
+        mockMvc.perform(put("/api/pets/" + pet.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(petJson("Biscuit Junior")))
+                .andExpect(status().isConflict())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.currentVersion").value(1));
+
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getName()).isEqualTo("Biscuit Senior");
+
+        mockMvc.perform(put("/api/pets/" + pet.getId())
+                        .header(HttpHeaders.IF_MATCH, "not-a-version")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(petJson("Biscuit")))
+                .andExpect(status().isBadRequest());
+
+        // Without a precondition the update still goes through
+        mockMvc.perform(put("/api/pets/" + pet.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(petJson("Biscuit")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    void applicationReviewWithStaleVersionDoesNotOverwriteStatus() throws Exception {
+        mockMvc.perform(put("/api/adoption-applications/" + application.getId() + "/status")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"REJECTED\",\"adminNotes\":\"First reviewer\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/adoption-applications/" + application.getId() + "/status")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"APPROVED\",\"adminNotes\":\"Second reviewer\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.currentVersion").value(1));
+
+        AdoptionApplication stored = applicationRepository.findById(application.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(ApplicationStatus.REJECTED);
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getAvailable()).isTrue();
+    }
+
+    @Test
+    void bulkStockUpdatesInvalidateOutstandingETags() throws Exception {
+        mockMvc.perform(put("/api/accessories/" + accessory.getId() + "/stock/decrease")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":3}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/accessories/" + accessory.getId() + "/stock")
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":50}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.currentVersion").value(1));
+
+        assertThat(accessoryRepository.findQuantityById(accessory.getId())).contains(7);
+    }
+
+    @Test
+    void concurrentUpdateWithoutIfMatchFailsAtCommit() {
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        assertThatThrownBy(() -> outer.executeWithoutResult(status -> {
+            Pet stale = petRepository.findById(pet.getId()).orElseThrow();
+            // Another request commits first
+            inner.executeWithoutResult(innerStatus ->
+                    petRepository.findById(pet.getId()).orElseThrow().setColor("Brown"));
+            stale.setColor("Black");
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        Pet stored = petRepository.findById(pet.getId()).orElseThrow();
+        assertThat(stored.getColor()).isEqualTo("Brown");
+        assertThat(stored.getVersion()).isEqualTo(1);
+    }
+
+    private static String petJson(String name) {
+        return "{\"name\":\"" + name + "\",\"species\":\"Dog\",\"gender\":\"MALE\",\"available\":true}";
+    }
+}
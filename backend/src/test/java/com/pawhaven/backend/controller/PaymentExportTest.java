@@ -0,0 +1,139 @@
+package com.pawhaven.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PaymentExportTest {
+
+    private static final int PAYMENTS = 2_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("Exporter", "exporter@example.com", "secret", UserRole.USER));
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < PAYMENTS; i++) {
+            Payment payment = new Payment(user, 10.0 + i, "Donation", "TXN-EXPORT-" + i);
+            payment.setStatus(i % 4 == 0 ? PaymentStatus.FAILED : PaymentStatus.COMPLETED);
+            payments.add(payment);
+        }
+        payments.get(0).setNotes("=HYPERLINK(\"http://example.com\"), \"quoted\"\nsecond line");
+        paymentRepository.saveAll(payments);
+    }
+
+    @AfterEach
+    void tearDown() {
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void csvExportHasHeaderOneRowPerPaymentAndEscapedCells() throws Exception {
+        String csv = export("/api/payments/export?format=csv");
+
+        List<String> records = splitCsvRecords(csv);
+        assertThat(records).hasSize(PAYMENTS + 1);
+        assertThat(records.get(0)).startsWith("id,tranId,date,amount");
+        assertThat(csv).contains("\"'=HYPERLINK(\"\"http://example.com\"\"), \"\"quoted\"\"\nsecond line\"");
+    }
+
+    @Test
+    void ndjsonExportAppliesStatusAndDateFilters() throws Exception {
+        LocalDate today = LocalDate.now();
+        String ndjson = export("/api/payments/export?format=ndjson&status=FAILED&from=" + today + "&to=" + today);
+
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(PAYMENTS / 4);
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.get("status").asText()).isEqualTo("FAILED");
+            assertThat(row.get("userName").asText()).isEqualTo("Exporter");
+        }
+
+        assertThat(export("/api/payments/export?format=ndjson&from=" + today.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/api/payments/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    private String export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Disposition", org.hamcrest.Matchers.startsWith("attachment")))
+                .andReturn();
+        MvcResult finished = mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+        return finished.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    // Split on CRLF record separators, ignoring line breaks inside quoted cells
+    private static List<String> splitCsvRecords(String csv) {
+        List<String> records = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            }
+            if (!quoted && c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                records.add(current.toString());
+                current.setLength(0);
+                i++;
+            } else {
+                current.append(c);
+            }
+        }
+        if (!current.isEmpty()) {
+            records.add(current.toString());
+        }
+        return records;
+    }
+}
@@ -0,0 +1,111 @@
+package com.pawhaven.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.service.PaymentGatewayDispatcher;
+import com.pawhaven.backend.service.PaymentService;
+import com.pawhaven.backend.service.PaymentTotalsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One slow gateway call in flight and room for one more charge in the queue, so the third charge is rejected
+@SpringBootTest(properties = {
+        "pawhaven.payments.gateway.queue-capacity=1",
+        "pawhaven.payments.gateway.max-concurrency=1",
+        "pawhaven.payments.gateway.enqueue-timeout-ms=10",
+        "pawhaven.payments.gateway.simulated.latency-ms=3000",
+        "pawhaven.payments.gateway.simulated.latency-jitter-ms=0",
+        "pawhaven.payments.gateway.simulated.failure-rate=0",
+        "pawhaven.payments.gateway.simulated.webhooks-enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PaymentGatewayQueueFullTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentGatewayDispatcher dispatcher;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentTotalsService totalsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Queue Full", "queue-full@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void chargeRejectedByAFullQueueEndsFailed() throws Exception {
+        submit();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (dispatcher.inFlight() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.inFlight()).isEqualTo(1);
+        String queued = submit();
+        assertThat(dispatcher.queued()).isEqualTo(1);
+
+        String rejected = submit();
+
+        // Settled by the after-commit listener before the request returned
+        Payment payment = paymentService.getPaymentByTranId(rejected).orElseThrow();
+        assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+        assertThat(payment.getNotes()).contains("Payment gateway queue is full");
+        assertThat(paymentService.getPaymentByTranId(queued)).get()
+                .extracting(Payment::getStatus).isEqualTo(PaymentStatus.PENDING);
+        assertThat(totalsService.totalByStatus(PaymentStatus.FAILED)).isEqualByComparingTo("15");
+        assertThat(totalsService.totalByStatus(PaymentStatus.PENDING)).isEqualByComparingTo("30");
+    }
+
+    private String submit() throws Exception {
+        String body = mockMvc.perform(post("/api/payments/process")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"user\":{\"id\":" + user.getId() + "},\"amount\":15.0,\"purpose\":\"Donation\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("tranId").asText();
+    }
+}
@@ -0,0 +1,132 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.PaymentWebhookEventRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.service.PaymentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "pawhaven.payments.gateway.simulated.latency-ms=5",
+        "pawhaven.payments.gateway.simulated.latency-jitter-ms=5",
+        "pawhaven.payments.gateway.simulated.failure-rate=0.3",
+        "pawhaven.payments.gateway.simulated.webhook-delay-ms=1",
+        "pawhaven.payments.gateway.simulated.duplicate-webhook-rate=1.0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PaymentGatewayTest {
+
+    private static final int PAYMENTS = 200;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Gateway", "gateway@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        webhookEventRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void everyProcessedPaymentIsSettledOnceDespiteDuplicateWebhooks() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < PAYMENTS; i++) {
+                statuses.add(clients.submit(() -> mockMvc.perform(post("/api/payments/process")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"user\":{\"id\":" + user.getId() + "},\"amount\":15.0,\"purpose\":\"Donation\"}"))
+                        .andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> result : statuses) {
+                assertThat(result.get()).isEqualTo(201);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        while ((paymentRepository.findByStatus(PaymentStatus.PENDING).size() > 0
+                || webhookEventRepository.count() < PAYMENTS) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        long completed = paymentRepository.findByStatus(PaymentStatus.COMPLETED).size();
+        long failed = paymentRepository.findByStatus(PaymentStatus.FAILED).size();
+        assertThat(completed + failed).isEqualTo(PAYMENTS);
+        assertThat(failed).isPositive();
+        // Every charge sent its webhook twice, but each event id is stored once
+        assertThat(webhookEventRepository.count()).isEqualTo(PAYMENTS);
+    }
+
+    @Test
+    void webhookEndpointIgnoresRedeliveries() throws Exception {
+        Payment payment = new Payment(user, 20.0, "Adoption fee", null);
+        String tranId = paymentService.savePayment(payment).getTranId();
+
+        mockMvc.perform(webhook("evt-1", tranId, "payment.succeeded"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value("PROCESSED"));
+        mockMvc.perform(webhook("evt-1", tranId, "payment.succeeded"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value("DUPLICATE"));
+        mockMvc.perform(webhook("evt-2", tranId, "payment.failed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value("IGNORED"));
+        mockMvc.perform(webhook("evt-3", "TXN-UNKNOWN", "payment.succeeded"))
+                .andExpect(status().isNotFound());
+
+        assertThat(paymentService.getPaymentByTranId(tranId)).get()
+                .extracting(Payment::getStatus).isEqualTo(PaymentStatus.COMPLETED);
+    }
+
+    private org.springframework.test.web.servlet.RequestBuilder webhook(String eventId, String tranId, String type) {
+        return post("/api/payments/webhook")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"eventId\":\"" + eventId + "\",\"tranId\":\"" + tranId + "\",\"type\":\"" + type + "\"}");
+    }
+}
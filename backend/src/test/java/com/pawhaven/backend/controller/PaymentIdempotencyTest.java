@@ -0,0 +1,125 @@
+package com.pawhaven.backend.controller;
+
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.IdempotencyRecordRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PaymentIdempotencyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Payer", "payer@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void retryWithSameKeyReplaysFirstResponse() throws Exception {
+        MvcResult first = mockMvc.perform(create("key-1", 25.0))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+
+        MvcResult retry = mockMvc.perform(create("key-1", 25.0))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn();
+
+        assertThat(retry.getResponse().getContentAsString()).isEqualTo(first.getResponse().getContentAsString());
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        mockMvc.perform(create("key-2", 25.0)).andExpect(status().isCreated());
+        mockMvc.perform(create("key-2", 30.0)).andExpect(status().isUnprocessableEntity());
+
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRetriesCreateOnePayment() throws Exception {
+        int clients = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(create("key-3", 40.0)).andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : statuses) {
+                // Either the original 201, a replay of it, or 409 while the first request is still running
+                assertThat(result.get()).isIn(201, 409);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void requestsWithoutKeyAreNotDeduplicated() throws Exception {
+        mockMvc.perform(create(null, 10.0)).andExpect(status().isCreated());
+        mockMvc.perform(create(null, 10.0)).andExpect(status().isCreated());
+
+        assertThat(paymentRepository.count()).isEqualTo(2);
+    }
+
+    private org.springframework.test.web.servlet.RequestBuilder create(String key, double amount) {
+        var request = post("/api/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"user\":" + user.getId() + ",\"amount\":" + amount + ",\"purpose\":\"Donation\"}");
+        return key == null ? request : request.header("Idempotency-Key", key);
+    }
+}
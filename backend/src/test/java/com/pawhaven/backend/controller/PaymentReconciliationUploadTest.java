@@ -0,0 +1,116 @@
+package com.pawhaven.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import com.pawhaven.backend.service.PaymentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "pawhaven.payments.reconciliation.max-upload-bytes=200")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PaymentReconciliationUploadTest {
+
+    private static final String CSV = "tranId,status\nTXN-UPLOAD-1,COMPLETED\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("Uploader", "uploader@example.com", "secret", UserRole.USER));
+        paymentService.savePayment(new Payment(user, 10.0, "Donation", "TXN-UPLOAD-1"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void csvBodyIsStreamedIntoAJob() throws Exception {
+        ResultActions upload = mockMvc.perform(post("/api/payments/reconciliation")
+                .param("filename", "settlement.csv")
+                .contentType("text/csv")
+                .content(CSV))
+                .andExpect(status().isAccepted());
+
+        JsonNode job = awaitJob(upload);
+        assertThat(job.get("state").asText()).isEqualTo("COMPLETED");
+        assertThat(job.get("fileName").asText()).isEqualTo("settlement.csv");
+        assertThat(job.get("matched").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void multipartUploadStillWorks() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "settlement.csv", "text/csv", CSV.getBytes(StandardCharsets.UTF_8));
+
+        JsonNode job = awaitJob(mockMvc.perform(multipart("/api/payments/reconciliation").file(file))
+                .andExpect(status().isAccepted()));
+
+        assertThat(job.get("state").asText()).isEqualTo("COMPLETED");
+    }
+
+    @Test
+    void bodyOverTheUploadLimitIsRejected() throws Exception {
+        mockMvc.perform(post("/api/payments/reconciliation")
+                        .contentType("text/csv")
+                        .content(CSV + "TXN-UPLOAD-2,FAILED\n".repeat(20)))
+                .andExpect(status().isPayloadTooLarge());
+        mockMvc.perform(post("/api/payments/reconciliation").contentType("text/csv").content(""))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode awaitJob(ResultActions upload) throws Exception {
+        String jobId = objectMapper.readTree(upload.andReturn().getResponse().getContentAsString()).get("jobId").asText();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            JsonNode job = objectMapper.readTree(mockMvc.perform(get("/api/payments/reconciliation/{jobId}", jobId))
+                    .andReturn().getResponse().getContentAsString());
+            String state = job.get("state").asText();
+            if (!state.equals("RUNNING") && !state.equals("QUEUED") || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
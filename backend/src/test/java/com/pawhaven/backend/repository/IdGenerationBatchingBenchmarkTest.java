@@ -0,0 +1,135 @@
+package com.pawhaven.backend.repository;
+
+import com.pawhaven.backend.model.Notification;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Inserts the same rows through a pooled-lo id (notifications) and through IDENTITY and compares the round trips.
+// Left out of the default test run; run it with -Pbenchmark
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class IdGenerationBatchingBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGenerationBatchingBenchmarkTest.class);
+
+    private static final int ROWS = 5_000;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User("Bench", "bench@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status ->
+                entityManager.createQuery("DELETE FROM IdentityNotification").executeUpdate());
+        notificationRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void pooledIdsBatchInsertsThatIdentityCannot() {
+        long identityStatements = insert("IDENTITY", i -> new IdentityNotification(user, "BENCH", "Message " + i));
+        long pooledStatements = insert("pooled-lo", i -> new Notification(user, "BENCH", "Message " + i));
+
+        assertThat(notificationRepository.count()).isEqualTo(ROWS);
+        assertThat(identityStatements).isGreaterThanOrEqualTo(ROWS);
+        assertThat(pooledStatements).isLessThan(ROWS / 10);
+    }
+
+    // Persist ROWS entities in one transaction, flushing every batch, log the throughput and return the statements
+    // it took
+    private long insert(String label, IntFunction<Object> row) {
+        statistics.clear();
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(row.apply(i));
+                if ((i + 1) % 50 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long statements = statistics.getPrepareStatementCount();
+        log.info("{}: {} rows, {} statements, {} rows/s", label, ROWS, statements, Math.round(ROWS / seconds));
+        return statements;
+    }
+
+    // The notifications mapping as it was before, with a database-assigned id
+    @Entity(name = "IdentityNotification")
+    @Table(name = "benchmark_identity_notifications")
+    static class IdentityNotification {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @ManyToOne
+        @JoinColumn(name = "user_id", nullable = false)
+        private User user;
+
+        @Column(name = "type", nullable = false, length = 50)
+        private String type;
+
+        @Column(name = "message", nullable = false, columnDefinition = "TEXT")
+        private String message;
+
+        protected IdentityNotification() {
+        }
+
+        IdentityNotification(User user, String type, String message) {
+            this.user = user;
+            this.type = type;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.CheckoutRequest;
+import com.pawhaven.backend.model.Accessory;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AccessoryRepository;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Write-backs only happen when a test flushes, never from the scheduler halfway through one
+@SpringBootTest(properties = "pawhaven.accessories.stock-buffer.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class AccessoryStockConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessoryStockConcurrencyTest.class);
+
+    private static final int STOCK = 1_000;
+    private static final int ATTEMPTS = 4_000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private AccessoryService accessoryService;
+
+    @Autowired
+    private StockReservationBuffer stockReservationBuffer;
+
+    @Autowired
+    private AccessoryRepository accessoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long accessoryId;
+
+    @BeforeEach
+    void setUp() {
+        accessoryId = accessoryRepository.save(new Accessory("Chew Toy", "Toy", 9.99, STOCK)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockReservationBuffer.invalidate(accessoryId);
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        accessoryRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void conditionalDecrementNeverOversells() throws Exception {
+        int sold = hammer("conditional update", () -> {
+            try {
+                accessoryService.decreaseStock(accessoryId, 1);
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        });
+
+        assertThat(sold).isEqualTo(STOCK);
+        assertThat(accessoryRepository.findQuantityById(accessoryId)).contains(0);
+    }
+
+    @Test
+    void purchaseEvictsOnlyThePurchasedAccessory() {
+        Long lastOne = accessoryRepository.save(new Accessory("Last Leash", "Leash", 14.99, 1)).getId();
+        Cache cache = entityManagerFactory.getCache();
+        accessoryRepository.findById(accessoryId);
+        accessoryRepository.findById(lastOne);
+        assertThat(accessoryService.getAccessoriesInStock()).extracting(Accessory::getId).contains(accessoryId, lastOne);
+        assertThat(cache.contains(Accessory.class, lastOne)).isTrue();
+
+        assertThat(accessoryService.decreaseStock(accessoryId, 1).getQuantity()).isEqualTo(STOCK - 1);
+        assertThat(cache.contains(Accessory.class, lastOne)).isTrue();
+        assertThat(accessoryRepository.findById(accessoryId)).get().extracting(Accessory::getQuantity).isEqualTo(STOCK - 1);
+
+        // Selling out changes which accessories the in-stock query returns
+        accessoryService.decreaseStock(lastOne, 1);
+        assertThat(accessoryService.getAccessoriesInStock()).extracting(Accessory::getId)
+                .contains(accessoryId).doesNotContain(lastOne);
+        accessoryService.increaseStock(lastOne, 2);
+        assertThat(accessoryService.getAccessoriesInStock()).extracting(Accessory::getId).contains(lastOne);
+        assertThat(accessoryRepository.findById(lastOne)).get().extracting(Accessory::getQuantity).isEqualTo(2);
+    }
+
+    @Test
+    void bufferedReservationsNeverOversell() throws Exception {
+        int sold = hammer("striped buffer", () -> stockReservationBuffer.reserve(accessoryId, 1).reserved());
+        stockReservationBuffer.flushAll();
+
+        assertThat(sold).isEqualTo(STOCK);
+        assertThat(stockReservationBuffer.available(accessoryId)).isZero();
+        assertThat(accessoryRepository.findQuantityById(accessoryId)).contains(0);
+    }
+
+    @Test
+    void writeBackTakesWhatIsLeftAndRecordsTheOversell() {
+        double oversoldBefore = meterRegistry.counter("pawhaven.accessories.stock-buffer.oversold").count();
+        assertThat(stockReservationBuffer.reserve(accessoryId, 5).reserved()).isTrue();
+        // Stock lowered behind the buffer's back after the five units were promised
+        jdbcTemplate.update("UPDATE accessories SET quantity = 2 WHERE acc_id = ?", accessoryId);
+
+        stockReservationBuffer.flushAll();
+
+        assertThat(accessoryRepository.findQuantityById(accessoryId)).contains(0);
+        assertThat(stockReservationBuffer.available(accessoryId)).isZero();
+        assertThat(meterRegistry.counter("pawhaven.accessories.stock-buffer.oversold").count())
+                .isEqualTo(oversoldBefore + 3);
+        assertThat(stockReservationBuffer.reserve(accessoryId, 1).reserved()).isFalse();
+    }
+
+    @Test
+    void checkoutFencesTheBufferUntilItCommits() throws Exception {
+        User buyer = userRepository.save(new User("Fenced Buyer", "fenced-buyer@example.com", "secret", UserRole.USER));
+        assertThat(stockReservationBuffer.reserve(accessoryId, 1).reserved()).isTrue();
+
+        CountDownLatch checkedOut = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CompletableFuture<Void> checkout = CompletableFuture.runAsync(() -> transaction.executeWithoutResult(status -> {
+            accessoryService.checkout(new CheckoutRequest(buyer.getId(),
+                    List.of(new CheckoutRequest.Item(accessoryId, 100)), "CARD", null));
+            checkedOut.countDown();
+            try {
+                commit.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(checkedOut.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // While the checkout holds the row, the buffer neither serves nor reseeds from the pre-checkout stock
+        assertThat(stockReservationBuffer.reserve(accessoryId, 1).outcome())
+                .isEqualTo(StockReservationBuffer.Outcome.UNBUFFERED);
+        commit.countDown();
+        checkout.get(10, TimeUnit.SECONDS);
+
+        // The next slot starts from what the checkout left: the written-back unit and the hundred are gone
+        assertThat(stockReservationBuffer.reserve(accessoryId, 1).available()).isEqualTo(STOCK - 1 - 100 - 1);
+    }
+
+    // Fire ATTEMPTS single-unit purchases from THREADS threads at once, log the throughput and return how many
+    // succeeded
+    private int hammer(String label, BooleanSupplier purchase) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        try {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < ATTEMPTS; i++) {
+                tasks.add(() -> {
+                    start.await();
+                    if (purchase.getAsBoolean()) {
+                        sold.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+            log.info("{}: {} attempts, {} sold, {} ops/s", label, ATTEMPTS, sold.get(), Math.round(ATTEMPTS / seconds));
+        } finally {
+            executor.shutdownNow();
+        }
+        return sold.get();
+    }
+}
@@ -0,0 +1,224 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.AdminSummary;
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Babysitting;
+import com.pawhaven.backend.model.BabysittingStatus;
+import com.pawhaven.backend.model.Feedback;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.Report;
+import com.pawhaven.backend.model.ReportStatus;
+import com.pawhaven.backend.model.Shelter;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.BabysittingRepository;
+import com.pawhaven.backend.repository.FeedbackRepository;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.ReportRepository;
+import com.pawhaven.backend.repository.ShelterRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A TTL long enough that only invalidate() ends a snapshot during the test
+@SpringBootTest(properties = "pawhaven.admin.summary.ttl-ms=3600000")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdminSummaryServiceTest {
+
+    @Autowired
+    private AdminSummaryService summaryService;
+
+    @Autowired
+    private AdoptionApplicationService applicationService;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private BabysittingService babysittingService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private ShelterService shelterService;
+
+    @Autowired
+    private FeedbackService feedbackService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private BabysittingRepository babysittingRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private ShelterRepository shelterRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Summary User", "summary-user@example.com", "secret", UserRole.USER));
+        userRepository.save(new User("Summary Admin", "summary-admin@example.com", "secret", UserRole.ADMIN));
+        Pet first = petRepository.save(new Pet("Summary One", "Dog", Gender.MALE));
+        Pet second = petRepository.save(new Pet("Summary Two", "Cat", Gender.FEMALE));
+        applicationRepository.save(new AdoptionApplication(user, first, ApplicationStatus.PENDING));
+        applicationRepository.save(new AdoptionApplication(user, second, ApplicationStatus.REJECTED));
+        reportRepository.save(new Report(user, "LOST", "Park", ReportStatus.IN_PROGRESS));
+        babysittingRepository.save(new Babysitting(user, first, LocalDate.now().plusDays(1), 3, BabysittingStatus.SCHEDULED));
+        feedbackRepository.save(new Feedback(user, 4, "Lovely"));
+        feedbackRepository.save(new Feedback(user, 5, "Great"));
+        Shelter shelter = new Shelter("Summary Shelter", "555-0100", "summary-shelter@example.com");
+        shelter.setCapacity(40);
+        shelterRepository.save(shelter);
+        Payment payment = paymentService.savePayment(new Payment(user, 25.5, "Donation", null));
+        paymentService.completePayment(payment.getTranId());
+        summaryService.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        feedbackRepository.deleteAllInBatch();
+        babysittingRepository.deleteAllInBatch();
+        reportRepository.deleteAllInBatch();
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        shelterRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        summaryService.invalidate();
+    }
+
+    @Test
+    void summaryMatchesTheIndividualAggregates() throws Exception {
+        AdminSummary summary = summaryService.getSummary();
+
+        for (ApplicationStatus status : ApplicationStatus.values()) {
+            assertThat(summary.applicationsByStatus()).containsEntry(status, applicationService.countApplicationsByStatus(status));
+        }
+        for (ReportStatus status : ReportStatus.values()) {
+            assertThat(summary.reportsByStatus()).containsEntry(status, reportService.countReportsByStatus(status));
+        }
+        for (BabysittingStatus status : BabysittingStatus.values()) {
+            assertThat(summary.babysittingByStatus()).containsEntry(status, babysittingService.countBabysittingByStatus(status));
+        }
+        for (UserRole role : UserRole.values()) {
+            assertThat(summary.usersByRole()).containsEntry(role, userService.countUsersByRole(role));
+        }
+        for (PaymentStatus status : PaymentStatus.values()) {
+            assertThat(summary.paymentTotalsByStatus().get(status).doubleValue())
+                    .isEqualTo(paymentService.getTotalAmountByStatus(status));
+        }
+        assertThat(summary.totalShelterCapacity()).isEqualTo(shelterService.getTotalCapacity());
+        assertThat(summary.averageRating()).isEqualTo(feedbackService.getAverageRating());
+
+        assertThat(summary.applicationsByStatus().get(ApplicationStatus.APPROVED)).isZero();
+        assertThat(summary.paymentTotalsByStatus().get(PaymentStatus.COMPLETED)).isEqualByComparingTo(new BigDecimal("25.5"));
+        mockMvc.perform(get("/api/admin/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applicationsByStatus.PENDING").value(summary.applicationsByStatus().get(ApplicationStatus.PENDING)))
+                .andExpect(jsonPath("$.usersByRole.MODERATOR").value(0))
+                .andExpect(jsonPath("$.averageRating").value(4.5));
+    }
+
+    @Test
+    void snapshotIsServedUntilItExpires() {
+        AdminSummary cached = summaryService.getSummary();
+        userRepository.save(new User("Late Arrival", "summary-late@example.com", "secret", UserRole.USER));
+
+        assertThat(summaryService.getSummary()).isSameAs(cached);
+
+        summaryService.invalidate();
+        AdminSummary refreshed = summaryService.getSummary();
+        assertThat(refreshed.usersByRole().get(UserRole.USER)).isEqualTo(cached.usersByRole().get(UserRole.USER) + 1);
+    }
+
+    @Test
+    void concurrentReadersShareASingleRefresh() throws Exception {
+        double refreshesBefore = refreshCount();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+        List<CompletableFuture<AdminSummary>> readers = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            readers.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return summaryService.getSummary();
+            }, pool));
+        }
+        start.countDown();
+        pool.close();
+
+        AdminSummary first = readers.get(0).get(20, TimeUnit.SECONDS);
+        for (CompletableFuture<AdminSummary> reader : readers) {
+            assertThat(reader.get(20, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(refreshCount()).isEqualTo(refreshesBefore + 1);
+    }
+
+    private double refreshCount() {
+        return meterRegistry.find("pawhaven.admin.summary.refresh").timer().count();
+    }
+}
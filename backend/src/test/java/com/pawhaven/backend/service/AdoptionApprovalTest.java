@@ -0,0 +1,151 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.NotificationRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "pawhaven.adoptions.review-queue.sweep-interval-ms=3600000")
+@ActiveProfiles("test")
+class AdoptionApprovalTest {
+
+    private static final int APPLICANTS = 300;
+
+    @Autowired
+    private AdoptionApplicationService applicationService;
+
+    @Autowired
+    private AdoptionReviewQueueService reviewQueueService;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Pet pet;
+    private Pet otherPet;
+    private final List<AdoptionApplication> applications = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pet = petRepository.save(new Pet("Popular", "Dog", Gender.FEMALE));
+        otherPet = petRepository.save(new Pet("Other", "Cat", Gender.MALE));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < APPLICANTS; i++) {
+            users.add(new User("Applicant " + i, "approval" + i + "@example.com", "secret", UserRole.USER));
+        }
+        users = userRepository.saveAll(users);
+        List<AdoptionApplication> pending = new ArrayList<>();
+        for (User user : users) {
+            pending.add(new AdoptionApplication(user, pet, ApplicationStatus.PENDING));
+        }
+        applications.addAll(applicationRepository.saveAll(pending));
+        applicationRepository.save(new AdoptionApplication(users.get(0), otherPet, ApplicationStatus.PENDING));
+    }
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAllInBatch();
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        applications.clear();
+    }
+
+    @Test
+    void approvalRejectsCompetingApplicationsAndNotifiesTheirApplicants() throws Exception {
+        User reviewer = userRepository.save(new User("Reviewer", "approval-reviewer@example.com", "secret", UserRole.ADMIN));
+        List<AdoptionApplication> claimed = reviewQueueService.claim(reviewer.getId(), 1);
+        AdoptionApplication winner = applications.get(APPLICANTS / 2);
+
+        applicationService.updateApplicationStatus(winner.getId(), ApplicationStatus.APPROVED, "Great fit", 0L);
+
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getAvailable()).isFalse();
+        Map<ApplicationStatus, Long> byStatus = applicationRepository.findAll().stream()
+                .filter(application -> application.getPet().getId().equals(pet.getId()))
+                .collect(Collectors.groupingBy(AdoptionApplication::getStatus, Collectors.counting()));
+        assertThat(byStatus).containsOnly(
+                Map.entry(ApplicationStatus.APPROVED, 1L), Map.entry(ApplicationStatus.REJECTED, APPLICANTS - 1L));
+
+        // The claimed competitor loses its lease, and every bulk-rejected row moved its version on
+        AdoptionApplication claimedLoser = applicationRepository.findById(claimed.get(0).getId()).orElseThrow();
+        assertThat(claimedLoser.getStatus()).isEqualTo(ApplicationStatus.REJECTED);
+        assertThat(claimedLoser.getReviewerId()).isNull();
+        assertThat(claimedLoser.getLeaseExpiresAt()).isNull();
+        assertThat(claimedLoser.getVersion()).isEqualTo(2);
+        AdoptionApplication loser = applicationRepository.findById(applications.get(APPLICANTS - 1).getId()).orElseThrow();
+        assertThat(loser.getVersion()).isEqualTo(1);
+        assertThat(loser.getAdminNotes()).contains("Popular has been adopted");
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.PENDING)).isEqualTo(1);
+
+        awaitNotifications(APPLICANTS - 1);
+        assertThat(notificationRepository.countUnreadByUserId(winner.getUser().getId())).isZero();
+        assertThat(notificationRepository.countUnreadByUserId(loser.getUser().getId())).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentApprovalsForTheSamePetAdmitExactlyOne() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Function<AdoptionApplication, CompletableFuture<Boolean>> approve = application -> CompletableFuture.supplyAsync(() -> {
+            try {
+                start.await(10, TimeUnit.SECONDS);
+                applicationService.updateApplicationStatus(application.getId(), ApplicationStatus.APPROVED, null, null);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (RuntimeException e) {
+                // Either the pet was already gone or the bulk rejection moved this application's version on
+                return false;
+            }
+        });
+        CompletableFuture<Boolean> first = approve.apply(applications.get(0));
+        CompletableFuture<Boolean> second = approve.apply(applications.get(1));
+        start.countDown();
+
+        assertThat(List.of(first.get(20, TimeUnit.SECONDS), second.get(20, TimeUnit.SECONDS))).containsOnlyOnce(true);
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.APPROVED)).isEqualTo(1);
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.REJECTED)).isEqualTo(APPLICANTS - 1);
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getAvailable()).isFalse();
+        assertThat(petRepository.findById(otherPet.getId()).orElseThrow().getAvailable()).isTrue();
+        awaitNotifications(APPLICANTS - 1);
+    }
+
+    private void awaitNotifications(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (notificationRepository.count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(notificationRepository.count()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,215 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "pawhaven.adoptions.review-queue.sweep-interval-ms=3600000")
+@ActiveProfiles("test")
+class AdoptionReviewQueueTest {
+
+    @Autowired
+    private AdoptionReviewQueueService reviewQueueService;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User alice;
+    private User bob;
+    private final List<User> applicants = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        alice = userRepository.save(new User("Alice", "alice@example.com", "secret", UserRole.ADMIN));
+        bob = userRepository.save(new User("Bob", "bob@example.com", "secret", UserRole.MODERATOR));
+        for (int i = 0; i < 6; i++) {
+            applicants.add(userRepository.save(new User("Applicant " + i, "applicant" + i + "@example.com", "secret", UserRole.USER)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        applicants.clear();
+    }
+
+    @Test
+    void claimsInPriorityOrderOfAgeAndPetDemand() {
+        Pet popular = petRepository.save(new Pet("Popular", "Dog", Gender.FEMALE));
+        Pet quiet = petRepository.save(new Pet("Quiet", "Cat", Gender.MALE));
+        // Three days old, but nobody else wants this pet
+        AdoptionApplication oldQuiet = apply(applicants.get(0), quiet, 72);
+        // Two days old with two competing applications: 48h + 2 x 24h of demand outranks 72h
+        AdoptionApplication popularFirst = apply(applicants.get(1), popular, 48);
+        AdoptionApplication popularSecond = apply(applicants.get(2), popular, 1);
+        AdoptionApplication popularThird = apply(applicants.get(3), popular, 0);
+
+        List<AdoptionApplication> claimed = reviewQueueService.claim(alice.getId(), 2);
+
+        assertThat(claimed).extracting(AdoptionApplication::getId)
+                .containsExactly(popularFirst.getId(), oldQuiet.getId());
+        assertThat(claimed).allSatisfy(application -> {
+            assertThat(application.getStatus()).isEqualTo(ApplicationStatus.UNDER_REVIEW);
+            assertThat(application.getReviewerId()).isEqualTo(alice.getId());
+            assertThat(application.getLeaseExpiresAt()).isAfter(LocalDateTime.now());
+            assertThat(application.getPet().getName()).isNotBlank();
+        });
+        assertThat(reviewQueueService.claim(bob.getId(), 5)).extracting(AdoptionApplication::getId)
+                .containsExactly(popularSecond.getId(), popularThird.getId());
+        assertThat(reviewQueueService.getStats().depth()).isZero();
+        assertThat(reviewQueueService.getStats().inReview()).isEqualTo(4);
+    }
+
+    @Test
+    void concurrentReviewersGetDisjointClaimsWithoutWaiting() throws Exception {
+        Pet pet = petRepository.save(new Pet("Shared", "Dog", Gender.MALE));
+        for (int i = 0; i < 6; i++) {
+            apply(applicants.get(i), pet, 10 - i);
+        }
+
+        CountDownLatch aliceClaimed = new CountDownLatch(1);
+        CountDownLatch bobDone = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Alice claims and keeps her transaction (and row locks) open until Bob has finished claiming
+        CompletableFuture<List<Long>> alicesClaims = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+            List<Long> ids = reviewQueueService.claim(alice.getId(), 3).stream().map(AdoptionApplication::getId).toList();
+            aliceClaimed.countDown();
+            try {
+                bobDone.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ids;
+        }));
+
+        assertThat(aliceClaimed.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Long> bobsClaims = CompletableFuture.supplyAsync(() -> reviewQueueService.claim(bob.getId(), 3).stream()
+                        .map(AdoptionApplication::getId).toList())
+                .get(5, TimeUnit.SECONDS);
+        bobDone.countDown();
+
+        Set<Long> all = new HashSet<>(alicesClaims.get(10, TimeUnit.SECONDS));
+        assertThat(bobsClaims).hasSize(3).doesNotContainAnyElementsOf(all);
+        all.addAll(bobsClaims);
+        assertThat(all).hasSize(6);
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.UNDER_REVIEW)).isEqualTo(6);
+    }
+
+    @Test
+    void lapsedLeaseReturnsToTheQueue() {
+        Pet pet = petRepository.save(new Pet("Lapsed", "Dog", Gender.MALE));
+        AdoptionApplication application = apply(applicants.get(0), pet, 5);
+        reviewQueueService.claim(alice.getId(), 1);
+        assertThat(reviewQueueService.claim(bob.getId(), 1)).isEmpty();
+
+        expireLease(application.getId());
+        assertThat(reviewQueueService.getStats().expiredLeases()).isEqualTo(1);
+        List<AdoptionApplication> reclaimed = reviewQueueService.claim(bob.getId(), 1);
+        assertThat(reclaimed).extracting(AdoptionApplication::getReviewerId).containsExactly(bob.getId());
+        assertThatThrownBy(() -> reviewQueueService.renew(application.getId(), alice.getId()))
+                .isInstanceOf(IllegalStateException.class);
+
+        expireLease(application.getId());
+        reviewQueueService.sweep();
+        AdoptionApplication swept = applicationRepository.findById(application.getId()).orElseThrow();
+        assertThat(swept.getStatus()).isEqualTo(ApplicationStatus.PENDING);
+        assertThat(swept.getReviewerId()).isNull();
+        assertThat(swept.getVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void onlyTheLeaseHolderDecidesAndTheDecisionIsTimed() {
+        Pet pet = petRepository.save(new Pet("Decided", "Dog", Gender.FEMALE));
+        AdoptionApplication application = apply(applicants.get(0), pet, 2);
+        reviewQueueService.claim(alice.getId(), 1);
+        double timedBefore = reviewTimeCount();
+
+        assertThatThrownBy(() -> reviewQueueService.decide(application.getId(), bob.getId(),
+                ApplicationStatus.APPROVED, "Not mine", null))
+                .isInstanceOf(IllegalStateException.class);
+        AdoptionApplication decided = reviewQueueService.decide(application.getId(), alice.getId(),
+                ApplicationStatus.REJECTED, "Garden too small", null);
+
+        assertThat(decided.getStatus()).isEqualTo(ApplicationStatus.REJECTED);
+        assertThat(decided.getReviewerId()).isNull();
+        assertThat(decided.getLeaseExpiresAt()).isNull();
+        assertThat(reviewTimeCount()).isEqualTo(timedBefore + 1);
+        assertThat(reviewQueueService.getClaims(alice.getId())).isEmpty();
+    }
+
+    @Test
+    void releasedClaimsCanBeTakenAgainAndApplicantsCannotReview() {
+        Pet pet = petRepository.save(new Pet("Released", "Cat", Gender.FEMALE));
+        AdoptionApplication application = apply(applicants.get(0), pet, 1);
+        reviewQueueService.claim(alice.getId(), 1);
+
+        AdoptionApplication released = reviewQueueService.release(application.getId(), alice.getId());
+        assertThat(released.getStatus()).isEqualTo(ApplicationStatus.PENDING);
+        assertThat(reviewQueueService.claim(bob.getId(), 1)).hasSize(1);
+        assertThatThrownBy(() -> reviewQueueService.claim(applicants.get(1).getId(), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private AdoptionApplication apply(User applicant, Pet pet, int hoursAgo) {
+        AdoptionApplication application = applicationRepository.save(
+                new AdoptionApplication(applicant, pet, ApplicationStatus.PENDING));
+        jdbcTemplate.update("UPDATE adoption_applications SET submission_date = ? WHERE a_id = ?",
+                LocalDateTime.now().minusHours(hoursAgo), application.getId());
+        return application;
+    }
+
+    private void expireLease(Long applicationId) {
+        jdbcTemplate.update("UPDATE adoption_applications SET lease_expires_at = ? WHERE a_id = ?",
+                LocalDateTime.now().minusMinutes(1), applicationId);
+    }
+
+    private double reviewTimeCount() {
+        var timer = meterRegistry.find("pawhaven.adoptions.review.time").tag("outcome", "rejected").timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,111 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.model.IdempotencyRecord;
+import com.pawhaven.backend.model.IdempotencyStatus;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.IdempotencyRecordRepository;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Any IN_PROGRESS claim counts as abandoned, so a retry always takes over a running request
+@SpringBootTest(properties = {
+        "pawhaven.idempotency.in-progress-timeout-seconds=0",
+        "pawhaven.payments.gateway.simulated.webhooks-enabled=false"
+})
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final Map<String, Object> REQUEST = Map.of("amount", 30.0, "purpose", "Donation");
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Retrier", "retrier@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyRecordRepository.deleteAllInBatch();
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void requestWhoseClaimWasTakenOverRollsBackInsteadOfDuplicating() {
+        AtomicReference<ResponseEntity<?>> retry = new AtomicReference<>();
+
+        ResponseEntity<?> first = idempotencyService.execute("test", "slow-key", REQUEST, () -> {
+            ResponseEntity<?> created = create();
+            // While this request is still running, the client gives up and retries; the retry reclaims the key
+            retry.set(CompletableFuture.supplyAsync(() -> idempotencyService.execute("test", "slow-key", REQUEST,
+                    this::create)).orTimeout(20, TimeUnit.SECONDS).join());
+            return created;
+        });
+
+        assertThat(retry.get().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(paymentRepository.count()).isEqualTo(1);
+        assertThat(idempotencyRecordRepository.findById("test:slow-key")).get()
+                .extracting(IdempotencyRecord::getStatus).isEqualTo(IdempotencyStatus.COMPLETED);
+
+        // Later retries replay the response that did commit
+        ResponseEntity<?> replayed = idempotencyService.execute("test", "slow-key", REQUEST, this::create);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(paymentRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void failedActionLeavesNothingBehind() {
+        ResponseEntity<?> failed = idempotencyService.execute("test", "failing-key", REQUEST, () -> {
+            create();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+
+        assertThat(failed.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(paymentRepository.count()).isZero();
+        assertThat(idempotencyRecordRepository.findById("test:failing-key")).isEmpty();
+    }
+
+    private ResponseEntity<?> create() {
+        Payment payment = paymentService.savePayment(new Payment(user, 30.0, "Donation", null));
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("tranId", payment.getTranId()));
+    }
+}
@@ -0,0 +1,59 @@
+package com.pawhaven.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongLongHashMapTest {
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // A small key space forces long probe runs, collisions and deletions inside them
+            long key = random.nextInt(2_000) - 100;
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    long value = random.nextLong();
+                    map.put(key, value);
+                    reference.put(key, value);
+                }
+                case 2 -> assertThat(map.remove(key)).isEqualTo(reference.remove(key) != null);
+                default -> {
+                    long updated = map.addIfPresent(key, 3, Long.MIN_VALUE);
+                    Long expected = reference.computeIfPresent(key, (k, v) -> v + 3);
+                    assertThat(updated).isEqualTo(expected == null ? Long.MIN_VALUE : expected);
+                }
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(reference.size());
+        for (long key = -100; key < 1_900; key++) {
+            Long expected = reference.get(key);
+            assertThat(map.containsKey(key)).isEqualTo(expected != null);
+            assertThat(map.get(key, Long.MIN_VALUE)).isEqualTo(expected == null ? Long.MIN_VALUE : expected);
+        }
+        assertThat(map.keys()).containsExactlyInAnyOrder(reference.keySet().stream().mapToLong(Long::longValue).toArray());
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        LongLongHashMap map = new LongLongHashMap(16);
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, key * 10);
+        }
+        map.clear();
+
+        assertThat(map.size()).isZero();
+        assertThat(map.get(50, -1)).isEqualTo(-1);
+        map.put(50, 7);
+        assertThat(map.get(50, -1)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,199 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.ReconciliationJobStatus;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Small chunks and batches so even this file is split across several workers and queries
+@SpringBootTest(properties = {
+        "pawhaven.payments.reconciliation.workers=3",
+        "pawhaven.payments.reconciliation.chunk-bytes=512",
+        "pawhaven.payments.reconciliation.batch-size=7",
+        "pawhaven.payments.reconciliation.stale-pending-minutes=0"
+})
+@ActiveProfiles("test")
+class PaymentReconciliationTest {
+
+    private static final int PAYMENTS = 200;
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("Reconciler", "reconciler@example.com", "secret", UserRole.USER));
+        for (int i = 0; i < PAYMENTS; i++) {
+            paymentService.savePayment(new Payment(user, 10.0, "Donation", tranId(i)));
+        }
+        Payment failed = new Payment(user, 10.0, "Donation", tranId(PAYMENTS));
+        failed.setStatus(PaymentStatus.FAILED);
+        paymentService.savePayment(failed);
+    }
+
+    @AfterEach
+    void tearDown() {
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void appliesFixesAndReportsEveryKindOfDiscrepancy() throws Exception {
+        ReconciliationJobStatus job = runToCompletion(settlementFile(), true);
+
+        assertThat(job.state()).isEqualTo("COMPLETED");
+        assertThat(job.linesRead()).isEqualTo(139);
+        assertThat(job.matched()).isEqualTo(132);
+        assertThat(job.fixed()).isEqualTo(130);
+        assertThat(job.bytesProcessed()).isEqualTo(job.fileBytes());
+        assertThat(job.discrepancies())
+                .containsEntry("STATUS_MISMATCH", 130L)
+                .containsEntry("AMOUNT_MISMATCH", 10L)
+                .containsEntry("CURRENCY_MISMATCH", 1L)
+                .containsEntry("STATUS_CONFLICT", 1L)
+                .containsEntry("MISSING_PAYMENT", 5L)
+                .containsEntry("INVALID_LINE", 2L)
+                .containsEntry("STUCK_PENDING", 70L);
+
+        assertThat(statusOf(0)).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(statusOf(125)).isEqualTo(PaymentStatus.COMPLETED);
+        assertThat(statusOf(110)).isEqualTo(PaymentStatus.FAILED);
+        assertThat(statusOf(130)).isEqualTo(PaymentStatus.PENDING);
+        assertThat(statusOf(PAYMENTS)).isEqualTo(PaymentStatus.FAILED);
+        // Fixes went through PaymentService, so the revenue aggregates moved with them
+        assertThat(paymentService.getTotalAmountByStatus(PaymentStatus.COMPLETED)).isEqualTo(1100.0);
+        assertThat(paymentService.getTotalAmountByStatus(PaymentStatus.FAILED)).isEqualTo(210.0);
+        assertThat(paymentService.getTotalAmountByStatus(PaymentStatus.PENDING)).isEqualTo(700.0);
+
+        Path report = reconciliationService.getReport(job.jobId()).orElseThrow();
+        List<String> lines = Files.readAllLines(report, StandardCharsets.UTF_8);
+        assertThat(lines.get(0)).startsWith("type,tranId,ourStatus,settledStatus");
+        Map<String, Long> byType = lines.stream().skip(1)
+                .collect(Collectors.groupingBy(line -> line.substring(0, line.indexOf(',')), Collectors.counting()));
+        assertThat(byType).containsEntry("STATUS_MISMATCH", 130L).containsEntry("STUCK_PENDING", 70L);
+        assertThat(lines).anyMatch(line -> line.startsWith("AMOUNT_MISMATCH," + tranId(120) + ",PENDING,COMPLETED,10.0,11.00,"));
+        assertThat(lines).anyMatch(line -> line.startsWith("STATUS_CONFLICT," + tranId(PAYMENTS) + ",FAILED,COMPLETED,"));
+        assertThat(lines).anyMatch(line -> line.startsWith("MISSING_PAYMENT,TXN-UNKNOWN-3,"));
+    }
+
+    @Test
+    void dryRunOnlyReports() throws Exception {
+        ReconciliationJobStatus job = runToCompletion(settlementFile(), false);
+
+        assertThat(job.state()).isEqualTo("COMPLETED");
+        assertThat(job.fixed()).isZero();
+        assertThat(job.discrepancies()).containsEntry("STATUS_MISMATCH", 130L).containsEntry("STUCK_PENDING", 200L);
+        assertThat(statusOf(0)).isEqualTo(PaymentStatus.PENDING);
+        assertThat(paymentService.getTotalAmountByStatus(PaymentStatus.COMPLETED)).isEqualTo(0.0);
+    }
+
+    @Test
+    void fileWithoutRequiredColumnsFailsTheJob() throws Exception {
+        Path file = Files.createTempFile("settlement-", ".csv");
+        Files.writeString(file, "reference,amount\nTXN-1,10.00\n");
+
+        ReconciliationJobStatus job = runToCompletion(file, true);
+
+        assertThat(job.state()).isEqualTo("FAILED");
+        assertThat(job.error()).contains("tranId and status");
+        assertThat(reconciliationService.getReport(job.jobId())).isEmpty();
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void quotedFieldsMayHoldCommasQuotesAndLineBreaks() throws Exception {
+        // Export-style CSV: every row's note spans lines, and the chunks are cut between them
+        StringBuilder csv = new StringBuilder("\"tranId\",\"note, free text\",status,\"amount\"\r\n");
+        for (int i = 0; i < 40; i++) {
+            csv.append(tranId(i)).append(",\"paid, \"\"in full\"\"\r\nsee line two\nand three\",SETTLED,\"10.00\"\r\n");
+        }
+        Path file = Files.createTempFile("settlement-", ".csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        ReconciliationJobStatus job = runToCompletion(file, true);
+
+        assertThat(job.state()).isEqualTo("COMPLETED");
+        assertThat(job.linesRead()).isEqualTo(40);
+        assertThat(job.matched()).isEqualTo(40);
+        assertThat(job.fixed()).isEqualTo(40);
+        assertThat(job.discrepancies()).containsEntry("INVALID_LINE", 0L).containsEntry("AMOUNT_MISMATCH", 0L);
+        assertThat(statusOf(39)).isEqualTo(PaymentStatus.COMPLETED);
+    }
+
+    // Columns in gateway order with CRLF line endings; payments 0-99 settled, 100-119 declined, 120-129 settled
+    // for a different amount, 130 still pending in another currency, 131-199 absent from the file
+    private Path settlementFile() throws Exception {
+        StringBuilder csv = new StringBuilder("transaction_id,amount,currency,status,fee\r\n");
+        for (int i = 0; i <= 130; i++) {
+            String status = i < 100 ? "SETTLED" : i < 120 ? "DECLINED" : i < 130 ? "settled" : "PENDING";
+            String amount = i >= 120 && i < 130 ? "11.00" : "10.00";
+            String currency = i == 130 ? "EUR" : "USD";
+            csv.append(tranId(i)).append(',').append(amount).append(',').append(currency).append(',')
+                    .append(status).append(",0.25\r\n");
+            if (i == 60) {
+                csv.append("\r\n").append("not a settlement line\r\n");
+            }
+        }
+        csv.append(tranId(PAYMENTS)).append(",10.00,USD,CAPTURED,0.25\r\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("TXN-UNKNOWN-").append(i).append(",5.00,USD,SETTLED,0.10\r\n");
+        }
+        csv.append(tranId(5)).append(",ten,USD,SETTLED,0.25");
+        Path file = Files.createTempFile("settlement-", ".csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private ReconciliationJobStatus runToCompletion(Path file, boolean applyFixes) throws Exception {
+        String jobId = reconciliationService.submit(file, file.getFileName().toString(), applyFixes);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            ReconciliationJobStatus status = reconciliationService.getJob(jobId).orElseThrow();
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Reconciliation job " + jobId + " did not finish");
+    }
+
+    private PaymentStatus statusOf(int index) {
+        return paymentRepository.findByTranId(tranId(index)).orElseThrow().getStatus();
+    }
+
+    private static String tranId(int index) {
+        return String.format("TXN-RECON-%03d", index);
+    }
+}
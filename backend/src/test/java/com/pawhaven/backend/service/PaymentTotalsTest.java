@@ -0,0 +1,202 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.RevenueBucket;
+import com.pawhaven.backend.model.Payment;
+import com.pawhaven.backend.model.PaymentStatus;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.PaymentDailyTotalRepository;
+import com.pawhaven.backend.repository.PaymentRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "pawhaven.payments.gateway.simulated.webhooks-enabled=false")
+@ActiveProfiles("test")
+class PaymentTotalsTest {
+
+    private static final String[] PURPOSES = {"Donation", "Adoption fee", "Accessory purchase"};
+    private static final String[] CURRENCIES = {"USD", "BDT"};
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentTotalsService totalsService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentDailyTotalRepository totalsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("Totals", "totals@example.com", "secret", UserRole.USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        totalsRepository.deleteAllInBatch();
+        paymentRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void incrementalTotalsMatchARebuildAfterMixedChanges() {
+        Random random = new Random(42);
+        List<Payment> payments = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Payment payment = new Payment(user, 1 + random.nextInt(50_000) / 100.0, PURPOSES[random.nextInt(PURPOSES.length)], null);
+            payment.setCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+            payments.add(paymentService.savePayment(payment));
+        }
+        for (Payment payment : payments) {
+            switch (random.nextInt(6)) {
+                case 0 -> paymentService.completePayment(payment.getTranId());
+                case 1 -> paymentService.failPayment(payment.getTranId());
+                case 2 -> {
+                    paymentService.completePayment(payment.getTranId());
+                    paymentService.refundPayment(payment.getTranId());
+                }
+                case 3 -> paymentService.deletePayment(payment.getId());
+                case 4 -> {
+                    Payment details = new Payment(user, payment.getAmount() * 2, "Donation", null);
+                    details.setCurrency("USD");
+                    paymentService.updatePayment(payment.getId(), details, null);
+                    paymentService.updatePaymentStatus(payment.getId(), PaymentStatus.COMPLETED, null);
+                }
+                default -> {
+                    // left PENDING
+                }
+            }
+        }
+
+        Map<String, BigDecimal> incremental = breakdownByEverything();
+        for (PaymentStatus status : PaymentStatus.values()) {
+            Double scanned = paymentRepository.getTotalAmountByStatus(status);
+            assertThat(totalsService.totalByStatus(status))
+                    .isEqualByComparingTo(BigDecimal.valueOf(scanned == null ? 0 : scanned));
+        }
+
+        totalsService.rebuild();
+        assertThat(breakdownByEverything()).isEqualTo(incremental);
+    }
+
+    @Test
+    void parallelSettlementBatchesOverSharedBucketsKeepTotalsExact() throws Exception {
+        Random random = new Random(7);
+        List<PaymentService.SettlementFix> fixes = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Payment payment = new Payment(user, 1 + random.nextInt(10_000) / 100.0, PURPOSES[random.nextInt(PURPOSES.length)], null);
+            String tranId = paymentService.savePayment(payment).getTranId();
+            fixes.add(new PaymentService.SettlementFix(tranId, PaymentStatus.PENDING,
+                    random.nextBoolean() ? PaymentStatus.COMPLETED : PaymentStatus.FAILED));
+        }
+
+        // Four workers, each batch spread over the same day, purposes and shards
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> batches = new ArrayList<>();
+        for (int worker = 0; worker < 4; worker++) {
+            int offset = worker;
+            for (int start = 0; start < fixes.size(); start += 100) {
+                int from = start;
+                batches.add(workers.submit(() -> {
+                    List<PaymentService.SettlementFix> batch = new ArrayList<>();
+                    for (int i = from + offset; i < from + 100; i += 4) {
+                        batch.add(fixes.get(i));
+                    }
+                    batch.sort(Comparator.comparing(PaymentService.SettlementFix::tranId));
+                    return paymentService.applySettlementStatuses(batch);
+                }));
+            }
+        }
+        int changed = 0;
+        for (Future<Integer> batch : batches) {
+            changed += batch.get(30, TimeUnit.SECONDS);
+        }
+        workers.shutdown();
+
+        assertThat(changed).isEqualTo(fixes.size());
+        for (PaymentStatus status : PaymentStatus.values()) {
+            Double scanned = paymentRepository.getTotalAmountByStatus(status);
+            assertThat(totalsService.totalByStatus(status))
+                    .isEqualByComparingTo(BigDecimal.valueOf(scanned == null ? 0 : scanned));
+        }
+        Map<String, BigDecimal> incremental = breakdownByEverything();
+        totalsService.rebuild();
+        assertThat(breakdownByEverything()).isEqualTo(incremental);
+    }
+
+    @Test
+    void nestedTransactionKeepsItsOwnTotalsWhenTheOuterOneRollsBack() {
+        String outer = paymentService.savePayment(new Payment(user, 25.0, "Donation", null)).getTranId();
+        String inner = paymentService.savePayment(new Payment(user, 40.0, "Donation", null)).getTranId();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            paymentService.failPayment(outer);
+            requiresNew.executeWithoutResult(nested -> paymentService.completePayment(inner));
+            status.setRollbackOnly();
+        });
+
+        assertThat(totalsService.totalByStatus(PaymentStatus.COMPLETED)).isEqualByComparingTo("40");
+        assertThat(totalsService.totalByStatus(PaymentStatus.FAILED)).isEqualByComparingTo("0");
+        assertThat(totalsService.totalByStatus(PaymentStatus.PENDING)).isEqualByComparingTo("25");
+    }
+
+    @Test
+    void seriesHasOneBucketPerPeriodIncludingEmptyOnes() {
+        Payment payment = paymentService.savePayment(new Payment(user, 40.0, "Donation", null));
+        paymentService.completePayment(payment.getTranId());
+
+        LocalDate today = LocalDate.now();
+        List<RevenueBucket> series = totalsService.series(PaymentStatus.COMPLETED, today.minusDays(6), today, "day", null, null);
+
+        assertThat(series).hasSize(7);
+        assertThat(series.get(6).key()).isEqualTo(today.toString());
+        assertThat(series.get(6).count()).isEqualTo(1);
+        assertThat(series.get(6).amount()).isEqualByComparingTo("40");
+        assertThat(series.subList(0, 6)).allMatch(bucket -> bucket.count() == 0);
+    }
+
+    // Non-empty (status, purpose, currency) totals for today, summed over shards
+    private Map<String, BigDecimal> breakdownByEverything() {
+        LocalDate today = LocalDate.now();
+        return totalsRepository.sumByStatusPurposeCurrency(today, today).stream()
+                .filter(row -> ((Number) row[3]).longValue() != 0)
+                .collect(Collectors.toMap(row -> row[0] + "/" + row[1] + "/" + row[2] + "/" + row[3],
+                        row -> ((BigDecimal) row[4]).stripTrailingZeros()));
+    }
+}
@@ -0,0 +1,183 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.TrendingPet;
+import com.pawhaven.backend.model.AdoptionApplication;
+import com.pawhaven.backend.model.ApplicationStatus;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.model.PetDemand;
+import com.pawhaven.backend.model.User;
+import com.pawhaven.backend.model.UserRole;
+import com.pawhaven.backend.repository.AdoptionApplicationRepository;
+import com.pawhaven.backend.repository.PetDemandRepository;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A three-second half-life, with the scheduled refresh and flush pushed out so each test drives them itself
+@SpringBootTest(properties = {
+        "pawhaven.pets.demand.half-life-minutes=0.05",
+        "pawhaven.pets.demand.ranking-refresh-ms=3600000",
+        "pawhaven.pets.demand.flush-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PetDemandTrackerTest {
+
+    @Autowired
+    private PetDemandTracker tracker;
+
+    @Autowired
+    private PetDemandRepository petDemandRepository;
+
+    @Autowired
+    private AdoptionApplicationService applicationService;
+
+    @Autowired
+    private AdoptionApplicationRepository applicationRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final List<Pet> pets = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 4; i++) {
+            pets.add(petRepository.save(new Pet("Trending " + i, "Dog", Gender.FEMALE)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        petDemandRepository.deleteAllInBatch();
+        tracker.loadFromTable();
+        applicationRepository.deleteAllInBatch();
+        petRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        pets.clear();
+    }
+
+    @Test
+    void concurrentEventsAreCountedAndRankedWithApplicationsWeighted() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> recorders = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            recorders.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 250; i++) {
+                    tracker.recordView(pets.get(0).getId());
+                }
+                tracker.recordApplication(pets.get(1).getId());
+                for (int i = 0; i < 5; i++) {
+                    tracker.recordView(pets.get(2).getId());
+                }
+            }));
+        }
+        start.countDown();
+        CompletableFuture.allOf(recorders.toArray(CompletableFuture[]::new)).get(20, TimeUnit.SECONDS);
+
+        tracker.refreshTrending();
+        List<TrendingPet> trending = tracker.getTrending(10);
+
+        // 2000 views, then 8 applications (weight 10) ahead of 40 views; decay over the test is at most a few percent
+        assertThat(trending).extracting(TrendingPet::petId)
+                .containsExactly(pets.get(0).getId(), pets.get(1).getId(), pets.get(2).getId());
+        assertThat(trending.get(0).recentViews()).isCloseTo(2000, within(200.0));
+        assertThat(trending.get(1).recentApplications()).isCloseTo(8, within(1.0));
+        assertThat(tracker.getTrending(1)).hasSize(1);
+    }
+
+    @Test
+    void scoresHalveEveryHalfLife() throws Exception {
+        Long petId = pets.get(0).getId();
+        for (int i = 0; i < 100; i++) {
+            tracker.recordView(petId);
+        }
+        tracker.refreshTrending();
+        double fresh = tracker.getTrending(1).get(0).score();
+
+        Thread.sleep(3000);
+        tracker.refreshTrending();
+        double decayed = tracker.getTrending(1).get(0).score();
+
+        assertThat(decayed / fresh).isCloseTo(0.5, within(0.1));
+    }
+
+    @Test
+    void flushesAddIntoTheTableAndSurviveARestart() {
+        Long petId = pets.get(0).getId();
+        for (int i = 0; i < 40; i++) {
+            tracker.recordView(petId);
+        }
+        tracker.flush();
+        for (int i = 0; i < 60; i++) {
+            tracker.recordView(petId);
+        }
+        tracker.recordApplication(petId);
+        tracker.flush();
+
+        // The second flush adds only what arrived since the first instead of overwriting it
+        PetDemand stored = petDemandRepository.findById(petId).orElseThrow();
+        assertThat(stored.getViewScore()).isCloseTo(100, within(10.0));
+        assertThat(stored.getApplicationScore()).isCloseTo(1, within(0.1));
+
+        // A flush with nothing new leaves the row alone
+        tracker.flush();
+        assertThat(petDemandRepository.findById(petId).orElseThrow().getViewScore())
+                .isCloseTo(stored.getViewScore(), within(0.001));
+
+        tracker.loadFromTable();
+        List<TrendingPet> reloaded = tracker.getTrending(5);
+        assertThat(reloaded).extracting(TrendingPet::petId).containsExactly(petId);
+        assertThat(reloaded.get(0).recentViews()).isCloseTo(100, within(10.0));
+    }
+
+    @Test
+    void detailViewsAndSubmissionsFeedTheRanking() throws Exception {
+        User applicant = userRepository.save(new User("Trend Applicant", "trend-applicant@example.com", "secret", UserRole.USER));
+        Pet viewed = pets.get(0);
+        Pet applied = pets.get(3);
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/pets/" + viewed.getId())).andExpect(status().isOk());
+        }
+        applicationService.submitApplication(applicant.getId(), applied.getId(), new AdoptionApplication());
+        tracker.refreshTrending();
+
+        mockMvc.perform(get("/api/pets/trending").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].petId").value(applied.getId()))
+                .andExpect(jsonPath("$[1].petId").value(viewed.getId()));
+        assertThat(applicationRepository.countByStatus(ApplicationStatus.PENDING)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.dto.PetQueryCriteria;
+import com.pawhaven.backend.dto.PetQueryResult;
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.repository.PetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PetQueryServiceTest {
+
+    private static final PetQueryCriteria ALL = new PetQueryCriteria(null, null, null, null, null, null, null, null, null, null);
+
+    @Autowired
+    private PetQueryService petQueryService;
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            petRepository.save(new Pet("Pup " + i, "Dog", Gender.MALE));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        petRepository.findAll().forEach(pet -> petService.deletePet(pet.getId()));
+    }
+
+    @Test
+    void pagesPastTheEndAreEmpty() {
+        assertThat(petQueryService.query(ALL, 1, 2, "name", "asc").content()).hasSize(1);
+
+        PetQueryResult pastTheEnd = petQueryService.query(ALL, 1_000, 100, null, null);
+        assertThat(pastTheEnd.content()).isEmpty();
+        assertThat(pastTheEnd.totalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void pageWhoseOffsetOverflowsIsRejected() {
+        assertThatThrownBy(() -> petQueryService.query(ALL, Integer.MAX_VALUE / 50, 100, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Page out of range");
+    }
+}
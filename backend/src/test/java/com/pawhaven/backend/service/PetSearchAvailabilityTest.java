@@ -0,0 +1,66 @@
+package com.pawhaven.backend.service;
+
+import com.pawhaven.backend.model.Gender;
+import com.pawhaven.backend.model.Pet;
+import com.pawhaven.backend.repository.PetRepository;
+import com.pawhaven.backend.search.PetSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PetSearchAvailabilityTest {
+
+    @Autowired
+    private PetService petService;
+
+    @Autowired
+    private PetSearchIndex petSearchIndex;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @AfterEach
+    void tearDown() {
+        petRepository.findAll().forEach(pet -> petService.deletePet(pet.getId()));
+    }
+
+    @Test
+    void availableOnlySearchFillsTheLimitFromAvailableMatches() {
+        // The best matches (the query in both name and breed) are all adopted
+        for (int i = 0; i < 5; i++) {
+            Pet adopted = new Pet("Marigold " + i, "Dog", Gender.FEMALE);
+            adopted.setBreed("Marigold Retriever");
+            adopted.setAvailable(false);
+            petRepository.save(adopted);
+        }
+        for (int i = 0; i < 3; i++) {
+            Pet available = new Pet("Pup " + i, "Dog", Gender.MALE);
+            available.setBreed("Marigold Retriever");
+            petRepository.save(available);
+        }
+
+        assertAvailableMatches(petService.searchPets("marigold", 3, true));
+        assertThat(petService.searchPets("marigold", 3, false)).noneMatch(Pet::getAvailable);
+
+        // Availability survives a rebuild from the table, and follows later updates
+        petSearchIndex.rebuild();
+        assertAvailableMatches(petService.searchPets("marigold", 3, true));
+        Pet adopted = petService.searchPets("marigold", 1, true).get(0);
+        adopted.setAvailable(false);
+        petRepository.save(adopted);
+        assertThat(petService.searchPets("marigold", 3, true)).hasSize(2)
+                .extracting(Pet::getId).doesNotContain(adopted.getId());
+    }
+
+    private static void assertAvailableMatches(List<Pet> pets) {
+        assertThat(pets).hasSize(3).allMatch(Pet::getAvailable);
+    }
+}
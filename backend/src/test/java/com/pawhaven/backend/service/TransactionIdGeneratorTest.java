@@ -0,0 +1,28 @@
+package com.pawhaven.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionIdGeneratorTest {
+
+    private final TransactionIdGenerator generator = new TransactionIdGenerator();
+
+    @Test
+    void idsAreUniqueAndTimeOrdered() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            ids.add(generator.next());
+        }
+
+        Set<String> distinct = new HashSet<>(ids);
+        assertThat(distinct).hasSize(ids.size());
+        assertThat(ids).isSorted();
+        assertThat(ids.get(0)).matches("TXN-[0-9A-HJKMNP-TV-Z]{26}");
+    }
+}
@@ -182,7 +182,9 @@ export const useSubmitApplication = () => {
       return application;
     },
     onError: (error) => {
-      const message = error.response?.data?.message || 'Failed to submit application';
+      const message = error.response?.status === 409
+        ? 'You already have an open application for this pet'
+        : error.response?.data?.error || 'Failed to submit application';
       toast.error(message);
     },
   });
@@ -121,7 +121,11 @@ const AdoptionApplicationPage = () => {
             setIsSubmitted(true);
         } catch (error) {
             console.error('Error submitting application:', error);
-            toast.error(error.response?.data?.message || 'Failed to submit application. Please try again.');
+            if (error.response?.status === 409) {
+                toast.error('You already have an open application for this pet.');
+            } else {
+                toast.error(error.response?.data?.error || 'Failed to submit application. Please try again.');
+            }
         } finally {
             setIsSubmitting(false);
         }
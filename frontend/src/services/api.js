@@ -168,11 +168,6 @@ export const adoptionAPI = {
     return api.get('/adoption-applications/recent');
   },
 
-  // Check if user has applied for a pet
-  checkUserPetApplication: (userId, petId) => {
-    return api.get(`/adoption-applications/check/user/${userId}/pet/${petId}`);
-  },
-
   // Update application status (admin only)
   updateApplicationStatus: (id, statusData) => {
     return api.put(`/adoption-applications/${id}/status`, statusData);